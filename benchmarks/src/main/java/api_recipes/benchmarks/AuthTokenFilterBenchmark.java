@@ -0,0 +1,104 @@
+package api_recipes.benchmarks;
+
+import api_recipes.models.User;
+import api_recipes.repository.RevokedTokenRepository;
+import api_recipes.repository.UserRepository;
+import api_recipes.security.jwt.AuthTokenFilter;
+import api_recipes.security.jwt.JwtUtils;
+import api_recipes.security.jwt.TokenDenylist;
+import api_recipes.security.services.UserDetailsImpl;
+import api_recipes.security.services.UserDetailsServiceImpl;
+import api_recipes.tracing.TraceFileExporter;
+import api_recipes.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paso completo de una petición por {@link AuthTokenFilter}: extracción y validación del token,
+ * consulta de la lista de revocación, carga del usuario y alta en el contexto de seguridad.
+ * El repositorio de usuarios responde desde memoria, así que se mide solo el coste propio del filtro.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    private AuthTokenFilter authTokenFilter;
+
+    private MockHttpServletRequest authenticatedRequest;
+
+    private MockHttpServletRequest anonymousRequest;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        User user = Fixtures.user(1);
+        JwtUtils jwtUtils = JwtBenchmark.jwtUtils();
+        UserRepository userRepository = Fixtures.stub(UserRepository.class, "findByUsername",
+                args -> Optional.of(user).filter(u -> u.getUsername().equals(args[0])));
+        TokenDenylist tokenDenylist = new TokenDenylist(
+                Fixtures.stub(RevokedTokenRepository.class, "findAllByExpiresAtAfter", args -> List.of()),
+                1 << 20, 4);
+        tokenDenylist.load();
+        // Sin traza activa, como en las peticiones que no entran en la muestra
+        Tracer tracer = new Tracer(true, 0.01, 200, 500,
+                new StaticListableBeanFactory().getBeanProvider(TraceFileExporter.class));
+
+        authTokenFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(authTokenFilter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(authTokenFilter, "userDetailsService", new UserDetailsServiceImpl(userRepository));
+        ReflectionTestUtils.setField(authTokenFilter, "tokenDenylist", tokenDenylist);
+        ReflectionTestUtils.setField(authTokenFilter, "tracer", tracer);
+
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/favorites");
+        authenticatedRequest.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        anonymousRequest = new MockHttpServletRequest("GET", "/api/recipes/popular");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication authenticated() throws Exception {
+        return filter(authenticatedRequest);
+    }
+
+    @Benchmark
+    public Authentication anonymous() throws Exception {
+        return filter(anonymousRequest);
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws Exception {
+        // OncePerRequestFilter marca la petición; se limpia para que cada invocación pase por el filtro
+        request.clearAttributes();
+        try {
+            authTokenFilter.doFilter(request, response, CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package api_recipes.benchmarks;
+
+import api_recipes.models.*;
+import api_recipes.payload.request.RecipeIngredientRequest;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Datos de prueba compartidos por los benchmarks: recetas con el tamaño de las reales y
+ * repositorios sustituidos por implementaciones en memoria, sin contexto de Spring ni base de datos.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public final class Fixtures {
+
+    private static final String DESCRIPTION = "Receta tradicional de la abuela, con ingredientes de temporada "
+            + "y una preparación sencilla que se puede adelantar el día anterior. ".repeat(3);
+
+    private static final String PREPARATION = "Picar la cebolla y el ajo, sofreír a fuego lento durante diez minutos, "
+            + "añadir el resto de ingredientes y cocinar hasta que la salsa espese. ".repeat(6);
+
+    private Fixtures() {
+    }
+
+    /**
+     * Usuario con rol de usuario, como el autor de una receta o el titular de un token.
+     */
+    public static User user(long id) {
+        User user = new User("usuario" + id, "usuario" + id + "@example.com",
+                "$2a$10$abcdefghijklmnopqrstuuJ0q1hF3mW7m0Ff8oGv2y1rR2nU1zS2e");
+        user.setId(id);
+        user.setRoles(Set.of(new Role(Role.RoleName.ROLE_USER)));
+        return user;
+    }
+
+    /**
+     * Catálogo de ingredientes con identificadores consecutivos desde 1.
+     */
+    public static List<Ingredient> ingredients(int count) {
+        Ingredient.UnitMeasure[] units = Ingredient.UnitMeasure.values();
+        List<Ingredient> ingredients = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            ingredients.add(Ingredient.builder()
+                    .id((long) i)
+                    .name("Ingrediente " + i)
+                    .imageUrl("/uploads/ingredients/" + i + ".jpg")
+                    .unit_measure(units[i % units.length])
+                    .active(true)
+                    .recipeIngredients(new HashSet<>())
+                    .build());
+        }
+        return ingredients;
+    }
+
+    /**
+     * Receta publicada con textos de longitud habitual, varias categorías y los ingredientes dados.
+     */
+    public static Recipe recipe(long id, User user, List<Ingredient> ingredients, int categoryCount) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle("Receta " + id);
+        recipe.setDescription(DESCRIPTION);
+        recipe.setPreparation(PREPARATION);
+        recipe.setImageUrl("/uploads/recipes/" + id + ".jpg");
+        recipe.setPopularity((int) (id * 7 % 500));
+        recipe.setStatus(Recipe.RecipeStatus.APPROVED);
+        recipe.setUser(user);
+        Set<Category> categories = new HashSet<>();
+        for (int i = 1; i <= categoryCount; i++) {
+            categories.add(Category.builder().id((long) i).name("Categoría " + i).recipes(new HashSet<>()).build());
+        }
+        recipe.setCategories(categories);
+        Set<RecipeIngredient> recipeIngredients = new HashSet<>();
+        for (Ingredient ingredient : ingredients) {
+            recipeIngredients.add(new RecipeIngredient(ingredient.getId(), recipe, ingredient, 1.0 + ingredient.getId() % 5));
+        }
+        recipe.setRecipeIngredients(recipeIngredients);
+        return recipe;
+    }
+
+    /**
+     * Peticiones de ingredientes para los identificadores [from, from + count).
+     */
+    public static Set<RecipeIngredientRequest> ingredientRequests(long from, int count) {
+        Set<RecipeIngredientRequest> requests = new HashSet<>();
+        for (long id = from; id < from + count; id++) {
+            RecipeIngredientRequest request = new RecipeIngredientRequest();
+            request.setIngredientId(id);
+            request.setQuantity(2.0 + id % 3);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    /**
+     * Implementación de un repositorio que solo responde al método indicado; cualquier otro
+     * acceso falla para que un cambio en el código medido no pase desapercibido.
+     */
+    public static <T> T stub(Class<T> repository, String method, Function<Object[], Object> answer) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, invoked, args) -> switch (invoked.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> repository.getSimpleName() + "Stub";
+                    default -> {
+                        if (!invoked.getName().equals(method)) {
+                            throw new UnsupportedOperationException(repository.getSimpleName() + "." + invoked.getName());
+                        }
+                        yield answer.apply(args);
+                    }
+                }));
+    }
+}
@@ -0,0 +1,40 @@
+package api_recipes.benchmarks;
+
+import api_recipes.mapper.RecipeMapper;
+import api_recipes.models.Recipe;
+import api_recipes.payload.dto.RecipeDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de una receta a {@link RecipeDto}, que se ejecuta por cada receta de cualquier listado.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeMapperBenchmark {
+
+    @Param({"5", "15", "50"})
+    int ingredientCount;
+
+    private final RecipeMapper recipeMapper = RecipeMapper.INSTANCE;
+
+    private Recipe recipe;
+
+    @Setup
+    public void setUp() {
+        recipe = Fixtures.recipe(1, Fixtures.user(1), Fixtures.ingredients(ingredientCount), 3);
+    }
+
+    @Benchmark
+    public RecipeDto toDTO() {
+        return recipeMapper.toDTO(recipe);
+    }
+}
@@ -0,0 +1,56 @@
+package api_recipes.benchmarks;
+
+import api_recipes.mapper.RecipeMapper;
+import api_recipes.models.Ingredient;
+import api_recipes.models.User;
+import api_recipes.payload.dto.RecipeDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización a JSON de una página de recetas, la respuesta de los listados paginados.
+ * El {@link ObjectMapper} se construye igual que el de Spring Boot.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipePageSerializationBenchmark {
+
+    @Param({"10", "50"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private Page<RecipeDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        User user = Fixtures.user(1);
+        List<Ingredient> ingredients = Fixtures.ingredients(15);
+        List<RecipeDto> recipes = new ArrayList<>(pageSize);
+        for (int i = 1; i <= pageSize; i++) {
+            recipes.add(RecipeMapper.INSTANCE.toDTO(Fixtures.recipe(i, user, ingredients.subList(0, 5 + i % 10), 3)));
+        }
+        page = new PageImpl<>(recipes, PageRequest.of(0, pageSize), 1_000);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,74 @@
+package api_recipes.services;
+
+import api_recipes.benchmarks.Fixtures;
+import api_recipes.mapper.RecipeMapper;
+import api_recipes.models.Ingredient;
+import api_recipes.models.Recipe;
+import api_recipes.payload.request.RecipeIngredientRequest;
+import api_recipes.repository.IngredientRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validación y sincronización de los ingredientes de una receta al crearla o editarla,
+ * desde recetas pequeñas hasta las más grandes que admite la API.
+ * Está en el paquete del servicio porque ambos métodos son de uso interno.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeIngredientsBenchmark {
+
+    @Param({"5", "50", "500"})
+    int ingredientCount;
+
+    private RecipeService recipeService;
+
+    private Recipe recipe;
+
+    private Set<RecipeIngredientRequest> current;
+
+    private Set<RecipeIngredientRequest> edited;
+
+    @Setup
+    public void setUp() {
+        // Cada edición quita la mitad de los ingredientes, añade otros tantos y actualiza el resto
+        List<Ingredient> catalog = Fixtures.ingredients(ingredientCount + ingredientCount / 2);
+        Map<Long, Ingredient> byId = catalog.stream().collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+        IngredientRepository ingredientRepository = Fixtures.stub(IngredientRepository.class, "findById",
+                args -> Optional.ofNullable(byId.get((Long) args[0])));
+        recipeService = new RecipeService(null, RecipeMapper.INSTANCE, null, ingredientRepository);
+
+        recipe = Fixtures.recipe(1, Fixtures.user(1), catalog.subList(0, ingredientCount), 3);
+        current = Fixtures.ingredientRequests(1, ingredientCount);
+        edited = Fixtures.ingredientRequests(1 + ingredientCount / 2, ingredientCount);
+    }
+
+    @Benchmark
+    public void validateUniqueIngredients() {
+        recipeService.validateUniqueIngredients(current);
+    }
+
+    @Benchmark
+    public Recipe updateRecipeIngredients() {
+        // Se alterna entre las dos versiones para que cada llamada tenga el mismo trabajo
+        Set<RecipeIngredientRequest> next = edited;
+        edited = current;
+        current = next;
+        recipeService.updateRecipeIngredients(recipe, next);
+        return recipe;
+    }
+}
@@ -0,0 +1,39 @@
+package api_recipes.config;
+
+import api_recipes.storage.FileSystemImageStore;
+import api_recipes.storage.ImageStore;
+import api_recipes.storage.PackFileImageStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Selección del almacén de imágenes con {@code api_recipes.images.store}:
+ * {@code filesystem} (por defecto, un fichero por imagen) o {@code pack} (segmentos empaquetados).
+ * Los segmentos quedan fuera de {@code uploads/images}: no deben poder descargarse enteros.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Configuration
+public class ImageStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "api_recipes.images.store", havingValue = "filesystem", matchIfMissing = true)
+    public ImageStore fileSystemImageStore(@Value("${api_recipes.images.blobDir:uploads/images/blobs}") String blobDir) {
+        return new FileSystemImageStore(Paths.get(blobDir));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "api_recipes.images.store", havingValue = "pack")
+    public PackFileImageStore packFileImageStore(
+            @Value("${api_recipes.images.pack.dir:uploads/packs}") String dir,
+            @Value("${api_recipes.images.pack.maxSegmentBytes:268435456}") long maxSegmentBytes,
+            @Value("${api_recipes.images.pack.compactionThreshold:0.5}") double compactionThreshold) throws IOException {
+        return new PackFileImageStore(Paths.get(dir), maxSegmentBytes, compactionThreshold);
+    }
+}
@@ -0,0 +1,100 @@
+package api_recipes.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+/**
+ * Métricas de latencia y de uso de recursos, publicadas en formato Prometheus en
+ * {@code /actuator/prometheus}.
+ *
+ * Spring Boot ya mide cada endpoint ({@code http.server.requests}), cada método de repositorio
+ * ({@code spring.data.repository.invocations}) y el pool de Hikari ({@code hikaricp.*}); aquí se
+ * añaden los histogramas y percentiles de los dos primeros, el ratio de aciertos por región de
+ * la caché de segundo nivel y la ocupación del limitador de conexiones de los hilos virtuales.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Temporizadores con histograma: latencia por endpoint y por método de repositorio
+    private static final Set<String> LATENCY_TIMERS = Set.of("http.server.requests", "spring.data.repository.invocations");
+
+    @Bean
+    public MeterFilter latencyHistogramFilter(
+            @Value("${api_recipes.metrics.percentiles:0.5,0.95,0.99}") double[] percentiles) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !LATENCY_TIMERS.contains(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(percentiles)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            // Sin estadísticas (api_recipes.cache.statistics=false) no hay aciertos que contar
+            if (!statistics.isStatisticsEnabled()) {
+                return;
+            }
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                if (regionStatistics == null) {
+                    continue;
+                }
+                Gauge.builder("api_recipes.cache.hit.ratio", regionStatistics, MetricsConfig::hitRatio)
+                        .description("Aciertos sobre lecturas de la región de la caché de segundo nivel")
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.forEach(dataSource -> {
+            ConnectionLimitingDataSource limiter =
+                    DataSourceUnwrapper.unwrap(dataSource, ConnectionLimitingDataSource.class);
+            if (limiter == null) {
+                return;
+            }
+            Gauge.builder("api_recipes.datasource.limiter.active", limiter, ConnectionLimitingDataSource::getConnectionsInUse)
+                    .description("Conexiones entregadas por el limitador de hilos virtuales")
+                    .register(registry);
+            Gauge.builder("api_recipes.datasource.limiter.pending", limiter, ConnectionLimitingDataSource::getWaitingThreads)
+                    .description("Hilos esperando turno en el limitador de conexiones")
+                    .register(registry);
+        });
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        long hits = statistics.getHitCount();
+        long requests = hits + statistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
@@ -0,0 +1,69 @@
+package api_recipes.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Cuenta las sentencias SQL de cada petición, incluidas las de la autenticación.
+ *
+ * El total se publica en la métrica {@code api_recipes.sql.statements} por método y ruta, se
+ * deja en el atributo {@link #STATEMENTS_ATTRIBUTE} de la petición y, si pasa del umbral, se
+ * avisa en el log: un número de sentencias que crece con el tamaño de la respuesta suele ser
+ * una carga perezosa por elemento (N+1).
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    public static final String STATEMENTS_ATTRIBUTE = "api_recipes.sql.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final long warnThreshold;
+
+    /**
+     * Constructor del filtro.
+     *
+     * @param meterRegistry Registro de métricas
+     * @param warnThreshold Sentencias a partir de las que se avisa en el log
+     */
+    public QueryCountFilter(MeterRegistry meterRegistry, long warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long statements = SqlStatementCounter.stop();
+            request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("api_recipes.sql.statements")
+                    .description("Sentencias SQL por petición")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+            if (statements > warnThreshold) {
+                logger.warn("{} {} ejecutó {} sentencias SQL (umbral {})", request.getMethod(), uri, statements, warnThreshold);
+            }
+        }
+    }
+}
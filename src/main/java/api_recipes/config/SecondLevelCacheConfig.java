@@ -0,0 +1,41 @@
+package api_recipes.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caché de segundo nivel de Hibernate para las entidades de referencia (categorías,
+ * ingredientes y roles) y sus colecciones, con Ehcache como proveedor JCache local.
+ *
+ * Las regiones se declaran en {@code hibernate-ehcache.xml} con su tamaño y caducidad; una
+ * región que falte hace fallar el arranque en lugar de crearse sin límites. El proveedor, el
+ * fichero de regiones y esa estrategia están en {@code hibernate.properties}, que Hibernate
+ * aplica a toda EntityManagerFactory; aquí solo se activa o desactiva la caché. Con las
+ * estadísticas activas, los aciertos y fallos por región se publican en Micrometer
+ * ({@code hibernate.second.level.cache.*}).
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${api_recipes.cache.enabled:true}") boolean enabled,
+            @Value("${api_recipes.cache.config:hibernate-ehcache.xml}") String config,
+            @Value("${api_recipes.cache.statistics:true}") boolean statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            if (!enabled) {
+                return;
+            }
+            properties.put(ConfigSettings.CONFIG_URI, config);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+}
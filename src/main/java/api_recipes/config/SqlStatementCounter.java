@@ -0,0 +1,44 @@
+package api_recipes.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual.
+ *
+ * Solo cuenta entre {@link #start()} y {@link #stop()}; fuera de ese intervalo no hace nada.
+ * Incluye las consultas nativas y las cargas perezosas, pero no el SQL que se lanza con
+ * {@code JdbcTemplate}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Empieza a contar en el hilo actual, desde cero.
+     */
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    /**
+     * Deja de contar en el hilo actual.
+     *
+     * @return Sentencias preparadas desde {@link #start()}
+     */
+    public static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
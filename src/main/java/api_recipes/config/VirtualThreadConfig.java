@@ -0,0 +1,71 @@
+package api_recipes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración del modo de hilos virtuales ({@code spring.threads.virtual.enabled=true}).
+ *
+ * Spring Boot ya ejecuta en hilos virtuales las peticiones de Tomcat, los métodos {@code @Async}
+ * y las tareas {@code @Scheduled}; aquí solo se añade el limitador de conexiones delante de
+ * Hikari para que los hilos virtuales no saturen la base de datos.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public static ConnectionLimitingDataSourcePostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new ConnectionLimitingDataSourcePostProcessor(environment);
+    }
+
+    /**
+     * Envuelve cada DataSource con el limitador. Se ejecuta antes que el resto de envoltorios
+     * (trazas), de modo que el limitador queda pegado al pool.
+     */
+    public static class ConnectionLimitingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+        private final Environment environment;
+
+        ConnectionLimitingDataSourcePostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                return bean;
+            }
+            // Por defecto, tantos permisos como conexiones tiene el pool (Hikari usa 10 si no se configura)
+            HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+            int poolSize = hikari != null && hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : 10;
+            int maxConcurrent = environment.getProperty(
+                    "api_recipes.datasource.maxConcurrentConnections", Integer.class, poolSize);
+            long acquireTimeoutMs = environment.getProperty(
+                    "api_recipes.datasource.acquireTimeoutMs", Long.class, 30000L);
+
+            logger.info("Hilos virtuales activos: limitando el DataSource '{}' a {} conexiones concurrentes",
+                    beanName, maxConcurrent);
+            return new ConnectionLimitingDataSource(dataSource, maxConcurrent, acquireTimeoutMs);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 100;
+        }
+    }
+}
@@ -3,10 +3,12 @@ package api_recipes.controllers;
 import api_recipes.payload.request.ChangeEmailRequest;
 import api_recipes.payload.request.ChangePasswordRequest;
 import api_recipes.payload.response.SuccessResponse;
+import api_recipes.security.jwt.JwtUtils;
 import api_recipes.security.services.UserDetailsImpl;
 import api_recipes.services.AccountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,9 +22,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 public class AccountController {
 
     private final AccountService accountService;
+    private final JwtUtils jwtUtils;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, JwtUtils jwtUtils) {
         this.accountService = accountService;
+        this.jwtUtils = jwtUtils;
     }
 
     @Operation(summary = "Cambiar email", description = "Permite cambiar el email del usuario autenticado")
@@ -51,8 +55,11 @@ public class AccountController {
     @PatchMapping("/change-password")
     public ResponseEntity<SuccessResponse> changePassword(
             @AuthenticationPrincipal UserDetailsImpl userDetails,
-            @RequestBody @Valid ChangePasswordRequest request) {
+            @RequestBody @Valid ChangePasswordRequest request,
+            HttpServletRequest httpRequest) {
         accountService.changePassword(userDetails.getId(), request.getOldPassword(), request.getNewPassword());
+        // El token usado para cambiar la contraseña deja de ser válido
+        accountService.revokeAccessToken(jwtUtils.parseJwt(httpRequest));
         return ResponseEntity.ok(new SuccessResponse("Contraseña actualizada correctamente"));
     }
 }
@@ -19,6 +19,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -121,4 +122,17 @@ public class AuthController {
         accountService.invalidateToken(resetPasswordRequest.getToken());
         return ResponseEntity.ok(new SuccessResponse("Contraseña actualizada correctamente."));
     }
+
+    @Operation(summary = "Cerrar sesión",
+               description = "Revoca el token JWT enviado en el header Authorization hasta su expiración")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sesión cerrada exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Token inválido")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<SuccessResponse> logout(HttpServletRequest request) {
+        accountService.revokeAccessToken(jwtUtils.parseJwt(request));
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(new SuccessResponse("Sesión cerrada correctamente."));
+    }
 }
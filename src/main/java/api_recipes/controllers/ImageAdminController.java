@@ -0,0 +1,60 @@
+package api_recipes.controllers;
+
+import api_recipes.payload.response.ImageGcReport;
+import api_recipes.payload.response.ImageImportReport;
+import api_recipes.services.ImageGarbageCollector;
+import api_recipes.services.ImageImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin/images")
+@Tag(name = "Administración de imágenes", description = "Mantenimiento del almacenamiento de imágenes")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ImageAdminController {
+
+    private final ImageGarbageCollector imageGarbageCollector;
+    private final ImageImportService imageImportService;
+
+    public ImageAdminController(ImageGarbageCollector imageGarbageCollector, ImageImportService imageImportService) {
+        this.imageGarbageCollector = imageGarbageCollector;
+        this.imageImportService = imageImportService;
+    }
+
+    @Operation(summary = "Recolectar imágenes huérfanas",
+            description = "Reconcilia los ficheros con las referencias en base de datos. Por defecto solo simula y devuelve el informe")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Informe de la pasada")
+    })
+    @PostMapping("/gc")
+    public ResponseEntity<ImageGcReport> collectGarbage(
+            @Parameter(description = "Solo informar, sin borrar") @RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(imageGarbageCollector.collect(dryRun));
+    }
+
+    @Operation(summary = "Importar imágenes desde un ZIP",
+            description = "Lee el ZIP en streaming y asigna cada entrada (<id>.<ext> o recipes|ingredients/<id>.<ext>) "
+                    + "a su receta o ingrediente. Devuelve el resultado de cada entrada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Informe de la importación"),
+            @ApiResponse(responseCode = "400", description = "Tipo de destino no válido")
+    })
+    @PostMapping(value = "/import", consumes = {"application/zip", "application/x-zip-compressed",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ImageImportReport> importImages(
+            @Parameter(description = "Tipo de las entradas nombradas solo por id: recipes o ingredients")
+            @RequestParam(defaultValue = "ingredients") String target,
+            @Parameter(hidden = true) HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(imageImportService.importZip(request.getInputStream(), target));
+    }
+}
@@ -0,0 +1,104 @@
+package api_recipes.controllers;
+
+import api_recipes.services.ImageUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@RestController
+@Tag(name = "Imágenes", description = "Entrega de imágenes de recetas e ingredientes")
+public class ImageController {
+
+    // Atributos de Tomcat para enviar el fichero con sendfile (sin copiarlo por la JVM)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Por debajo de este tamaño es más barato escribir el fichero directamente (mismo umbral que DefaultServlet)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    // La URL incluye el hash del contenido: nunca cambia, así que se puede cachear para siempre
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // Variante aún no generada: se sirve el original poco tiempo para que el cliente vuelva a pedirla
+    private static final CacheControl PENDING_VARIANT = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+
+    private final ImageUploadService imageUploadService;
+
+    public ImageController(ImageUploadService imageUploadService) {
+        this.imageUploadService = imageUploadService;
+    }
+
+    @Operation(summary = "Obtener imagen", description = "Sirve una imagen o una de sus variantes redimensionadas (thumb, card, full). "
+            + "Admite ETag (If-None-Match) y peticiones Range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imagen encontrada"),
+            @ApiResponse(responseCode = "206", description = "Rango de la imagen"),
+            @ApiResponse(responseCode = "304", description = "La copia del cliente sigue siendo válida"),
+            @ApiResponse(responseCode = "400", description = "Tamaño no válido"),
+            @ApiResponse(responseCode = "404", description = "Imagen no encontrada")
+    })
+    @GetMapping("/images/blobs/{prefix}/{filename}")
+    public ResponseEntity<Resource> getImage(
+            @Parameter(description = "Primeros dos caracteres del hash", required = true) @PathVariable String prefix,
+            @Parameter(description = "Nombre del fichero (hash y extensión)", required = true) @PathVariable String filename,
+            @Parameter(description = "Variante: thumb, card o full") @RequestParam(required = false) String size,
+            @Parameter(hidden = true) HttpServletRequest request,
+            @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        ImageUploadService.ResolvedImage image = imageUploadService.resolveImage("/images/blobs/" + prefix + "/" + filename, size);
+        String servedName = image.name();
+        boolean pendingVariant = size != null && servedName.equals(filename);
+
+        // ETag fuerte: el nombre servido ya contiene el hash del contenido (y la variante)
+        String etag = "\"" + servedName.substring(0, servedName.lastIndexOf('.')) + "\"";
+        CacheControl cacheControl = pendingVariant ? PENDING_VARIANT : IMMUTABLE;
+        MediaType mediaType = MediaTypeFactory.getMediaType(servedName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        Resource resource = image.resource();
+        long length = resource.contentLength();
+        // Solo los ficheros sueltos admiten sendfile; las imágenes empaquetadas se copian desde memoria
+        if (resource.isFile() && request.getHeader(HttpHeaders.RANGE) == null && length >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            request.setAttribute(SENDFILE_FILENAME, resource.getFile().getAbsolutePath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            // Respuesta ya preparada: Tomcat envía el fichero al terminar la petición
+            return null;
+        }
+
+        // Con cuerpo Resource, Spring resuelve las peticiones Range (206) por su cuenta
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(mediaType)
+                .body(resource);
+    }
+}
@@ -7,8 +7,10 @@ import api_recipes.payload.request.IngredientRequest;
 import api_recipes.payload.response.SuccessResponse;
 import api_recipes.services.ImageUploadService;
 import api_recipes.services.IngredientService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -76,7 +78,7 @@ public class IngredientController {
         Ingredient ingredient = ingredientService.getIngredientEntityById(id);
 
     // Subir nueva imagen si es válida
-        String imageUrl = imageUploadService.uploadImage(file, "ingredients", "ingredient", null);
+        String imageUrl = imageUploadService.uploadImage(file);
         ingredientService.updateIngredientImage(id, imageUrl);
 
         // Eliminar imagen anterior si existe
@@ -87,4 +89,23 @@ public class IngredientController {
         return ResponseEntity.ok(new SuccessResponse("Imagen subida con éxito"));
     }
 
+    @PutMapping(value = "/{id}/upload-image", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<SuccessResponse> uploadImageStream(
+            @PathVariable Long id,
+            HttpServletRequest request) throws IOException {
+
+        Ingredient ingredient = ingredientService.getIngredientEntityById(id);
+
+        // El binario llega como cuerpo: se valida y guarda en streaming, sin buffer de multipart
+        String imageUrl = imageUploadService.uploadImage(request.getInputStream(), request.getContentLengthLong());
+        ingredientService.updateIngredientImage(id, imageUrl);
+
+        if (ingredient.getImageUrl() != null) {
+            imageUploadService.deleteImage(ingredient.getImageUrl(), "ingredients", null);
+        }
+
+        return ResponseEntity.ok(new SuccessResponse("Imagen subida con éxito"));
+    }
+
 }
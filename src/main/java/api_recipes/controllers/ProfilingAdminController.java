@@ -0,0 +1,100 @@
+package api_recipes.controllers;
+
+import api_recipes.payload.response.ProfilingReport;
+import api_recipes.payload.response.ProfilingSession;
+import api_recipes.services.ProfilingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/admin/profiling")
+@Tag(name = "Perfilado", description = "Grabaciones de Java Flight Recorder bajo demanda")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ProfilingAdminController {
+
+    private final ProfilingService profilingService;
+
+    public ProfilingAdminController(ProfilingService profilingService) {
+        this.profilingService = profilingService;
+    }
+
+    @Operation(summary = "Iniciar una grabación",
+            description = "Arranca Java Flight Recorder con un perfil (CPU, ALLOCATION o LOCKS); se detiene sola al cumplir la duración")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Grabación iniciada"),
+            @ApiResponse(responseCode = "400", description = "Perfil o duración no válidos"),
+            @ApiResponse(responseCode = "409", description = "Ya hay una grabación en curso")
+    })
+    @PostMapping("/start")
+    public ResponseEntity<ProfilingSession> start(
+            @Parameter(description = "Perfil: CPU, ALLOCATION o LOCKS") @RequestParam(defaultValue = "CPU") String profile,
+            @Parameter(description = "Duración máxima en segundos") @RequestParam(defaultValue = "60") long durationSeconds)
+            throws IOException {
+        return ResponseEntity.ok(profilingService.start(profile, durationSeconds));
+    }
+
+    @Operation(summary = "Estado de la grabación", description = "Devuelve la última grabación lanzada y si sigue en curso")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado de la grabación"),
+            @ApiResponse(responseCode = "404", description = "No se ha lanzado ninguna grabación")
+    })
+    @GetMapping("/status")
+    public ResponseEntity<ProfilingSession> status() {
+        return ResponseEntity.ok(profilingService.status());
+    }
+
+    @Operation(summary = "Detener la grabación",
+            description = "Detiene la grabación y devuelve los métodos más calientes, los puntos de reserva de memoria y las esperas por bloqueos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumen de la grabación"),
+            @ApiResponse(responseCode = "400", description = "No hay ninguna grabación que detener")
+    })
+    @PostMapping("/stop")
+    public ResponseEntity<ProfilingReport> stop(
+            @Parameter(description = "Entradas de cada lista (máximo 100)") @RequestParam(defaultValue = "20") int top)
+            throws IOException {
+        return ResponseEntity.ok(profilingService.stop(top));
+    }
+
+    @Operation(summary = "Resumir una grabación", description = "Vuelve a resumir una grabación guardada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumen de la grabación"),
+            @ApiResponse(responseCode = "404", description = "Grabación no encontrada")
+    })
+    @GetMapping("/recordings/{recordingId}")
+    public ResponseEntity<ProfilingReport> summarize(
+            @PathVariable String recordingId,
+            @Parameter(description = "Entradas de cada lista (máximo 100)") @RequestParam(defaultValue = "20") int top)
+            throws IOException {
+        return ResponseEntity.ok(profilingService.summarize(recordingId, top));
+    }
+
+    @Operation(summary = "Descargar una grabación", description = "Devuelve el fichero .jfr para abrirlo con JDK Mission Control o jfr")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichero .jfr"),
+            @ApiResponse(responseCode = "404", description = "Grabación no encontrada")
+    })
+    @GetMapping("/recordings/{recordingId}/file")
+    public ResponseEntity<Resource> download(@PathVariable String recordingId) {
+        Path file = profilingService.recordingFile(recordingId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+}
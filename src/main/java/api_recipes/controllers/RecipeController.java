@@ -21,11 +21,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -69,6 +71,17 @@ public class RecipeController {
         return ResponseEntity.ok(recipes);
     }
 
+    @Operation(summary = "Obtener recetas populares", description = "Retorna las recetas más populares, de más a menos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recetas encontradas", content = @Content(schema = @Schema(implementation = List.class))),
+            @ApiResponse(responseCode = "400", description = "Límite inválido")
+    })
+    @GetMapping("/popular")
+    public ResponseEntity<List<RecipeDto>> getPopularRecipes(
+            @Parameter(description = "Número máximo de recetas (máximo 50)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recipeService.getPopularRecipes(limit));
+    }
+
     @Operation(summary = "Obtener receta por ID", description = "Retorna una receta específica por su ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Receta encontrada", content = @Content(schema = @Schema(implementation = RecipeDto.class))),
@@ -161,14 +174,51 @@ public class RecipeController {
         }
 
         // Validar antes de subir la imagen
-        String imageUrl = imageUploadService.uploadImage(file, "recipes", "recipe", id);
+        String imageUrl = imageUploadService.uploadImage(file);
+
+        String previousImageUrl = recipe.getImageUrl();
+        recipeService.updateRecipeImage(id, imageUrl);
 
-        // Borrar imagen anterior si existe
-        if (recipe.getImageUrl() != null) {
-            imageUploadService.deleteImage(recipe.getImageUrl(), "recipes", id);
+        // Borrar imagen anterior solo cuando la receta ya apunta a la nueva
+        if (previousImageUrl != null) {
+            imageUploadService.deleteImage(previousImageUrl, "recipes", id);
         }
+        return ResponseEntity.ok(new SuccessResponse("Imagen subida con éxito"));
+    }
 
+    @Operation(summary = "Subir imagen de receta en streaming",
+            description = "Sube el binario de la imagen como cuerpo de la petición (sin multipart). "
+                    + "El tipo se comprueba por su contenido y la subida se corta al superar 5MB")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imagen subida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Archivo inválido o demasiado grande"),
+            @ApiResponse(responseCode = "403", description = "No tienes permiso para modificar esta receta"),
+            @ApiResponse(responseCode = "404", description = "Receta no encontrada")
+    })
+    @PutMapping(value = "/{id}/upload-image", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<SuccessResponse> uploadImageStream(
+            @Parameter(description = "ID de la receta", required = true) @PathVariable Long id,
+            @Parameter(hidden = true) HttpServletRequest request,
+            @Parameter(description = "Usuario autenticado", hidden = true) @AuthenticationPrincipal UserDetailsImpl userDetails)
+            throws IOException {
+        User user = getAuthenticatedUser(userDetails);
+        Recipe recipe = recipeService.getRecipeEntityById(id);
+
+        // Permisos antes de leer el cuerpo: una petición rechazada no llega a escribir en disco
+        if (!recipe.getUser().getUsername().equals(user.getUsername())) {
+            throw new AccessDeniedException("No tienes permiso para modificar esta receta");
+        }
+
+        String imageUrl = imageUploadService.uploadImage(request.getInputStream(), request.getContentLengthLong());
+
+        String previousImageUrl = recipe.getImageUrl();
         recipeService.updateRecipeImage(id, imageUrl);
+
+        // Borrar imagen anterior solo cuando la receta ya apunta a la nueva
+        if (previousImageUrl != null) {
+            imageUploadService.deleteImage(previousImageUrl, "recipes", id);
+        }
         return ResponseEntity.ok(new SuccessResponse("Imagen subida con éxito"));
     }
 
@@ -185,12 +235,15 @@ public class RecipeController {
             throws IOException {
         User user = getAuthenticatedUser(userDetails);
         Recipe recipe = recipeService.getRecipeEntityById(id);
+        String imageUrl = recipe.getImageUrl();
 
-        if (recipe.getImageUrl() != null) {
+        recipeService.deleteRecipe(id, user);
+
+        // La imagen se libera cuando la receta ya no existe (puede compartirla con otras)
+        if (imageUrl != null) {
+            imageUploadService.deleteImage(imageUrl, "recipes", id);
             imageUploadService.deleteDirectoryAndImage("recipes", id);
         }
-
-        recipeService.deleteRecipe(id, user);
         return ResponseEntity.ok(new SuccessResponse("Receta eliminada correctamente"));
     }
 }
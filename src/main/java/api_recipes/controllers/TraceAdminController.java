@@ -0,0 +1,85 @@
+package api_recipes.controllers;
+
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.payload.response.TraceDetail;
+import api_recipes.payload.response.TraceSummary;
+import api_recipes.tracing.Span;
+import api_recipes.tracing.Trace;
+import api_recipes.tracing.Tracer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/traces")
+@Tag(name = "Trazas", description = "Trazas en memoria de las peticiones muestreadas")
+@SecurityRequirement(name = "Bearer Authentication")
+public class TraceAdminController {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final Tracer tracer;
+
+    public TraceAdminController(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Operation(summary = "Listar trazas recientes",
+            description = "Devuelve las trazas del buffer en memoria, de la más reciente a la más antigua")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Trazas encontradas")
+    })
+    @GetMapping
+    public ResponseEntity<List<TraceSummary>> getTraces(
+            @Parameter(description = "Duración mínima en milisegundos") @RequestParam(defaultValue = "0") double minDurationMs,
+            @Parameter(description = "Máximo de trazas a devolver") @RequestParam(defaultValue = "50") int limit) {
+        List<TraceSummary> traces = tracer.recentTraces().stream()
+                .filter(trace -> trace.durationNanos() / NANOS_PER_MS >= minDurationMs)
+                .limit(Math.max(limit, 0))
+                .map(trace -> summarize(trace, new TraceSummary()))
+                .toList();
+        return ResponseEntity.ok(traces);
+    }
+
+    @Operation(summary = "Obtener una traza", description = "Devuelve la traza con todos sus tramos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Traza encontrada"),
+            @ApiResponse(responseCode = "404", description = "La traza no está en el buffer")
+    })
+    @GetMapping("/{traceId}")
+    public ResponseEntity<TraceDetail> getTrace(@PathVariable String traceId) {
+        Trace trace = tracer.findTrace(traceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Traza '" + traceId + "' no encontrada"));
+        TraceDetail detail = summarize(trace, new TraceDetail());
+        for (Span span : trace.spans()) {
+            TraceDetail.SpanEntry entry = new TraceDetail.SpanEntry();
+            entry.setSpanId(span.getSpanId());
+            entry.setParentSpanId(span.getParentSpanId());
+            entry.setName(span.getName());
+            entry.setKind(span.getKind().name());
+            entry.setStartOffsetMs(span.getStartOffsetNanos() / NANOS_PER_MS);
+            entry.setDurationMs(span.getDurationNanos() / NANOS_PER_MS);
+            entry.setAttributes(span.getAttributes());
+            detail.getSpans().add(entry);
+        }
+        return ResponseEntity.ok(detail);
+    }
+
+    private static <T extends TraceSummary> T summarize(Trace trace, T summary) {
+        summary.setTraceId(trace.traceId());
+        summary.setName(trace.name());
+        summary.setStartTime(Instant.EPOCH.plusNanos(trace.startEpochNanos()));
+        summary.setDurationMs(trace.durationNanos() / NANOS_PER_MS);
+        summary.setSpanCount(trace.spans().size());
+        summary.setDroppedSpans(trace.droppedSpans());
+        return summary;
+    }
+}
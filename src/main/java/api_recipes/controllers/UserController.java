@@ -1,7 +1,10 @@
 package api_recipes.controllers;
 import api_recipes.payload.dto.UserDto;
 import api_recipes.payload.request.UserRequest;
-import api_recipes.payload.response.SuccessResponse;
+import api_recipes.models.UserDeletionJob;
+import api_recipes.payload.response.KeysetPage;
+import api_recipes.payload.response.UserDeletionJobResponse;
+import api_recipes.services.UserDeletionService;
 import api_recipes.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,9 +16,11 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,9 +31,11 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserDeletionService userDeletionService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserDeletionService userDeletionService) {
         this.userService = userService;
+        this.userDeletionService = userDeletionService;
     }
 
     // Obtener todos los usuarios paginados
@@ -45,17 +52,34 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
-    // Obtener todos los usuarios
-    @Operation(summary = "Obtener todos los usuarios", description = "Retorna la lista completa de usuarios")
+    // Recorrer todos los usuarios por páginas con cursor
+    @Operation(summary = "Recorrer todos los usuarios",
+            description = "Retorna los usuarios ordenados por ID a partir de un cursor; nextCursor da la siguiente página")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Usuarios encontrados", content = @Content(schema = @Schema(implementation = List.class)))
+            @ApiResponse(responseCode = "200", description = "Usuarios encontrados", content = @Content(schema = @Schema(implementation = KeysetPage.class))),
+            @ApiResponse(responseCode = "400", description = "Parámetros de paginación inválidos")
     })
     @GetMapping("/all")
-    public ResponseEntity<List<UserDto>> getAllUsersList() {
-        List<UserDto> users = userService.getAllUsers();
+    public ResponseEntity<KeysetPage<UserDto>> getAllUsersList(
+            @Parameter(description = "ID del último usuario de la página anterior") @RequestParam(required = false) Long after,
+            @Parameter(description = "Tamaño de la página (máximo 100)") @RequestParam(defaultValue = "100") int size) {
+        KeysetPage<UserDto> users = userService.getUsersAfter(after, size);
         return ResponseEntity.ok(users);
     }
 
+    // Buscar usuarios por prefijo de nombre o email
+    @Operation(summary = "Buscar usuarios", description = "Retorna los usuarios cuyo nombre o email empieza por el texto dado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Usuarios encontrados", content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "400", description = "Texto de búsqueda vacío")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<UserDto>> searchUsers(
+            @Parameter(description = "Prefijo del nombre de usuario o del email") @RequestParam String q,
+            @Parameter(description = "Número máximo de resultados (máximo 100)") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(userService.searchUsers(q, limit));
+    }
+
     // Obtener un usuario por ID
     @Operation(summary = "Obtener usuario por ID", description = "Retorna un usuario específico por su ID")
     @ApiResponses(value = {
@@ -83,16 +107,31 @@ public class UserController {
    }
 
     // Eliminar un usuario
-    @Operation(summary = "Eliminar usuario", description = "Elimina un usuario específico")
+    @Operation(summary = "Eliminar usuario", description = "Lanza en segundo plano el borrado del usuario, sus recetas, "
+            + "favoritos e imágenes. El progreso se consulta en la URL de la cabecera Location")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Usuario eliminado exitosamente"),
+            @ApiResponse(responseCode = "202", description = "Borrado registrado",
+                    content = @Content(schema = @Schema(implementation = UserDeletionJobResponse.class))),
             @ApiResponse(responseCode = "403", description = "No tienes permiso para eliminar este usuario"),
             @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<SuccessResponse> deleteUser(@PathVariable Long id) {
-            // Eliminar todas las relaciones que tiene user  + eliminar la imagen
-        userService.deleteUserAndRelations(id);
-        return ResponseEntity.ok(new SuccessResponse("Usuario eliminado correctamente"));
+    public ResponseEntity<UserDeletionJobResponse> deleteUser(@PathVariable Long id) {
+        UserDeletionJob job = userDeletionService.requestDeletion(id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/users/deletion-jobs/" + job.getId()))
+                .body(UserDeletionJobResponse.from(job));
+    }
+
+    // Consultar el progreso de un borrado
+    @Operation(summary = "Progreso del borrado de un usuario", description = "Estado y recetas eliminadas de un borrado en segundo plano")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrado encontrado",
+                    content = @Content(schema = @Schema(implementation = UserDeletionJobResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Borrado no encontrado")
+    })
+    @GetMapping("/deletion-jobs/{jobId}")
+    public ResponseEntity<UserDeletionJobResponse> getDeletionJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(UserDeletionJobResponse.from(userDeletionService.getJob(jobId)));
     }
 }
\ No newline at end of file
@@ -14,6 +14,9 @@ public interface UserMapper {
     UserDto toDTO(User user);
 
     @Mapping(target = "roles", expression = "java(stringSetToRoleSet(userDTO.getRoles()))")
+    @Mapping(target = "usernameNormalized", ignore = true)
+    @Mapping(target = "emailNormalized", ignore = true)
+    @Mapping(target = "passwordChangedAt", ignore = true)
     User toEntity(UserDto userDTO);
 
     default Set<String> rolesToStringSet(Set<Role> roles) {
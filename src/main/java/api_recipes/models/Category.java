@@ -3,6 +3,11 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -19,6 +24,9 @@ import java.util.Set;
 @AllArgsConstructor
 @Entity
 @Table(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
+@BatchSize(size = 50)
 public class Category {
 
     /**
@@ -39,8 +47,11 @@ public class Category {
 
     /**
      * Recetas asociadas a esta categoría.
-     * Relación muchos a muchos con la entidad Recipe.
+     * Relación muchos a muchos con la entidad Recipe. Los enlaces se borran en la base de datos con la categoría.
      */
     @ManyToMany(mappedBy = "categories")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Recipe> recipes = new HashSet<>();
 }
\ No newline at end of file
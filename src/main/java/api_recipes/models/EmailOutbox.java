@@ -0,0 +1,74 @@
+package api_recipes.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Date;
+
+/**
+ * Entidad que representa un email pendiente de envío (patrón outbox).
+ * Se inserta en la misma transacción que el cambio de negocio que lo origina y un proceso
+ * en segundo plano lo envía por SMTP, de modo que la petición no depende del servidor de correo.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox",
+        indexes = @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+public class EmailOutbox {
+
+    /**
+     * Identificador único del email.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Dirección de destino.
+     */
+    @Column(nullable = false, length = 100)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    /**
+     * Intentos de envío realizados.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Momento a partir del cual se puede (re)intentar el envío.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    @Column(name = "sent_at")
+    private Date sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public enum Status {
+        PENDING, SENT, FAILED
+    }
+}
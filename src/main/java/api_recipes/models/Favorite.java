@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.util.Objects;
 
 /**
@@ -34,18 +36,20 @@ public class Favorite {
 
     /**
      * Usuario que marcó la receta como favorita.
-     * Relación muchos a uno con la entidad User.
+     * Relación muchos a uno con la entidad User. La base de datos borra el favorito con el usuario.
      */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
 
     /**
      * Receta marcada como favorita.
-     * Relación muchos a uno con la entidad Recipe.
+     * Relación muchos a uno con la entidad Recipe. La base de datos borra el favorito con la receta.
      */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Recipe recipe;
 
     public Favorite(User user, Recipe recipe) {
@@ -0,0 +1,62 @@
+package api_recipes.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Date;
+
+/**
+ * Entidad que representa una imagen almacenada por su contenido (SHA-256).
+ * Varias recetas e ingredientes pueden apuntar al mismo fichero; el contador de referencias
+ * indica cuántas lo usan y el fichero solo se borra cuando deja de usarlo la última.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+
+    /**
+     * Identificador único del blob.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * SHA-256 del contenido en hexadecimal.
+     */
+    @Column(nullable = false, unique = true, length = 64)
+    private String hash;
+
+    /**
+     * Extensión con la que se sirve el fichero (.jpg, .png o .gif).
+     */
+    @Column(nullable = false, length = 5)
+    private String extension;
+
+    @Column(nullable = false)
+    private long size;
+
+    /**
+     * Número de recetas e ingredientes que usan la imagen.
+     */
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /**
+     * Último cambio del contador; el recolector no toca blobs modificados recientemente.
+     */
+    @Column(name = "updated_at")
+    private Date updatedAt;
+}
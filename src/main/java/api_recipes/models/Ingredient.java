@@ -4,6 +4,11 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -21,6 +26,9 @@ import java.util.Set;
     @AllArgsConstructor
     @Entity
     @Table(name = "ingredients")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredients")
+    @BatchSize(size = 50)
     public class Ingredient {
     /**
      * Identificador único del ingrediente.
@@ -58,9 +66,12 @@ import java.util.Set;
 
     /**
      * Recetas que utilizan este ingrediente.
-     * Relación uno a muchos con la entidad RecipeIngredient.
+     * Relación uno a muchos con la entidad RecipeIngredient. Se borran en la base de datos con el ingrediente.
      */
-    @OneToMany(mappedBy = "ingredient", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "ingredient")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<RecipeIngredient> recipeIngredients = new HashSet<>();
 
     public enum UnitMeasure {
@@ -4,6 +4,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.util.*;
 
 /**
@@ -15,13 +20,21 @@ import java.util.*;
  * @version 1.0
  */
 @Entity
-@Table(name = "recipes")
+@Table(name = "recipes", indexes = {
+        @Index(name = "idx_recipes_title", columnList = "title"),
+        @Index(name = "idx_recipes_popularity", columnList = "popularity desc, id desc")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Recipe {
 
+    /**
+     * Recetas cuyas categorías e ingredientes se cargan juntos al recorrer un listado.
+     */
+    public static final int RELATIONS_BATCH_SIZE = 50;
+
     /**
      * Identificador único de la receta.
      */
@@ -67,14 +80,19 @@ public class Recipe {
 
     /**
      * Categorías a las que pertenece la receta.
-     * Relación muchos a muchos con la entidad Category.
+     * Relación muchos a muchos con la entidad Category. Los enlaces se borran en la base de
+     * datos al borrar la receta o la categoría.
      */
     @ManyToMany
     @JoinTable(
             name = "recipe_categories",
-            joinColumns = @JoinColumn(name = "recipe_id"),
+            // @OnDelete no se aplica al lado propietario de un @ManyToMany: la FK se declara a mano
+            joinColumns = @JoinColumn(name = "recipe_id", foreignKey = @ForeignKey(name = "fk_recipe_categories_recipe",
+                    foreignKeyDefinition = "FOREIGN KEY (recipe_id) REFERENCES recipes (id) ON DELETE CASCADE")),
             inverseJoinColumns = @JoinColumn(name = "category_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipes.categories")
+    @BatchSize(size = RELATIONS_BATCH_SIZE)
     private Set<Category> categories = new HashSet<>();
 
     /**
@@ -87,16 +105,20 @@ public class Recipe {
 
     /**
      * Ingredientes de la receta.
-     * Relacion uno a muchos con la entidad RecipeIngredient.
+     * Relacion uno a muchos con la entidad RecipeIngredient. Al borrar la receta, las filas
+     * las elimina la base de datos (ON DELETE CASCADE).
      */
-    @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "recipe", cascade = {CascadeType.PERSIST, CascadeType.MERGE}, orphanRemoval = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @BatchSize(size = RELATIONS_BATCH_SIZE)
     private Set<RecipeIngredient> recipeIngredients = new HashSet<>();
 
     /**
      * Usuarios que han marcado esta receta como favorita.
-     * Relación uno a muchos con la entidad Favorite.
+     * Relación uno a muchos con la entidad Favorite. Se borran en la base de datos con la receta.
      */
-    @OneToMany(mappedBy = "recipe", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    @OneToMany(mappedBy = "recipe")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Set<Favorite> favorites = new HashSet<>();
 
     public enum RecipeStatus {
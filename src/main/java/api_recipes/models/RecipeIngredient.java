@@ -3,6 +3,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.util.Objects;
 
@@ -31,19 +33,22 @@ public class RecipeIngredient {
 
     /**
      * Receta a la que pertenece este ingrediente.
-     * Relación muchos a uno con la entidad Recipe.
+     * Relación muchos a uno con la entidad Recipe. La base de datos borra la fila con la receta.
      */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @NotNull
     private Recipe recipe;
 
     /**
      * Ingrediente asociado a la receta.
-     * Relación muchos a uno con la entidad Ingredient.
+     * Relación muchos a uno con la entidad Ingredient. La base de datos borra la fila con el ingrediente.
+     * Perezosa: el ingrediente se resuelve desde la caché de segundo nivel.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ingredient_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Ingredient   ingredient;
 
     /**
@@ -0,0 +1,45 @@
+package api_recipes.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Date;
+
+/**
+ * Entidad que representa un JWT revocado antes de su expiración (logout o cambio de contraseña).
+ * Se identifica por el claim {@code jti} del token y solo es relevante hasta su {@code exp};
+ * a partir de ahí el token ya es rechazado por expirado y la fila puede eliminarse.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_tokens",
+        indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    /**
+     * Identificador único de la revocación.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Identificador del JWT revocado (claim jti).
+     */
+    @Column(nullable = false, unique = true, length = 36)
+    private String jti;
+
+    /**
+     * Fecha de expiración original del JWT (claim exp).
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+}
@@ -1,6 +1,8 @@
 package api_recipes.models;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -18,6 +20,8 @@ import java.util.Set;
 @AllArgsConstructor
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 public class Role {
 
     /**
@@ -37,9 +41,12 @@ public class Role {
 
     /**
      * Usuarios que tienen asignado este rol.
-     * Relación muchos a muchos con la entidad User.
+     * Relación muchos a muchos con la entidad User. Fuera de equals, hashCode y toString: si no,
+     * meter un rol en un Set cargaría todos sus usuarios.
      */
     @ManyToMany(mappedBy = "roles")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<User> users = new HashSet<>();
 
     /**
@@ -22,7 +22,7 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "tokens")
+@Table(name = "tokens", indexes = @Index(name = "idx_tokens_expiry_date", columnList = "expiry_date"))
 public class TokenUser {
     /**
      * Identificador único del token.
@@ -42,6 +42,7 @@ public class TokenUser {
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
 
+    @Column(name = "expiry_date")
     private Date expiryDate;
 
     // Calcula la fecha de expiración (24 horas)
@@ -4,8 +4,13 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.util.Date;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -21,6 +26,10 @@ import java.util.Set;
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
                 @UniqueConstraint(columnNames = "email")
+        },
+        indexes = {
+                @Index(name = "idx_users_username_normalized", columnList = "username_normalized"),
+                @Index(name = "idx_users_email_normalized", columnList = "email_normalized")
         })
 @Getter 
 @Setter 
@@ -29,6 +38,11 @@ import java.util.Set;
 @Builder
 public class User {
 
+    /**
+     * Usuarios cuyos roles se cargan juntos; es también el tamaño máximo de página del listado.
+     */
+    public static final int ROLES_BATCH_SIZE = 100;
+
     /**
      * Identificador único del usuario.
      */
@@ -66,17 +80,57 @@ public class User {
 
     /**
      * Roles asignados al usuario.
-     * Relación muchos a muchos con la entidad Role.
+     * Relación muchos a muchos con la entidad Role. Al recorrer una página de usuarios, los
+     * roles de hasta {@value #ROLES_BATCH_SIZE} usuarios se cargan con una sola consulta.
      */
     @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = ROLES_BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users.roles")
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles = new HashSet<>();
 
+    /**
+     * Nombre de usuario y email normalizados (sin espacios y en minúsculas) para la búsqueda
+     * por prefijo: el índice permite resolverla con un recorrido por rango.
+     * Se recalculan siempre al guardar el usuario.
+     */
+    @Column(name = "username_normalized", length = 20)
+    @Setter(AccessLevel.NONE)
+    private String usernameNormalized;
+
+    @Column(name = "email_normalized", length = 50)
+    @Setter(AccessLevel.NONE)
+    private String emailNormalized;
+
+    /**
+     * Instante del último cambio o restablecimiento de contraseña. Los JWT emitidos antes
+     * (claim iat) dejan de aceptarse, en todos los nodos y sin guardar cada token.
+     */
+    @Column(name = "password_changed_at")
+    private Date passwordChangedAt;
+
     public User(String username, String email, String password) {
         this.username = username;
         this.email = email;
         this.password = password;
     }
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    void updateNormalizedFields() {
+        this.usernameNormalized = normalize(username);
+        this.emailNormalized = normalize(email);
+    }
+
+    /**
+     * Forma normalizada de un nombre de usuario o email, también para los términos de búsqueda.
+     *
+     * @param value Valor original
+     * @return Valor sin espacios en los extremos y en minúsculas
+     */
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,83 @@
+package api_recipes.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Date;
+
+/**
+ * Entidad que representa el borrado en segundo plano de un usuario y de todo su contenido.
+ * El progreso se guarda en la misma transacción que cada tramo borrado, así que tras una caída
+ * el trabajo se retoma donde se quedó.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_deletion_jobs",
+        indexes = {
+                @Index(name = "idx_user_deletion_jobs_status_updated", columnList = "status, updated_at"),
+                @Index(name = "idx_user_deletion_jobs_user", columnList = "user_id")
+        })
+public class UserDeletionJob {
+
+    /**
+     * Identificador único del trabajo.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Usuario a eliminar (sin clave foránea: la fila sobrevive al usuario).
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    /**
+     * Recetas del usuario al iniciar el trabajo.
+     */
+    @Column(name = "total_recipes", nullable = false)
+    private long totalRecipes;
+
+    @Column(name = "deleted_recipes", nullable = false)
+    private long deletedRecipes;
+
+    @Column(name = "deleted_favorites", nullable = false)
+    private long deletedFavorites;
+
+    /**
+     * Intentos fallidos; al llegar al máximo el trabajo queda en FAILED.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /**
+     * Último avance del trabajo: si lleva demasiado sin moverse, otro nodo lo retoma.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt;
+
+    @Column(name = "finished_at")
+    private Date finishedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,26 @@
+package api_recipes.payload.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una pasada del recolector de imágenes huérfanas.
+ * En modo simulación ({@code dryRun}) solo se informa de lo que se borraría.
+ */
+@Getter @Setter @NoArgsConstructor
+public class ImageGcReport {
+    private boolean dryRun;
+    private long scannedFiles;
+    private long orphanFiles;
+    private long orphanBytes;
+    private long deletedFiles;
+    private long releasedBlobs;
+    private long fixedRefCounts;
+    private long durationMs;
+    // Muestra de rutas huérfanas (limitada para no inflar la respuesta)
+    private List<String> sample = new ArrayList<>();
+}
@@ -0,0 +1,43 @@
+package api_recipes.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de imágenes desde un ZIP, con el estado de cada entrada.
+ */
+@Getter @Setter @NoArgsConstructor
+public class ImageImportReport {
+    private long importedEntries;
+    private long failedEntries;
+    private long skippedEntries;
+    private long durationMs;
+    // Motivo por el que se detuvo la lectura del ZIP, si no llegó al final
+    private String error;
+    private List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Estado de una entrada del ZIP.
+     */
+    public enum Status {
+        IMPORTED, NOT_FOUND, INVALID, REPLACED, SKIPPED
+    }
+
+    /**
+     * Resultado de una entrada del ZIP.
+     */
+    @Getter @Setter @AllArgsConstructor @NoArgsConstructor
+    public static class Entry {
+        private String name;
+        private String target;
+        private Long id;
+        private Status status;
+        private String imageUrl;
+        private String message;
+    }
+}
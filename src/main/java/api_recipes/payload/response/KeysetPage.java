@@ -0,0 +1,20 @@
+package api_recipes.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Página de un listado paginado por clave.
+ * Para pedir la siguiente página se envía {@code nextCursor} como parámetro {@code after};
+ * es {@code null} cuando no quedan más elementos.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class KeysetPage<T> {
+    private List<T> content;
+    private int size;
+    private Long nextCursor;
+}
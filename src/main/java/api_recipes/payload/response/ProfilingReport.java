@@ -0,0 +1,39 @@
+package api_recipes.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una grabación de Java Flight Recorder: los métodos más calientes, los puntos que
+ * más memoria reservan y los que más esperan por bloqueos, según los eventos del perfil.
+ */
+@Getter @Setter @NoArgsConstructor
+public class ProfilingReport {
+    private String recordingId;
+    private String profile;
+    private long durationMs;
+    private long sizeBytes;
+    // Ruta para descargar el fichero .jfr completo
+    private String downloadUrl;
+    // Peso: muestras de CPU
+    private List<Entry> hotMethods = new ArrayList<>();
+    // Peso: bytes reservados (estimados por el muestreo de JFR)
+    private List<Entry> allocationSites = new ArrayList<>();
+    // Peso: milisegundos de espera en monitores, park o hilos virtuales anclados
+    private List<Entry> lockSites = new ArrayList<>();
+
+    /**
+     * Método (marco superior de la pila) con su peso y el porcentaje sobre el total.
+     */
+    @Getter @Setter @AllArgsConstructor @NoArgsConstructor
+    public static class Entry {
+        private String frame;
+        private long weight;
+        private double percent;
+    }
+}
@@ -0,0 +1,20 @@
+package api_recipes.payload.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Estado de una sesión de Java Flight Recorder lanzada desde la API.
+ */
+@Getter @Setter @NoArgsConstructor
+public class ProfilingSession {
+    private String recordingId;
+    private String profile;
+    private Instant startTime;
+    // La grabación se detiene sola al cumplir este tiempo
+    private long maxDurationSeconds;
+    private boolean running;
+}
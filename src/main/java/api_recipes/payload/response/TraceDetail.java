@@ -0,0 +1,32 @@
+package api_recipes.payload.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traza completa, con sus tramos en orden de inicio (el raíz primero).
+ */
+@Getter @Setter @NoArgsConstructor
+public class TraceDetail extends TraceSummary {
+    private List<SpanEntry> spans = new ArrayList<>();
+
+    /**
+     * Tramo de la traza; {@code parentSpanId} es nulo en el raíz.
+     */
+    @Getter @Setter @NoArgsConstructor
+    public static class SpanEntry {
+        private String spanId;
+        private String parentSpanId;
+        private String name;
+        private String kind;
+        // Inicio respecto al inicio de la traza
+        private double startOffsetMs;
+        private double durationMs;
+        private Map<String, String> attributes;
+    }
+}
@@ -0,0 +1,21 @@
+package api_recipes.payload.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Resumen de una traza del buffer en memoria.
+ */
+@Getter @Setter @NoArgsConstructor
+public class TraceSummary {
+    private String traceId;
+    private String name;
+    private Instant startTime;
+    private double durationMs;
+    private int spanCount;
+    // Tramos que no se registraron por superar el máximo por traza
+    private int droppedSpans;
+}
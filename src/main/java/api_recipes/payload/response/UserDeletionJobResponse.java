@@ -0,0 +1,47 @@
+package api_recipes.payload.response;
+
+import api_recipes.models.UserDeletionJob;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Estado y progreso de un borrado de usuario en segundo plano.
+ */
+@Getter @Setter @NoArgsConstructor
+public class UserDeletionJobResponse {
+    private Long jobId;
+    private Long userId;
+    private UserDeletionJob.Status status;
+    private long totalRecipes;
+    private long deletedRecipes;
+    private long deletedFavorites;
+    // Porcentaje de recetas eliminadas (100 al terminar)
+    private int progress;
+    private Date createdAt;
+    private Date updatedAt;
+    private Date finishedAt;
+    private String lastError;
+
+    public static UserDeletionJobResponse from(UserDeletionJob job) {
+        UserDeletionJobResponse response = new UserDeletionJobResponse();
+        response.setJobId(job.getId());
+        response.setUserId(job.getUserId());
+        response.setStatus(job.getStatus());
+        response.setTotalRecipes(job.getTotalRecipes());
+        response.setDeletedRecipes(job.getDeletedRecipes());
+        response.setDeletedFavorites(job.getDeletedFavorites());
+        if (job.getStatus() == UserDeletionJob.Status.COMPLETED) {
+            response.setProgress(100);
+        } else if (job.getTotalRecipes() > 0) {
+            response.setProgress((int) Math.min(99, job.getDeletedRecipes() * 100 / job.getTotalRecipes()));
+        }
+        response.setCreatedAt(job.getCreatedAt());
+        response.setUpdatedAt(job.getUpdatedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setLastError(job.getLastError());
+        return response;
+    }
+}
@@ -1,13 +1,27 @@
 package api_recipes.repository;
 import api_recipes.models.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Set;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Set<Category> findByNameIn(Set<String> names);
 
     boolean existsByNameIgnoreCase(String name);
+
+    // Nativa para que Hibernate no borre antes recipe_categories: lo hace la base de datos (ON DELETE CASCADE).
+    // Las tablas afectadas limitan lo que se invalida de la caché de segundo nivel
+    @Modifying
+    @QueryHints({@QueryHint(name = HINT_NATIVE_SPACES, value = "categories"), @QueryHint(name = HINT_NATIVE_SPACES, value = "recipe_categories")})
+    @Query(value = "DELETE FROM categories WHERE id = :id", nativeQuery = true)
+    int deleteCategoryById(@Param("id") Long id);
 }
@@ -4,19 +4,39 @@ import api_recipes.models.Favorite;
 import api_recipes.models.Recipe;
 import api_recipes.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
     Optional<Favorite> findByUserAndRecipe(User user, Recipe recipe);
 
     boolean existsByUserAndRecipe(User user, Recipe recipe);
 
-    List<Favorite> findAllByUser(User user);
+    // La receta de cada favorito viene en la misma consulta; sus relaciones se cargan por lotes
+    @Query("SELECT f FROM Favorite f JOIN FETCH f.recipe WHERE f.user = :user")
+    List<Favorite> findAllByUser(@Param("user") User user);
 
     void deleteByUserAndRecipe(User user, Recipe recipe);
 
     void deleteAllByUserId(Long userId);
+
+    // Borrado por tramos de los favoritos que ha marcado un usuario
+    @Modifying
+    @QueryHints({@QueryHint(name = HINT_NATIVE_SPACES, value = "favorites")})
+    @Query(value = "DELETE FROM favorites WHERE user_id = :userId LIMIT :limit", nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM Favorite f WHERE f.recipe.id IN :recipeIds")
+    int deleteByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package api_recipes.repository;
+
+import api_recipes.models.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, Long> {
+
+    // Bloquea la fila para que alta y baja de referencias sobre el mismo hash se serialicen
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<ImageBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    List<ImageBlob> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+}
@@ -1,12 +1,18 @@
 package api_recipes.repository;
 import api_recipes.models.Ingredient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 public interface IngredientRepository  extends JpaRepository<Ingredient, Long> {
 
     List<Ingredient> findByNameContainingIgnoreCase(String name);
     boolean existsByNameIgnoreCase(String name);
+
+    @Query("SELECT i.imageUrl FROM Ingredient i WHERE i.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    long countByImageUrl(String imageUrl);
     
 
 }
\ No newline at end of file
@@ -1,29 +1,51 @@
 package api_recipes.repository;
 import api_recipes.models.Recipe;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface RecipeRepository  extends JpaRepository <Recipe, Long>{
 
     Optional<Recipe> findByTitle(String title);
 
+    // Listado en dos pasos: paginar con JOIN FETCH obliga a Hibernate a leer todas las recetas y
+    // paginar en memoria, así que primero se pagina sobre los ids y después se cargan sus relaciones
+    @Query(value = "SELECT r.id FROM Recipe r", countQuery = "SELECT COUNT(r) FROM Recipe r")
+    Page<Long> findPageIds(Pageable pageable);
+
     @Query("SELECT DISTINCT r FROM Recipe r " +
             "LEFT JOIN FETCH r.categories " +
             "LEFT JOIN FETCH r.recipeIngredients ri " +
-            "LEFT JOIN FETCH ri.ingredient")
-    Page<Recipe> findAllWithRelationships(Pageable pageable);
+            "LEFT JOIN FETCH ri.ingredient " +
+            "WHERE r.id IN :ids")
+    List<Recipe> findAllWithRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"categories", "recipeIngredients", "recipeIngredients.ingredient"})
+    Optional<Recipe> findWithRelationshipsById(Long id);
 
-    List<Recipe> findByUserId(Long userId);
+    // Las consultas por usuario o ingrediente van escritas a mano: derivadas del nombre, Spring Data
+    // une la tabla relacionada y filtra por su id, y la base de datos ya no puede usar el índice
+    @Query("SELECT r FROM Recipe r WHERE r.user.id = :userId")
+    List<Recipe> findByUserId(@Param("userId") Long userId);
+
+    // Recetas más populares: el índice (popularity, id) ya las devuelve en orden
+    List<Recipe> findByOrderByPopularityDescIdDesc(Limit limit);
 
     @Modifying
     @Query("UPDATE Recipe r SET r.popularity = r.popularity + 1 WHERE r.id = :id")
@@ -31,6 +53,36 @@ public interface RecipeRepository  extends JpaRepository <Recipe, Long>{
 
     boolean existsByTitleAndIdNot(String title, Long recipeId);
 
-    boolean existsByRecipeIngredients_Ingredient_Id(Long ingredientId);
+    @Query("SELECT COUNT(ri) > 0 FROM RecipeIngredient ri WHERE ri.ingredient.id = :ingredientId")
+    boolean existsByRecipeIngredients_Ingredient_Id(@Param("ingredientId") Long ingredientId);
+
+    @Query("SELECT r.imageUrl FROM Recipe r WHERE r.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    long countByImageUrl(String imageUrl);
+
+    @Query("SELECT COUNT(r) FROM Recipe r WHERE r.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    // Siguiente tramo de recetas de un usuario, sin cargar las entidades
+    @Query("SELECT r.id AS id, r.imageUrl AS imageUrl FROM Recipe r WHERE r.user.id = :userId ORDER BY r.id")
+    List<RecipeImage> findByUserIdOrderById(@Param("userId") Long userId, Pageable pageable);
+
+    // Nativa: en JPQL Hibernate borra antes recipe_categories por su cuenta. Ingredientes,
+    // favoritos y enlaces a categorías los borra la base de datos (ON DELETE CASCADE), por eso
+    // se declaran como afectadas para invalidar su caché
+    @Modifying
+    @QueryHints({@QueryHint(name = HINT_NATIVE_SPACES, value = "recipes"), @QueryHint(name = HINT_NATIVE_SPACES, value = "recipe_ingredients"), @QueryHint(name = HINT_NATIVE_SPACES, value = "favorites"), @QueryHint(name = HINT_NATIVE_SPACES, value = "recipe_categories")})
+    @Query(value = "DELETE FROM recipes WHERE id IN (:recipeIds)", nativeQuery = true)
+    int deleteByIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    /**
+     * Proyección con el id y la imagen de una receta.
+     */
+    interface RecipeImage {
+        Long getId();
+
+        String getImageUrl();
+    }
 
 }
@@ -2,13 +2,36 @@ package api_recipes.repository;
 import api_recipes.models.TokenUser;
 import api_recipes.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 public interface TokenUserRepository extends JpaRepository<TokenUser, Long> {
 
     Optional<TokenUser> findByToken(String token);
     void deleteByUser(User user);
     void deleteByToken(String token);
     void deleteAllByUserId(Long userId);
+
+    // Siguiente tramo de tokens caducados, en el orden del índice idx_tokens_expiry_date (que en InnoDB
+    // incluye el id): todos los nodos recorren las filas en el mismo orden
+    @Query(value = "SELECT id FROM tokens WHERE expiry_date < :date ORDER BY expiry_date, id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findExpiredIds(@Param("date") Date date, @Param("limit") int limit);
+
+    // Borrado por clave primaria: la sentencia es determinista (segura con replicación basada en
+    // sentencias) y bloquea como mucho las filas del tramo.
+    // Sin declarar la tabla afectada, Hibernate vaciaría toda la caché de segundo nivel en cada tramo
+    @Modifying
+    @QueryHints({@QueryHint(name = HINT_NATIVE_SPACES, value = "tokens")})
+    @Query(value = "DELETE FROM tokens WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,29 @@
+package api_recipes.repository;
+
+import api_recipes.models.UserDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserDeletionJobRepository extends JpaRepository<UserDeletionJob, Long> {
+
+    Optional<UserDeletionJob> findFirstByUserIdAndStatusIn(Long userId, Collection<UserDeletionJob.Status> statuses);
+
+    // Trabajos nuevos o abandonados por un nodo que dejó de avanzar
+    @Query("SELECT j.id FROM UserDeletionJob j WHERE j.status = api_recipes.models.UserDeletionJob$Status.PENDING " +
+            "OR (j.status = api_recipes.models.UserDeletionJob$Status.RUNNING AND j.updatedAt < :staleBefore) ORDER BY j.id")
+    List<Long> findResumableIds(@Param("staleBefore") Date staleBefore);
+
+    // Reclamo atómico: solo un nodo consigue pasar el trabajo a RUNNING
+    @Modifying
+    @Query("UPDATE UserDeletionJob j SET j.status = api_recipes.models.UserDeletionJob$Status.RUNNING, j.updatedAt = :now " +
+            "WHERE j.id = :id AND (j.status = api_recipes.models.UserDeletionJob$Status.PENDING " +
+            "OR (j.status = api_recipes.models.UserDeletionJob$Status.RUNNING AND j.updatedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("now") Date now, @Param("staleBefore") Date staleBefore);
+}
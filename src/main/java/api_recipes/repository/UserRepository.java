@@ -1,8 +1,10 @@
 package api_recipes.repository;
 import api_recipes.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,5 +22,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmailAndIdNot(String email, Long id);
 
+    // Paginación por clave: la siguiente página empieza tras el último id, sin OFFSET
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Búsqueda por prefijo sobre las columnas normalizadas e indexadas (LIKE 'prefijo%')
+    List<User> findByUsernameNormalizedStartingWithOrderByUsernameNormalized(String prefix, Limit limit);
+
+    List<User> findByEmailNormalizedStartingWithOrderByEmailNormalized(String prefix, Limit limit);
+
 
 }
\ No newline at end of file
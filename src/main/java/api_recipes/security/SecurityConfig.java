@@ -1,7 +1,11 @@
 package api_recipes.security;
 import api_recipes.security.jwt.AuthEntryPointJwt;
 import api_recipes.security.jwt.AuthTokenFilter;
+import api_recipes.security.password.BoundedPasswordEncoder;
+import api_recipes.security.password.CalibratedBCryptPasswordEncoder;
 import api_recipes.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,7 +16,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -40,16 +43,34 @@ public class SecurityConfig {
         this.userDetailsService = userDetailsService;
     }
 
+    // BCrypt se ejecuta en un pool acotado para no bloquear los hilos de Tomcat (503 si se satura)
+    // y su coste se calibra al arrancar para que cada hash quepa en el presupuesto de latencia,
+    // salvo que api_recipes.bcrypt.strength lo fije para toda la flota
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${api_recipes.bcrypt.strength:0}") int strength,
+            @Value("${api_recipes.bcrypt.targetMillis:250}") long targetMillis,
+            @Value("${api_recipes.bcrypt.minStrength:10}") int minStrength,
+            @Value("${api_recipes.bcrypt.maxStrength:16}") int maxStrength,
+            @Value("${api_recipes.passwordHashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${api_recipes.passwordHashing.queueCapacity:32}") int queueCapacity,
+            @Value("${api_recipes.passwordHashing.timeoutMs:5000}") long timeoutMs,
+            @Value("${api_recipes.passwordHashing.retryAfterSeconds:2}") long retryAfterSeconds) {
+        CalibratedBCryptPasswordEncoder bcrypt = strength > 0
+                ? new CalibratedBCryptPasswordEncoder(strength)
+                : CalibratedBCryptPasswordEncoder.calibrate(targetMillis, minStrength, maxStrength);
+        return new BoundedPasswordEncoder(bcrypt, threads, queueCapacity,
+                timeoutMs, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashea en el login los hashes guardados con un coste menor que el calibrado
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -59,7 +80,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -74,6 +95,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
                         .requestMatchers("/api/auth/**", "/api/test/public/**").permitAll()
                         .requestMatchers("/images/**", "/images/ingredients/**").permitAll()
+                        // Sonda de salud para el balanceador; las métricas solo para ADMIN
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasRole("ADMIN")
 
                       
                         // Endpoints con restricciones de roles
@@ -85,6 +109,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/ingredients/disable/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/ingredients/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/api/ingredients/{id}/upload-image").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/ingredients/{id}/upload-image").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/categories/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/categories/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/categories/**").hasRole("ADMIN")
@@ -92,6 +117,7 @@ public class SecurityConfig {
                         // Endpoints que requieren autenticación
                         .requestMatchers(HttpMethod.POST, "/api/recipes").authenticated()
                         .requestMatchers(HttpMethod.PATCH, "/api/recipes/{id}/upload-image").authenticated()
+                        .requestMatchers(HttpMethod.PUT, "/api/recipes/{id}/upload-image").authenticated()
                         .requestMatchers(HttpMethod.PUT, "/api/recipes").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/recipes/user").authenticated()
                         .requestMatchers(HttpMethod.DELETE, "/api/recipes/**").authenticated()
@@ -109,7 +135,7 @@ public class SecurityConfig {
 
                         .anyRequest().authenticated()
                 )
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
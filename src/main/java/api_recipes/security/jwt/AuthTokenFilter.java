@@ -1,5 +1,9 @@
 package api_recipes.security.jwt;
+import api_recipes.security.services.UserDetailsImpl;
 import api_recipes.security.services.UserDetailsServiceImpl;
+import api_recipes.tracing.Span;
+import api_recipes.tracing.Tracer;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,10 +13,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
@@ -25,28 +27,41 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private Tracer tracer;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     // Extrae el JWT del header
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        try {
-            String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) { // Comprueba que el token es valido en cada solicitud entrante
-                String username = jwtUtils.getUserNameFromJwtToken(jwt); // Extrae el nombre de usuario
+        // El tramo cubre solo la autenticación, no el resto de la cadena
+        try (Span span = tracer.startSpan("AuthTokenFilter")) {
+            String jwt = jwtUtils.parseJwt(request);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null; // Comprueba que el token es valido en cada solicitud entrante
+            if (claims != null && !tokenDenylist.isRevoked(claims.getId())) { // Rechaza tokens revocados (logout)
+                String username = claims.getSubject(); // Extrae el nombre de usuario
 
                 // Carga el usuario
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+                if (userDetails.isIssuedBeforePasswordChange(claims.getIssuedAt())) {
+                    // Token anterior al último cambio de contraseña: la petición sigue como anónima
+                    logger.debug("Token emitido antes del cambio de contraseña - Usuario: {}", username);
+                } else {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // Se guarda la informacion de el contexto de seguridad de Spring
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // Se guarda la informacion de el contexto de seguridad de Spring
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
@@ -54,15 +69,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-
-        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
-            System.out.println(headerAuth.substring(7));
-            return headerAuth.substring(7);
-        }
-
-        return null;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package api_recipes.security.jwt;
+
+import api_recipes.models.RevokedToken;
+import api_recipes.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lista en memoria de JWT revocados, indexada por su {@code jti}.
+ *
+ * Un filtro de Bloom responde al caso habitual (token no revocado) sin reservar memoria ni
+ * tocar la base de datos; solo los posibles positivos se confirman contra el conjunto exacto.
+ * Las revocaciones se persisten en {@code revoked_tokens} para reconstruir la lista al arrancar,
+ * y las entradas cuyo {@code exp} ya pasó se eliminan periódicamente.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Component
+public class TokenDenylist {
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int hashFunctions;
+    private final int mask;
+
+    // jti -> instante de expiración (ms). Fuente exacta tras un acierto del filtro de Bloom.
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile AtomicLongArray bloom;
+
+    /**
+     * Constructor de la lista de revocación.
+     *
+     * @param revokedTokenRepository Repositorio de tokens revocados
+     * @param bloomBits Tamaño del filtro de Bloom en bits (se redondea a potencia de dos)
+     * @param hashFunctions Número de funciones hash del filtro
+     */
+    public TokenDenylist(RevokedTokenRepository revokedTokenRepository,
+                         @Value("${api_recipes.revocation.bloomBits:1048576}") int bloomBits,
+                         @Value("${api_recipes.revocation.hashFunctions:4}") int hashFunctions) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        int bits = Integer.highestOneBit(Math.max(bloomBits, 64));
+        this.mask = bits - 1;
+        this.hashFunctions = Math.max(hashFunctions, 1);
+        this.bloom = new AtomicLongArray(bits >>> 6);
+    }
+
+    /**
+     * Reconstruye la lista a partir de las revocaciones persistidas que siguen vigentes.
+     */
+    @PostConstruct
+    public void load() {
+        Date now = new Date();
+        for (RevokedToken token : revokedTokenRepository.findAllByExpiresAtAfter(now)) {
+            revoked.put(token.getJti(), token.getExpiresAt().getTime());
+        }
+        rebuildBloom();
+        logger.info("Lista de revocación cargada con {} tokens vigentes", revoked.size());
+    }
+
+    /**
+     * Indica si el token con el jti dado ha sido revocado.
+     * El camino habitual (lista vacía o fallo en el filtro de Bloom) no reserva memoria.
+     *
+     * @param jti Identificador del token
+     * @return true si el token está revocado y aún no ha expirado
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || revoked.isEmpty()) {
+            return false;
+        }
+        if (!mightContain(bloom, jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revoca un token hasta su fecha de expiración y persiste la revocación.
+     *
+     * @param jti Identificador del token
+     * @param expiration Fecha de expiración del token
+     */
+    public void revoke(String jti, Date expiration) {
+        if (jti == null || expiration == null || expiration.before(new Date())) {
+            return;
+        }
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            revokedTokenRepository.save(RevokedToken.builder().jti(jti).expiresAt(expiration).build());
+        }
+        synchronized (writeLock) {
+            revoked.put(jti, expiration.getTime());
+            setBits(bloom, jti);
+        }
+        logger.info("Token revocado - jti: {}", jti);
+    }
+
+    /**
+     * Elimina las revocaciones cuyo token ya expiró, tanto en memoria como en base de datos,
+     * y reconstruye el filtro de Bloom para que no acumule bits de entradas eliminadas.
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.revocation.purgeIntervalMs:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        if (revoked.size() != before) {
+            rebuildBloom();
+        }
+        int deleted = revokedTokenRepository.deleteExpired(new Date(now));
+        logger.debug("Purga de revocaciones - memoria: {}, base de datos: {}", before - revoked.size(), deleted);
+    }
+
+    private void rebuildBloom() {
+        synchronized (writeLock) {
+            AtomicLongArray fresh = new AtomicLongArray(bloom.length());
+            for (String jti : revoked.keySet()) {
+                setBits(fresh, jti);
+            }
+            bloom = fresh;
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bits, String jti) {
+        int h1 = jti.hashCode();
+        int h2 = secondaryHash(jti);
+        for (int i = 0; i < hashFunctions; i++) {
+            int index = (h1 + i * h2) & mask;
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBits(AtomicLongArray bits, String jti) {
+        int h1 = jti.hashCode();
+        int h2 = secondaryHash(jti);
+        for (int i = 0; i < hashFunctions; i++) {
+            int index = (h1 + i * h2) & mask;
+            long bit = 1L << index;
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & bit) == 0 && !bits.compareAndSet(word, current, current | bit));
+        }
+    }
+
+    // FNV-1a sobre los caracteres: independiente de String.hashCode y sin reservar memoria
+    private static int secondaryHash(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash | 1;
+    }
+}
@@ -0,0 +1,93 @@
+package api_recipes.security.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt cuyo coste se calibra al arrancar según el hardware en el que se ejecuta.
+ *
+ * Se elige el coste más alto cuyo hash cabe en el presupuesto de latencia configurado
+ * (nunca por debajo del mínimo). Los hashes guardados con un coste menor se marcan para
+ * re-hashear en el siguiente login correcto a través de {@link #upgradeEncoding(String)};
+ * los de coste mayor se conservan, para que en una flota con nodos de distinto hardware
+ * un login no baje el coste de un hash que otro nodo acaba de subir.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_PASSWORD = "calibracion-bcrypt";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Mide el tiempo de hash con costes crecientes y crea el codificador con el mayor coste
+     * que no supera el presupuesto.
+     *
+     * @param targetMillis Presupuesto de latencia por hash en milisegundos
+     * @param minStrength Coste mínimo permitido
+     * @param maxStrength Coste máximo permitido
+     * @return Codificador calibrado
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minStrength, int maxStrength) {
+        // Calentamiento para que el JIT no penalice la primera medición
+        new BCryptPasswordEncoder(minStrength).encode(CALIBRATION_PASSWORD);
+
+        int chosen = minStrength;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(cost).encode(CALIBRATION_PASSWORD);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.debug("Calibración BCrypt - coste: {}, tiempo: {} ms", cost, elapsedMillis);
+
+            if (elapsedMillis > targetMillis) {
+                if (cost == minStrength) {
+                    logger.warn("El coste mínimo de BCrypt ({}) supera el presupuesto de {} ms: {} ms",
+                            minStrength, targetMillis, elapsedMillis);
+                }
+                break;
+            }
+            chosen = cost;
+            // Cada punto de coste duplica el tiempo: si el siguiente no cabe, no hace falta medirlo
+            if (elapsedMillis * 2 > targetMillis) {
+                break;
+            }
+        }
+
+        logger.info("Coste BCrypt calibrado: {} (presupuesto {} ms por hash)", chosen, targetMillis);
+        return new CalibratedBCryptPasswordEncoder(chosen);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Solo se re-hashean los hashes con un coste menor que el calibrado: re-hashear hacia abajo
+     * rebajaría la seguridad y, con nodos calibrados a costes distintos, haría que el hash
+     * oscilara entre ambos costes con una escritura en casi cada login.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(2)) < strength;
+    }
+}
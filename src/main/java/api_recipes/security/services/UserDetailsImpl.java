@@ -9,6 +9,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -24,6 +25,8 @@ public class UserDetailsImpl implements UserDetails {
     @JsonIgnore
     private String password;
     private Collection<? extends GrantedAuthority> authorities;
+    @JsonIgnore
+    private Date passwordChangedAt;
 
     //constructor -> allargsconstructor
 
@@ -39,7 +42,24 @@ public class UserDetailsImpl implements UserDetails {
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities);
+                authorities,
+                user.getPasswordChangedAt());
+    }
+
+    /**
+     * Indica si un token emitido en {@code issuedAt} es anterior al último cambio de contraseña.
+     * El claim iat tiene precisión de segundos, así que el cambio se compara truncado al segundo:
+     * el token con el que se inicia sesión justo después del cambio sigue siendo válido (y también
+     * uno emitido antes dentro de ese mismo segundo).
+     *
+     * @param issuedAt Claim iat del token
+     * @return true si el token debe rechazarse
+     */
+    public boolean isIssuedBeforePasswordChange(Date issuedAt) {
+        if (passwordChangedAt == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() / 1000 < passwordChangedAt.getTime() / 1000;
     }
 
     //getters id, username, email, password, roles
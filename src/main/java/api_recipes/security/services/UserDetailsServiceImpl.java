@@ -4,12 +4,16 @@ import api_recipes.models.User;
 import api_recipes.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
     private final UserRepository userRepository;
 
@@ -27,4 +31,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         //RETURNA EL USERNAME del usuario para que despues en AuthTokenFilter  a traves de su username pueda sacar el TOKEN.
     }
+
+    // Lo invoca DaoAuthenticationProvider tras un login correcto si el hash usa otro coste de BCrypt
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + userDetails.getUsername()));
+
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        logger.info("Contraseña re-hasheada con el coste actual de BCrypt para usuario: {}", user.getUsername());
+
+        return UserDetailsImpl.build(user);
+    }
 }
\ No newline at end of file
@@ -1,16 +1,34 @@
 package api_recipes.security.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    // Directorios de las imágenes subidas antes del almacenamiento por contenido
+    private static final String[] LEGACY_DIRS = {"recipes", "ingredients"};
+
+    private final String imagesDir;
+
+    public WebConfig(@Value("${api_recipes.images.dir:uploads/images}") String imagesDir) {
+        this.imagesDir = imagesDir;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:uploads/images/")
-                .setCacheControl(CacheControl.noCache());
+        // Las imágenes nuevas (/images/blobs/**) las sirve ImageController con caché inmutable.
+        // Las antiguas tienen nombre único (UUID) y nunca se sobrescriben: un día de caché y
+        // después revalidación con Last-Modified. Solo se exponen sus directorios, nunca el
+        // resto de uploads/images (temporales, segmentos...).
+        for (String dir : LEGACY_DIRS) {
+            registry.addResourceHandler("/images/" + dir + "/**")
+                    .addResourceLocations("file:" + imagesDir + "/" + dir + "/")
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePublic());
+        }
     }
-}
\ No newline at end of file
+}
@@ -9,15 +9,17 @@ import api_recipes.models.TokenUser;
 import api_recipes.models.User;
 import api_recipes.repository.TokenUserRepository;
 import api_recipes.repository.UserRepository;
+import api_recipes.security.jwt.JwtUtils;
+import api_recipes.security.jwt.TokenDenylist;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -34,22 +36,29 @@ public class AccountService {
     private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
     private final TokenUserRepository tokenUserRepository;
     private final UserRepository userRepository;
-    private final JavaMailSender mailSender;
+    private final EmailOutboxService emailOutboxService;
     private final PasswordEncoder passwordEncoder;
+    private final JwtUtils jwtUtils;
+    private final TokenDenylist tokenDenylist;
 
     /**
      * Constructor del servicio de cuenta.
      *
      * @param tokenUserRepository Repositorio de tokens de usuario
      * @param userRepository Repositorio de usuarios
-     * @param javaMailSender Servicio de envío de emails
+     * @param emailOutboxService Bandeja de salida de emails
      * @param passwordEncoder Codificador de contraseñas
+     * @param jwtUtils Utilidades de JWT
+     * @param tokenDenylist Lista de JWT revocados
      */
-    public AccountService(TokenUserRepository tokenUserRepository, UserRepository userRepository, JavaMailSender javaMailSender, PasswordEncoder passwordEncoder) {
+    public AccountService(TokenUserRepository tokenUserRepository, UserRepository userRepository, EmailOutboxService emailOutboxService,
+                          PasswordEncoder passwordEncoder, JwtUtils jwtUtils, TokenDenylist tokenDenylist) {
         this.tokenUserRepository = tokenUserRepository;
         this.userRepository = userRepository;
-        this.mailSender = javaMailSender;
+        this.emailOutboxService = emailOutboxService;
         this.passwordEncoder = passwordEncoder;
+        this.jwtUtils = jwtUtils;
+        this.tokenDenylist = tokenDenylist;
     }
 
     @Value("${app.base.url}")
@@ -82,11 +91,12 @@ public class AccountService {
         logger.debug("Nuevo token creado para el usuario: {}", user.getUsername());
 
         sendPasswordResetEmail(user, tokenUser.getToken());
-        logger.info("Email de restablecimiento enviado al usuario: {}", user.getUsername());
+        logger.info("Email de restablecimiento encolado para el usuario: {}", user.getUsername());
     }
 
     /**
-     * Envía un email con el enlace para restablecer la contraseña.
+     * Encola el email con el enlace para restablecer la contraseña. Se envía en segundo plano
+     * solo si la transacción que crea el token se confirma.
      *
      * @param user Usuario al cual enviar el email
      * @param token Token de restablecimiento
@@ -96,18 +106,14 @@ public class AccountService {
         
         String url = baseUrl + "/reset-password?token=" + token;
 
-        SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setTo(user.getEmail());
-        mail.setSubject("Restablecer contraseña");
-        mail.setText(
+        emailOutboxService.enqueue(
+                user.getEmail(),
+                "Restablecer contraseña",
                 "Hola " + user.getUsername() + ",\n\n" +
                         "Hemos recibido una solicitud para restablecer tu contraseña.\n\n" +
                         "Haz clic en el siguiente enlace para crear una nueva:\n" + url + "\n\n" +
                         "Este enlace expirará en 24 horas."
         );
-
-        mailSender.send(mail);
-        logger.debug("Email de restablecimiento enviado exitosamente a: {}", user.getEmail());
     }
 
     /**
@@ -161,6 +167,7 @@ public class AccountService {
         
         String hashedPassword = passwordEncoder.encode(newPassword);
         user.setPassword(hashedPassword);
+        user.setPasswordChangedAt(new Date()); // Invalida todos los JWT emitidos hasta ahora
         userRepository.save(user);
         
         logger.info("Contraseña actualizada exitosamente para usuario: {}", user.getUsername());
@@ -221,7 +228,29 @@ public class AccountService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPasswordChangedAt(new Date()); // Invalida todos los JWT emitidos hasta ahora
         userRepository.save(user);
         logger.info("Contraseña cambiada exitosamente para usuario: {}", user.getUsername());
     }
+
+    /**
+     * Revoca un JWT de acceso hasta su expiración (logout).
+     *
+     * @param jwt Token JWT a revocar
+     * @throws InvalidTokenException si el token no es válido
+     */
+    public void revokeAccessToken(String jwt) {
+        Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+        if (claims == null) {
+            logger.warn("Intento de revocar un token inválido");
+            throw new InvalidTokenException("Token inválido");
+        }
+        if (claims.getId() == null) {
+            // Tokens emitidos antes de incluir el jti: caducan solos en jwtExpirationMs
+            logger.warn("Token sin jti, no se puede revocar - Usuario: {}", claims.getSubject());
+            return;
+        }
+        tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+        logger.info("Token de acceso revocado para usuario: {}", claims.getSubject());
+    }
 }
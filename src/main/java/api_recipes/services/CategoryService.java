@@ -145,13 +145,11 @@ public class CategoryService {
     public void deleteCategory(Long id) {
         logger.info("Iniciando eliminación de categoría ID: {}", id);
         
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Categoría no encontrada para eliminación - ID: {}", id);
-                    return new ResourceNotFoundException("Categoría no encontrada con ID: " + id);
-                });
-        
-        categoryRepository.delete(category);
+        // Una sola sentencia: la base de datos quita la categoría de sus recetas
+        if (categoryRepository.deleteCategoryById(id) == 0) {
+            logger.error("Categoría no encontrada para eliminación - ID: {}", id);
+            throw new ResourceNotFoundException("Categoría no encontrada con ID: " + id);
+        }
         logger.info("Categoría eliminada exitosamente - ID: {}", id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package api_recipes.services;
+
+import api_recipes.models.EmailOutbox;
+import api_recipes.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.*;
+
+/**
+ * Servicio que gestiona la bandeja de salida de emails (patrón outbox).
+ * Los emails se guardan en la transacción de negocio que los origina y se envían en lotes
+ * en segundo plano, reutilizando una conexión SMTP por lote y reintentando los fallos
+ * con espera exponencial.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class EmailOutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+    private static final long SENT_RETENTION_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * Constructor del servicio de outbox.
+     *
+     * @param emailOutboxRepository Repositorio de la bandeja de salida
+     * @param mailSender Servicio de envío de emails
+     * @param transactionOperations Plantilla de transacciones para cada lote
+     * @param batchSize Emails enviados por conexión SMTP
+     * @param maxAttempts Intentos antes de marcar un email como fallido
+     * @param initialBackoffMs Espera tras el primer fallo (se duplica en cada intento)
+     * @param maxBackoffMs Espera máxima entre intentos
+     */
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, JavaMailSender mailSender,
+                              TransactionOperations transactionOperations,
+                              @Value("${api_recipes.mail.outbox.batchSize:50}") int batchSize,
+                              @Value("${api_recipes.mail.outbox.maxAttempts:8}") int maxAttempts,
+                              @Value("${api_recipes.mail.outbox.initialBackoffMs:30000}") long initialBackoffMs,
+                              @Value("${api_recipes.mail.outbox.maxBackoffMs:3600000}") long maxBackoffMs) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Encola un email. Debe llamarse dentro de la transacción de negocio para que el email
+     * solo exista si el cambio se confirma.
+     *
+     * @param recipient Dirección de destino
+     * @param subject Asunto
+     * @param body Cuerpo en texto plano
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String subject, String body) {
+        Date now = new Date();
+        EmailOutbox email = EmailOutbox.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+        emailOutboxRepository.save(email);
+        logger.debug("Email encolado para: {}", recipient);
+    }
+
+    /**
+     * Envía los emails pendientes lote a lote hasta vaciar la cola de emails vencidos.
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.mail.outbox.pollIntervalMs:5000}")
+    public void dispatchPending() {
+        int processed;
+        do {
+            processed = Objects.requireNonNullElse(transactionOperations.execute(status -> dispatchBatch()), 0);
+        } while (processed == batchSize);
+    }
+
+    /**
+     * Elimina los emails enviados hace más de una semana.
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.mail.outbox.cleanupIntervalMs:3600000}")
+    public void purgeSent() {
+        Date limit = new Date(System.currentTimeMillis() - SENT_RETENTION_MS);
+        Integer deleted = transactionOperations.execute(
+                status -> emailOutboxRepository.deleteSentBefore(EmailOutbox.Status.SENT, limit));
+        logger.debug("Emails enviados eliminados de la bandeja de salida: {}", deleted);
+    }
+
+    private int dispatchBatch() {
+        List<EmailOutbox> batch = emailOutboxRepository.findDueForUpdate(
+                EmailOutbox.Status.PENDING, new Date(), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            messages[i] = toMessage(batch.get(i));
+        }
+
+        // Un único send() abre una conexión SMTP para todo el lote
+        Map<Object, Exception> failures = Collections.emptyMap();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                failures = allFailed(messages, e);
+            }
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        Date now = new Date();
+        int sent = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent++;
+            } else {
+                registerFailure(email, failure, now);
+            }
+        }
+        logger.info("Lote de emails procesado - enviados: {}, fallidos: {}", sent, batch.size() - sent);
+        return batch.size();
+    }
+
+    private void registerFailure(EmailOutbox email, Exception failure, Date now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(failure.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            logger.error("Email descartado tras {} intentos - ID: {}, destino: {}", attempts, email.getId(), email.getRecipient());
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 30));
+        email.setNextAttemptAt(new Date(now.getTime() + backoff));
+        logger.warn("Error al enviar email - ID: {}, intento: {}, próximo intento en {} ms", email.getId(), attempts, backoff);
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private static Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failures = new HashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, e);
+        }
+        return failures;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
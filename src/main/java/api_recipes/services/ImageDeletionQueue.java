@@ -0,0 +1,98 @@
+package api_recipes.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+/**
+ * Cola de borrado de ficheros de imagen, atendida por un único hilo en segundo plano.
+ *
+ * La petición solo encola el borrado y responde; si la cola está llena o el proceso se detiene
+ * antes de vaciarla, los ficheros quedan huérfanos y los recoge {@link ImageGarbageCollector}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Component
+public class ImageDeletionQueue {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDeletionQueue.class);
+
+    /**
+     * Tarea de borrado que puede fallar con un error de E/S.
+     */
+    @FunctionalInterface
+    public interface DeletionTask {
+        void run() throws IOException;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Counter failedCounter;
+
+    /**
+     * Constructor de la cola de borrado.
+     *
+     * @param capacity Borrados que pueden esperar en cola
+     * @param meterRegistry Registro de métricas
+     */
+    public ImageDeletionQueue(@Value("${api_recipes.images.deletion.queueCapacity:10000}") int capacity,
+                              MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-deletion");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("images.deletion.queue.size", executor, e -> e.getQueue().size())
+                .description("Borrados de imágenes pendientes")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("images.deletion.failed")
+                .description("Borrados de imágenes descartados o fallidos (los recoge el recolector)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola un borrado. Nunca bloquea ni lanza excepción a quien llama.
+     *
+     * @param description Qué se borra (para el log)
+     * @param task Borrado a ejecutar
+     */
+    public void submit(String description, DeletionTask task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                    logger.debug("Borrado completado: {}", description);
+                } catch (IOException | RuntimeException e) {
+                    failedCounter.increment();
+                    logger.error("Error al borrar {}: {}", description, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failedCounter.increment();
+            logger.warn("Cola de borrado llena, {} queda para el recolector", description);
+        }
+    }
+
+    /**
+     * Borrados pendientes en la cola.
+     */
+    public int getPending() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
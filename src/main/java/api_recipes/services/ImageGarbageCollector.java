@@ -0,0 +1,324 @@
+package api_recipes.services;
+
+import api_recipes.models.ImageBlob;
+import api_recipes.payload.response.ImageGcReport;
+import api_recipes.repository.ImageBlobRepository;
+import api_recipes.repository.IngredientRepository;
+import api_recipes.repository.RecipeRepository;
+import api_recipes.storage.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Recolector periódico de imágenes huérfanas.
+ *
+ * Reconcilia el disco ({@code recipes/*}, {@code ingredients}) y el almacén de imágenes con las columnas
+ * {@code image_url} de recetas e ingredientes y con los contadores de {@code image_blobs}:
+ * corrige contadores que se desviaron (por ejemplo, una subida cuya actualización en base de
+ * datos falló) y borra los ficheros sin referencias en lotes pequeños con pausas entre ellos.
+ * Nunca toca ficheros ni blobs modificados hace menos de {@code minAgeMs}, para no competir con
+ * subidas en curso.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class ImageGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(ImageGarbageCollector.class);
+    private static final int SAMPLE_SIZE = 100;
+    private static final int BLOB_PAGE_SIZE = 500;
+    private static final Pattern BLOB_FILE = Pattern.compile("^([0-9a-f]{64})(?:_[a-z]+)?\\.(jpg|png|gif)$");
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final ImageUploadService imageUploadService;
+    private final TransactionOperations transactionOperations;
+    private final ImageStore imageStore;
+    private final Path imagesDir;
+    private final long minAgeMs;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final boolean scheduledDryRun;
+
+    /**
+     * Constructor del recolector.
+     *
+     * @param imageStore Almacén de las imágenes almacenadas por contenido
+     * @param imagesDir Directorio raíz de las imágenes antiguas (servido en /images)
+     * @param minAgeMs Antigüedad mínima de un fichero o blob para considerarlo huérfano
+     * @param batchSize Ficheros borrados por lote
+     * @param batchPauseMs Pausa entre lotes
+     * @param scheduledDryRun Si la pasada programada solo informa sin borrar
+     */
+    public ImageGarbageCollector(ImageBlobRepository imageBlobRepository, RecipeRepository recipeRepository,
+                                 IngredientRepository ingredientRepository, ImageUploadService imageUploadService,
+                                 TransactionOperations transactionOperations, ImageStore imageStore,
+                                 @Value("${api_recipes.images.dir:uploads/images}") String imagesDir,
+                                 @Value("${api_recipes.images.gc.minAgeMs:3600000}") long minAgeMs,
+                                 @Value("${api_recipes.images.gc.batchSize:100}") int batchSize,
+                                 @Value("${api_recipes.images.gc.batchPauseMs:200}") long batchPauseMs,
+                                 @Value("${api_recipes.images.gc.dryRun:false}") boolean scheduledDryRun) {
+        this.imageBlobRepository = imageBlobRepository;
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.imageUploadService = imageUploadService;
+        this.transactionOperations = transactionOperations;
+        this.imageStore = imageStore;
+        this.imagesDir = Paths.get(imagesDir);
+        this.minAgeMs = minAgeMs;
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchPauseMs = batchPauseMs;
+        this.scheduledDryRun = scheduledDryRun;
+    }
+
+    @Scheduled(fixedDelayString = "${api_recipes.images.gc.intervalMs:86400000}",
+            initialDelayString = "${api_recipes.images.gc.initialDelayMs:600000}")
+    public void scheduledCollect() {
+        collect(scheduledDryRun);
+    }
+
+    /**
+     * Ejecuta una pasada completa del recolector.
+     *
+     * @param dryRun Si es true solo informa de lo que borraría
+     * @return Informe de la pasada
+     */
+    public synchronized ImageGcReport collect(boolean dryRun) {
+        long start = System.currentTimeMillis();
+        long cutoff = start - minAgeMs;
+        ImageGcReport report = new ImageGcReport();
+        report.setDryRun(dryRun);
+
+        Map<String, Integer> references = loadReferences();
+        Set<String> liveHashes = reconcileBlobs(references, cutoff, dryRun, report);
+
+        List<Orphan> orphans = new ArrayList<>();
+        scanLegacy(imagesDir.resolve("recipes"), references.keySet(), cutoff, orphans, report);
+        scanLegacy(imagesDir.resolve("ingredients"), references.keySet(), cutoff, orphans, report);
+        scanBlobs(liveHashes, cutoff, orphans, report);
+
+        if (!dryRun) {
+            deleteInBatches(orphans, report);
+            if (Files.isDirectory(imagesDir.resolve("recipes"))) {
+                deleteEmptyDirectories(imagesDir.resolve("recipes"));
+            }
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Recolector de imágenes{} - ficheros: {}, huérfanos: {} ({} bytes), borrados: {}, blobs liberados: {}, contadores corregidos: {}",
+                dryRun ? " (simulación)" : "", report.getScannedFiles(), report.getOrphanFiles(), report.getOrphanBytes(),
+                report.getDeletedFiles(), report.getReleasedBlobs(), report.getFixedRefCounts());
+        return report;
+    }
+
+    // URL -> número de recetas e ingredientes que la usan
+    private Map<String, Integer> loadReferences() {
+        Map<String, Integer> references = new HashMap<>();
+        for (String url : recipeRepository.findAllImageUrls()) {
+            references.merge(url, 1, Integer::sum);
+        }
+        for (String url : ingredientRepository.findAllImageUrls()) {
+            references.merge(url, 1, Integer::sum);
+        }
+        return references;
+    }
+
+    /**
+     * Ajusta el contador de cada blob a sus referencias reales y libera los que no tienen ninguna.
+     *
+     * @return Hashes que siguen registrados tras la pasada
+     */
+    private Set<String> reconcileBlobs(Map<String, Integer> references, long cutoff, boolean dryRun, ImageGcReport report) {
+        Set<String> liveHashes = new HashSet<>();
+        long lastId = 0;
+        List<ImageBlob> page;
+        do {
+            page = imageBlobRepository.findByIdGreaterThanOrderById(lastId, PageRequest.of(0, BLOB_PAGE_SIZE));
+            for (ImageBlob blob : page) {
+                lastId = blob.getId();
+                int actual = references.getOrDefault(blobUrl(blob), 0);
+                if (actual == blob.getRefCount() || !isOlderThan(blob, cutoff)) {
+                    liveHashes.add(blob.getHash());
+                    continue;
+                }
+                boolean released = dryRun ? actual == 0 : fixRefCount(blob.getHash(), cutoff);
+                if (released) {
+                    report.setReleasedBlobs(report.getReleasedBlobs() + 1);
+                    addSample(report, blobUrl(blob));
+                } else {
+                    liveHashes.add(blob.getHash());
+                }
+                report.setFixedRefCounts(report.getFixedRefCounts() + 1);
+            }
+        } while (page.size() == BLOB_PAGE_SIZE);
+        return liveHashes;
+    }
+
+    // Recalcula con la fila bloqueada; devuelve true si el blob se ha eliminado
+    private boolean fixRefCount(String hash, long cutoff) {
+        return Boolean.TRUE.equals(transactionOperations.execute(status -> {
+            Optional<ImageBlob> locked = imageBlobRepository.findByHashForUpdate(hash);
+            if (locked.isEmpty()) {
+                return true;
+            }
+            ImageBlob blob = locked.get();
+            if (!isOlderThan(blob, cutoff)) {
+                return false;
+            }
+            String url = blobUrl(blob);
+            int actual = (int) (recipeRepository.countByImageUrl(url) + ingredientRepository.countByImageUrl(url));
+            if (actual > 0) {
+                logger.warn("Contador del blob {} corregido: {} -> {}", hash, blob.getRefCount(), actual);
+                blob.setRefCount(actual);
+                blob.setUpdatedAt(new Date());
+                return false;
+            }
+            logger.warn("Blob {} sin referencias (contador {}), se elimina", hash, blob.getRefCount());
+            imageBlobRepository.delete(blob);
+            return true;
+        }));
+    }
+
+    private void scanLegacy(Path dir, Set<String> referencedUrls, long cutoff, List<Orphan> orphans, ImageGcReport report) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                report.setScannedFiles(report.getScannedFiles() + 1);
+                String url = "/images/" + imagesDir.relativize(file).toString().replace('\\', '/');
+                if (!referencedUrls.contains(url)) {
+                    addLegacyOrphan(file, cutoff, orphans, report);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Error al recorrer {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void scanBlobs(Set<String> liveHashes, long cutoff, List<Orphan> orphans, ImageGcReport report) {
+        List<ImageStore.StoredImage> images;
+        try {
+            images = imageStore.list();
+        } catch (IOException e) {
+            logger.error("Error al recorrer el almacén de imágenes: {}", e.getMessage());
+            return;
+        }
+        for (ImageStore.StoredImage image : images) {
+            report.setScannedFiles(report.getScannedFiles() + 1);
+            // Temporales de subidas interrumpidas o variantes y originales sin fila en image_blobs
+            Matcher matcher = BLOB_FILE.matcher(image.key().substring(image.key().lastIndexOf('/') + 1));
+            if ((!matcher.matches() || !liveHashes.contains(matcher.group(1))) && image.lastModified() <= cutoff) {
+                addOrphan(new Orphan(null, image.key()), image.size(), orphans, report);
+            }
+        }
+    }
+
+    private void addLegacyOrphan(Path file, long cutoff, List<Orphan> orphans, ImageGcReport report) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().toMillis() <= cutoff) {
+                addOrphan(new Orphan(file, null), attributes.size(), orphans, report);
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudo leer {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void addOrphan(Orphan orphan, long size, List<Orphan> orphans, ImageGcReport report) {
+        orphans.add(orphan);
+        report.setOrphanFiles(report.getOrphanFiles() + 1);
+        report.setOrphanBytes(report.getOrphanBytes() + size);
+        addSample(report, orphan.toString());
+    }
+
+    private void deleteInBatches(List<Orphan> orphans, ImageGcReport report) {
+        for (int i = 0; i < orphans.size(); i++) {
+            Orphan orphan = orphans.get(i);
+            try {
+                if (delete(orphan)) {
+                    report.setDeletedFiles(report.getDeletedFiles() + 1);
+                }
+            } catch (IOException e) {
+                logger.error("Error al borrar {}: {}", orphan, e.getMessage());
+            }
+            if ((i + 1) % batchSize == 0 && batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Recolector interrumpido tras borrar {} ficheros", report.getDeletedFiles());
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean delete(Orphan orphan) throws IOException {
+        if (orphan.file() != null) {
+            return Files.deleteIfExists(orphan.file());
+        }
+        Matcher matcher = BLOB_FILE.matcher(orphan.key().substring(orphan.key().lastIndexOf('/') + 1));
+        return matcher.matches()
+                // Vuelve a comprobar con la fila bloqueada por si se ha subido de nuevo
+                ? imageUploadService.deleteBlobIfUnreferenced(matcher.group(1), "." + matcher.group(2))
+                : imageStore.delete(orphan.key());
+    }
+
+    private void deleteEmptyDirectories(Path root) {
+        try (Stream<Path> dirs = Files.list(root)) {
+            dirs.filter(Files::isDirectory).forEach(dir -> {
+                try (Stream<Path> entries = Files.list(dir)) {
+                    if (entries.findAny().isEmpty()) {
+                        Files.deleteIfExists(dir);
+                    }
+                } catch (IOException e) {
+                    logger.debug("No se pudo borrar el directorio vacío {}: {}", dir, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Error al recorrer {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static boolean isOlderThan(ImageBlob blob, long cutoff) {
+        Date modified = blob.getUpdatedAt() != null ? blob.getUpdatedAt() : blob.getCreatedAt();
+        return modified.getTime() <= cutoff;
+    }
+
+    private static String blobUrl(ImageBlob blob) {
+        return "/images/blobs/" + blob.getHash().substring(0, 2) + "/" + blob.getHash() + blob.getExtension();
+    }
+
+    /**
+     * Imagen huérfana: un fichero antiguo en disco o una clave del almacén.
+     */
+    private record Orphan(Path file, String key) {
+        @Override
+        public String toString() {
+            return file != null ? file.toString() : "blobs/" + key;
+        }
+    }
+
+    private static void addSample(ImageGcReport report, String entry) {
+        if (report.getSample().size() < SAMPLE_SIZE) {
+            report.getSample().add(entry);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.models.Ingredient;
+import api_recipes.models.Recipe;
+import api_recipes.payload.response.ImageImportReport;
+import api_recipes.payload.response.ImageImportReport.Entry;
+import api_recipes.payload.response.ImageImportReport.Status;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Servicio de importación masiva de imágenes desde un archivo ZIP.
+ *
+ * El ZIP se lee en streaming, entrada a entrada, sin descomprimirlo a disco: cada entrada se
+ * guarda con {@link ImageUploadService} y las columnas {@code image_url} se actualizan por
+ * lotes JDBC, en una transacción corta por lote. Las entradas se nombran por id
+ * ({@code 12.jpg}) o por tipo e id ({@code recipes/7.png}, {@code ingredients/12.jpg}).
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class ImageImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageImportService.class);
+
+    private static final Pattern ENTRY_NAME = Pattern.compile("^(?:(recipes|ingredients)/)?(\\d{1,18})\\.(?i:jpe?g|png|gif)$");
+    // Nombres de tabla permitidos (son también el directorio base de las imágenes antiguas) y su entidad
+    private static final Map<String, Class<?>> TARGETS = Map.of("recipes", Recipe.class, "ingredients", Ingredient.class);
+
+    private final ImageUploadService imageUploadService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+
+    /**
+     * Constructor del servicio de importación.
+     *
+     * @param imageUploadService Servicio de almacenamiento de imágenes
+     * @param jdbcTemplate Plantilla JDBC para las actualizaciones por lotes
+     * @param entityManagerFactory Para invalidar en la caché de segundo nivel lo que cambia por JDBC
+     * @param transactionOperations Plantilla de transacciones para cada lote
+     * @param batchSize Entradas por lote de actualización
+     */
+    public ImageImportService(ImageUploadService imageUploadService, NamedParameterJdbcTemplate jdbcTemplate,
+                              EntityManagerFactory entityManagerFactory, TransactionOperations transactionOperations,
+                              @Value("${api_recipes.images.import.batchSize:100}") int batchSize) {
+        this.imageUploadService = imageUploadService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Importa las imágenes de un ZIP.
+     *
+     * @param body Contenido del ZIP
+     * @param defaultTarget Tipo de las entradas nombradas solo por id (recipes o ingredients)
+     * @return Informe con el resultado de cada entrada
+     * @throws InvalidRequestException si el tipo por defecto no es válido
+     */
+    public ImageImportReport importZip(InputStream body, String defaultTarget) {
+        if (!TARGETS.containsKey(defaultTarget)) {
+            throw new InvalidRequestException("Tipo de destino no válido: " + defaultTarget);
+        }
+        long start = System.currentTimeMillis();
+        ImageImportReport report = new ImageImportReport();
+        // Última entrada de cada recurso pendiente de guardar en base de datos
+        Map<String, Entry> batch = new LinkedHashMap<>();
+
+        try (ZipInputStream zip = new ZipInputStream(body)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                Entry entry = importEntry(zip, zipEntry, defaultTarget);
+                report.getEntries().add(entry);
+                if (entry.getStatus() != null) {
+                    continue;
+                }
+                Entry previous = batch.put(entry.getTarget() + "/" + entry.getId(), entry);
+                if (previous != null) {
+                    // Dos entradas para el mismo recurso: gana la última
+                    previous.setStatus(Status.REPLACED);
+                    previous.setMessage("Sustituida por " + entry.getName());
+                    release(previous.getTarget(), previous.getId(), previous.getImageUrl());
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Importación de imágenes interrumpida: {}", e.getMessage());
+            report.setError("Archivo ZIP no válido o incompleto: " + e.getMessage());
+        } finally {
+            flush(batch);
+        }
+
+        for (Entry entry : report.getEntries()) {
+            switch (entry.getStatus()) {
+                case IMPORTED -> report.setImportedEntries(report.getImportedEntries() + 1);
+                case SKIPPED, REPLACED -> report.setSkippedEntries(report.getSkippedEntries() + 1);
+                default -> report.setFailedEntries(report.getFailedEntries() + 1);
+            }
+        }
+        report.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Importación de imágenes - importadas: {}, fallidas: {}, omitidas: {}, duración: {} ms",
+                report.getImportedEntries(), report.getFailedEntries(), report.getSkippedEntries(), report.getDurationMs());
+        return report;
+    }
+
+    // Guarda la imagen de una entrada; el estado queda a null si está pendiente de asignar
+    private Entry importEntry(ZipInputStream zip, ZipEntry zipEntry, String defaultTarget) throws IOException {
+        String name = zipEntry.getName();
+        Matcher matcher = ENTRY_NAME.matcher(name);
+        if (!matcher.matches()) {
+            return new Entry(name, null, null, Status.SKIPPED, null,
+                    "Nombre no reconocido: se espera <id>.<ext> o recipes|ingredients/<id>.<ext>");
+        }
+        String target = matcher.group(1) != null ? matcher.group(1) : defaultTarget;
+        Entry entry = new Entry(name, target, Long.parseLong(matcher.group(2)), null, null, null);
+        try {
+            // El flujo no debe cerrarse al terminar la entrada: sigue el resto del ZIP
+            entry.setImageUrl(imageUploadService.uploadImage(StreamUtils.nonClosing(zip), zipEntry.getSize()));
+        } catch (InvalidRequestException e) {
+            entry.setStatus(Status.INVALID);
+            entry.setMessage(e.getMessage());
+        }
+        return entry;
+    }
+
+    /**
+     * Asigna las imágenes del lote a sus recetas e ingredientes y libera las anteriores.
+     */
+    private void flush(Map<String, Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, List<Entry>> byTarget = new HashMap<>();
+        for (Entry entry : batch.values()) {
+            byTarget.computeIfAbsent(entry.getTarget(), target -> new ArrayList<>()).add(entry);
+        }
+        batch.clear();
+
+        for (Map.Entry<String, List<Entry>> group : byTarget.entrySet()) {
+            String target = group.getKey();
+            List<Entry> entries = group.getValue();
+            Map<Long, String> previousUrls = new HashMap<>();
+            try {
+                transactionOperations.executeWithoutResult(status -> {
+                    jdbcTemplate.query("SELECT id, image_url FROM " + target + " WHERE id IN (:ids) FOR UPDATE",
+                            Map.of("ids", entries.stream().map(Entry::getId).toList()),
+                            resultSet -> {
+                                previousUrls.put(resultSet.getLong("id"), resultSet.getString("image_url"));
+                            });
+                    SqlParameterSource[] updates = entries.stream()
+                            .filter(entry -> previousUrls.containsKey(entry.getId()))
+                            .map(entry -> new MapSqlParameterSource()
+                                    .addValue("id", entry.getId())
+                                    .addValue("imageUrl", entry.getImageUrl()))
+                            .toArray(SqlParameterSource[]::new);
+                    if (updates.length > 0) {
+                        jdbcTemplate.batchUpdate("UPDATE " + target + " SET image_url = :imageUrl WHERE id = :id", updates);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("Error al asignar un lote de {} imágenes a {}: {}", entries.size(), target, e.getMessage());
+                for (Entry entry : entries) {
+                    entry.setStatus(Status.INVALID);
+                    entry.setMessage("Error al guardar en base de datos");
+                    release(target, entry.getId(), entry.getImageUrl());
+                }
+                continue;
+            }
+
+            for (Entry entry : entries) {
+                if (previousUrls.containsKey(entry.getId())) {
+                    // Hibernate no ve las actualizaciones JDBC: la copia en caché quedaría con la imagen anterior
+                    entityManagerFactory.getCache().evict(TARGETS.get(target), entry.getId());
+                    entry.setStatus(Status.IMPORTED);
+                    // Si era la misma imagen, esto descuenta la referencia que acaba de sumar la subida
+                    release(target, entry.getId(), previousUrls.get(entry.getId()));
+                } else {
+                    entry.setStatus(Status.NOT_FOUND);
+                    entry.setMessage("No existe el recurso con id " + entry.getId());
+                    release(target, entry.getId(), entry.getImageUrl());
+                }
+            }
+        }
+    }
+
+    private void release(String target, Long id, String imageUrl) {
+        if (imageUrl == null) {
+            return;
+        }
+        try {
+            imageUploadService.deleteImage(imageUrl, target, "recipes".equals(target) ? id : null);
+        } catch (IOException | InvalidRequestException e) {
+            logger.warn("No se pudo liberar la imagen {}: {}", imageUrl, e.getMessage());
+        }
+    }
+}
@@ -1,20 +1,40 @@
 package api_recipes.services;
 
 import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.models.ImageBlob;
+import api_recipes.repository.ImageBlobRepository;
+import api_recipes.storage.ImageStore;
 import org.apache.tomcat.util.http.fileupload.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Servicio que maneja todas las operaciones relacionadas con la carga y eliminación
@@ -39,49 +59,442 @@ public class ImageUploadService {
     ));
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+    private static final int SNIFF_BYTES = 8192;
+    private static final long TRANSFER_CHUNK = 64 * 1024;
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_MAGIC = {'G', 'I', 'F', '8', '7', 'a'};
+    private static final byte[] GIF89_MAGIC = {'G', 'I', 'F', '8', '9', 'a'};
+
+    private static final String BLOB_URL_PREFIX = "/images/blobs/";
+    private static final Pattern BLOB_URL = Pattern.compile("^/images/blobs/([0-9a-f]{2})/(\\1[0-9a-f]{62})\\.(jpg|png|gif)$");
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final TransactionOperations transactionOperations;
+    private final ImageVariantService imageVariantService;
+    private final ImageDeletionQueue imageDeletionQueue;
+    private final ImageStore imageStore;
+
+    /**
+     * Constructor del servicio de imágenes.
+     *
+     * @param imageBlobRepository Repositorio de imágenes almacenadas por contenido
+     * @param transactionOperations Plantilla de transacciones para el contador de referencias
+     * @param imageVariantService Generador de versiones redimensionadas
+     * @param imageDeletionQueue Cola de borrado de ficheros en segundo plano
+     * @param imageStore Almacén de las imágenes almacenadas por contenido (servido en /images/blobs)
+     */
+    public ImageUploadService(ImageBlobRepository imageBlobRepository, TransactionOperations transactionOperations,
+                              ImageVariantService imageVariantService, ImageDeletionQueue imageDeletionQueue,
+                              ImageStore imageStore) {
+        this.imageBlobRepository = imageBlobRepository;
+        this.transactionOperations = transactionOperations;
+        this.imageVariantService = imageVariantService;
+        this.imageDeletionQueue = imageDeletionQueue;
+        this.imageStore = imageStore;
+    }
 
-    // ingredients | recipes -> baseDir
-    // ingredient  | recipes -> prefix
     /**
-     * Carga una imagen al servidor.
+     * Carga una imagen al servidor. Las imágenes se guardan por el SHA-256 de su contenido:
+     * si ya existe una idéntica no se vuelve a escribir y solo se suma una referencia.
      *
      * @param file Archivo de imagen a cargar
-     * @param baseDir Directorio base donde se guardará la imagen
-     * @param prefix Prefijo para el nombre del archivo
-     * @param id ID del recurso (usuario o receta) al que pertenece la imagen
      * @return URL de la imagen cargada
      * @throws IOException si hay un error al guardar el archivo
      * @throws InvalidRequestException si el archivo no cumple con los requisitos
      */
-    public String uploadImage(MultipartFile file, String baseDir, String prefix, Long id) throws IOException {
-        logger.info("Iniciando carga de imagen para {} ID: {}", baseDir, id);
-        
+    public String uploadImage(MultipartFile file) throws IOException {
+        logger.info("Iniciando carga de imagen: {}", file.getOriginalFilename());
+
         validateFile(file);
 
-        // Crear directorio si no existe ->   (hay recetas creadas sin carpeta de imagen )
-        String uploadDir = "uploads/images/" + baseDir;
-        if (id != null) {
-            uploadDir += "/" + id;
+        // Spring ya tiene la parte en memoria o en disco: se calcula el hash primero y el
+        // fichero solo se escribe si el contenido es nuevo
+        MessageDigest digest = newDigest();
+        String extension;
+        try (InputStream in = file.getInputStream()) {
+            byte[] header = in.readNBytes(SNIFF_BYTES);
+            extension = detectExtension(header);
+            digest.update(header);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
         }
+        String hash = HexFormat.of().formatHex(digest.digest());
 
-        logger.debug("Creando directorio de subida: {}", uploadDir);
-        Files.createDirectories(Paths.get(uploadDir));
+        ImageBlob blob = acquireBlob(hash, extension, file.getSize(), file::transferTo);
+        submitVariants(blob);
+        String imageUrl = blobUrl(blob);
+        logger.info("Imagen subida exitosamente - URL: {}, referencias: {}", imageUrl, blob.getRefCount());
+        return imageUrl;
+    }
 
-        // Generar nombre único para el archivo
-        String extension = getFileExtension(file.getOriginalFilename());
-        String newFilename = prefix + "_" + UUID.randomUUID() + extension;
-        Path newFilePath = Paths.get(uploadDir, newFilename);
-        
-        logger.debug("Guardando archivo: {}", newFilePath);
-        Files.copy(file.getInputStream(), newFilePath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Carga una imagen leyendo en streaming el cuerpo de la petición (el binario sin multipart).
+     * El tipo se deduce de los primeros bytes, sin fiarse de cabeceras ni extensiones; la lectura
+     * se corta en cuanto se supera el tamaño máximo y el contenido va directo a un temporal del
+     * almacén con {@link FileChannel#transferFrom}, calculando el hash por el camino.
+     *
+     * @param body Cuerpo de la petición
+     * @param contentLength Longitud declarada (-1 si es desconocida)
+     * @return URL de la imagen cargada
+     * @throws IOException si hay un error al leer o guardar el archivo
+     * @throws InvalidRequestException si el contenido no es una imagen válida o excede el tamaño máximo
+     */
+    public String uploadImage(InputStream body, long contentLength) throws IOException {
+        logger.info("Iniciando carga de imagen en streaming - Tamaño declarado: {} bytes", contentLength);
 
-        String imageUrl = "/images/" + baseDir + (id != null ? "/" + id : "") + "/" + newFilename;
-        logger.info("Imagen subida exitosamente - URL: {}", imageUrl);
-        return imageUrl;
+        if (contentLength > MAX_FILE_SIZE) {
+            logger.error("Archivo excede tamaño máximo - Tamaño declarado: {} bytes", contentLength);
+            throw new InvalidRequestException("El archivo excede el tamaño máximo permitido de 5MB");
+        }
+
+        return storeStreaming(body);
+    }
+
+    /**
+     * Guarda por contenido una imagen leída en streaming: el tipo se deduce de los primeros bytes
+     * y el resto va directo a un temporal del almacén calculando el hash por el camino. El cuerpo
+     * solo se puede leer una vez, así que hay que escribirlo antes de conocer el hash.
+     *
+     * @param body Contenido de la imagen
+     * @return URL de la imagen cargada
+     * @throws IOException si hay un error al leer o guardar el archivo
+     * @throws InvalidRequestException si el contenido no es una imagen válida o excede el tamaño máximo
+     */
+    private String storeStreaming(InputStream body) throws IOException {
+        byte[] header = body.readNBytes(SNIFF_BYTES);
+        String extension = detectExtension(header);
+
+        MessageDigest digest = newDigest();
+        Path incoming = imageStore.newStagingFile();
+        try {
+            long size = 0;
+            try (ReadableByteChannel source = new LimitedDigestChannel(header, Channels.newChannel(body), digest, MAX_FILE_SIZE);
+                 FileChannel target = FileChannel.open(incoming, StandardOpenOption.WRITE)) {
+                long transferred;
+                while ((transferred = target.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                    size += transferred;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            // El fichero recibido se publica tal cual; si el contenido ya existía se descarta
+            ImageBlob blob = acquireBlob(hash, extension, size,
+                    staging -> Files.move(incoming, staging, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING));
+            submitVariants(blob);
+            String imageUrl = blobUrl(blob);
+            logger.info("Imagen subida exitosamente - URL: {}, referencias: {}", imageUrl, blob.getRefCount());
+            return imageUrl;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /**
+     * Devuelve la imagen a servir para una imagen almacenada por contenido.
+     * Si se pide una variante que aún no se ha generado, se sirve el original.
+     *
+     * @param imageUrl URL de la imagen ({@code /images/blobs/<aa>/<hash>.<ext>})
+     * @param size Variante pedida (thumb, card, full) o null para el original
+     * @return Nombre y contenido de la imagen servida
+     * @throws ResourceNotFoundException si la imagen no existe
+     * @throws InvalidRequestException si la variante no existe
+     */
+    public ResolvedImage resolveImage(String imageUrl, String size) {
+        Matcher matcher = BLOB_URL.matcher(imageUrl);
+        if (!matcher.matches()) {
+            throw new ResourceNotFoundException("Imagen no encontrada");
+        }
+        String originalKey = blobKey(matcher.group(2), "." + matcher.group(3));
+        Resource original = imageStore.get(originalKey)
+                .orElseThrow(() -> new ResourceNotFoundException("Imagen no encontrada"));
+        if (size == null) {
+            return new ResolvedImage(fileName(originalKey), original);
+        }
+
+        ImageVariantService.Variant variant = Arrays.stream(ImageVariantService.Variant.values())
+                .filter(v -> v.key().equalsIgnoreCase(size))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestException("Tamaño de imagen no válido: " + size));
+        String variantKey = imageVariantService.variantKey(originalKey, variant);
+        Optional<Resource> resized = imageStore.get(variantKey);
+        if (resized.isPresent()) {
+            return new ResolvedImage(fileName(variantKey), resized.get());
+        }
+        logger.debug("Variante {} aún no disponible para {}, se sirve el original", variant.key(), imageUrl);
+        return new ResolvedImage(fileName(originalKey), original);
+    }
+
+    /**
+     * Imagen lista para servir.
+     *
+     * @param name Nombre de la imagen servida ({@code <hash>[_variante].<ext>})
+     * @param resource Contenido
+     */
+    public record ResolvedImage(String name, Resource resource) {
+    }
+
+    // Solo el primer alta del contenido genera variantes; los duplicados ya las tienen
+    private void submitVariants(ImageBlob blob) {
+        if (blob.getRefCount() == 1) {
+            imageVariantService.submit(blobKey(blob.getHash(), blob.getExtension()));
+        }
+    }
+
+    /**
+     * Suma una referencia al blob con el hash dado, creándolo si no existe.
+     * Si dos subidas del mismo contenido nuevo coinciden, la que pierde la restricción
+     * única reintenta y acaba sumando una referencia al blob de la otra.
+     *
+     * @param hash SHA-256 del contenido
+     * @param extension Extensión normalizada
+     * @param size Tamaño en bytes
+     * @param writer Escribe el contenido en el temporal indicado (solo se invoca si la imagen no está en el almacén)
+     * @return Blob con el contador actualizado
+     * @throws IOException si hay un error al escribir el fichero
+     */
+    private ImageBlob acquireBlob(String hash, String extension, long size, BlobWriter writer) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionOperations.execute(status -> {
+                    Date now = new Date();
+                    Optional<ImageBlob> existing = imageBlobRepository.findByHashForUpdate(hash);
+                    if (existing.isPresent()) {
+                        ImageBlob blob = existing.get();
+                        blob.setRefCount(blob.getRefCount() + 1);
+                        blob.setUpdatedAt(now);
+                        logger.debug("Imagen duplicada, se reutiliza el blob: {}", hash);
+                        return blob;
+                    }
+                    // Primero la fila: si hay un borrado pendiente del mismo hash, espera a que termine
+                    ImageBlob blob = imageBlobRepository.saveAndFlush(ImageBlob.builder()
+                            .hash(hash)
+                            .extension(extension)
+                            .size(size)
+                            .refCount(1)
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build());
+                    writeBlob(blobKey(hash, extension), writer);
+                    return blob;
+                });
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= 3) {
+                    throw e;
+                }
+                logger.debug("Alta concurrente del blob {}, reintentando", hash);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Resta una referencia al blob y borra el fichero si era la última.
+     *
+     * @param hash SHA-256 del contenido
+     */
+    private void releaseBlob(String hash) {
+        transactionOperations.executeWithoutResult(status -> {
+            Optional<ImageBlob> existing = imageBlobRepository.findByHashForUpdate(hash);
+            if (existing.isEmpty()) {
+                logger.warn("Blob de imagen no registrado: {}", hash);
+                return;
+            }
+            ImageBlob blob = existing.get();
+            if (blob.getRefCount() > 1) {
+                blob.setRefCount(blob.getRefCount() - 1);
+                blob.setUpdatedAt(new Date());
+                logger.debug("Referencia liberada - blob: {}, referencias: {}", hash, blob.getRefCount());
+                return;
+            }
+            imageBlobRepository.delete(blob);
+            String extension = blob.getExtension();
+            afterCommit(() -> imageDeletionQueue.submit("blob " + hash, () -> deleteBlobIfUnreferenced(hash, extension)));
+            logger.info("Última referencia liberada, blob {} encolado para borrado", hash);
+        });
+    }
+
+    /**
+     * Borra el fichero de un blob y sus variantes si no tiene fila en {@code image_blobs}.
+     * La comprobación se hace con la fila bloqueada, así que una subida simultánea del mismo
+     * contenido o bien espera a que termine el borrado o bien hace que se descarte.
+     *
+     * @param hash SHA-256 del contenido
+     * @param extension Extensión del fichero
+     * @return true si se ha borrado
+     * @throws IOException si hay un error al borrar
+     */
+    public boolean deleteBlobIfUnreferenced(String hash, String extension) throws IOException {
+        try {
+            return Boolean.TRUE.equals(transactionOperations.execute(status -> {
+                if (imageBlobRepository.findByHashForUpdate(hash).isPresent()) {
+                    logger.debug("El blob {} vuelve a estar en uso, no se borra", hash);
+                    return false;
+                }
+                try {
+                    String key = blobKey(hash, extension);
+                    imageVariantService.deleteVariants(key);
+                    imageStore.delete(key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                logger.debug("Blob eliminado del almacén: {}", hash);
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Los ficheros se borran solo si la transacción que libera la referencia se confirma
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void writeBlob(String key, BlobWriter writer) {
+        try {
+            if (imageStore.exists(key)) {
+                return;
+            }
+            // Se escribe en un temporal y se publica entero para que nunca se sirva una imagen a medias
+            Path staging = imageStore.newStagingFile();
+            try {
+                writer.writeTo(staging);
+                imageStore.put(key, staging);
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String blobKey(String hash, String extension) {
+        return hash.substring(0, 2) + "/" + hash + extension;
+    }
+
+    private static String fileName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    private static String blobUrl(ImageBlob blob) {
+        return BLOB_URL_PREFIX + blob.getHash().substring(0, 2) + "/" + blob.getHash() + blob.getExtension();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Deduce la extensión a partir de la firma (magic bytes) del contenido.
+     *
+     * @param header Primeros bytes del archivo
+     * @return Extensión normalizada (.jpg, .png o .gif)
+     * @throws InvalidRequestException si el contenido no es JPEG, PNG ni GIF
+     */
+    private static String detectExtension(byte[] header) {
+        if (header.length == 0) {
+            logger.error("Archivo vacío");
+            throw new InvalidRequestException("El archivo está vacío");
+        }
+        if (startsWith(header, JPEG_MAGIC)) {
+            return ".jpg";
+        }
+        if (startsWith(header, PNG_MAGIC)) {
+            return ".png";
+        }
+        if (startsWith(header, GIF87_MAGIC) || startsWith(header, GIF89_MAGIC)) {
+            return ".gif";
+        }
+        logger.error("El contenido no corresponde a una imagen JPEG, PNG o GIF");
+        throw new InvalidRequestException("Solo se permiten archivos de imagen");
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
     }
 
     /**
-     * Elimina una imagen del servidor.
+     * Canal que entrega primero la cabecera ya leída y después el resto del cuerpo,
+     * actualizando el hash y cortando la lectura en cuanto se supera el límite.
+     */
+    private static final class LimitedDigestChannel implements ReadableByteChannel {
+        private final ByteBuffer header;
+        private final ReadableByteChannel body;
+        private final MessageDigest digest;
+        private final long limit;
+        private long total;
+
+        LimitedDigestChannel(byte[] header, ReadableByteChannel body, MessageDigest digest, long limit) {
+            this.header = ByteBuffer.wrap(header);
+            this.body = body;
+            this.digest = digest;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int start = dst.position();
+            int read;
+            if (header.hasRemaining()) {
+                read = Math.min(header.remaining(), dst.remaining());
+                dst.put(header.slice(header.position(), read));
+                header.position(header.position() + read);
+            } else {
+                read = body.read(dst);
+            }
+            if (read <= 0) {
+                return read;
+            }
+            total += read;
+            if (total > limit) {
+                logger.error("Archivo excede tamaño máximo - Leídos: {} bytes", total);
+                throw new InvalidRequestException("El archivo excede el tamaño máximo permitido de 5MB");
+            }
+            digest.update(dst.duplicate().limit(dst.position()).position(start));
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return body.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Escribe el contenido de una imagen en un fichero temporal.
+     */
+    @FunctionalInterface
+    private interface BlobWriter {
+        void writeTo(Path target) throws IOException;
+    }
+
+    /**
+     * Elimina una imagen del servidor. Para imágenes almacenadas por contenido solo se libera
+     * una referencia; el fichero se borra en segundo plano cuando no queda ninguna.
      *
      * @param imageUrl URL de la imagen a eliminar
      * @param baseDir Directorio base donde se encuentra la imagen
@@ -96,6 +509,22 @@ public class ImageUploadService {
             return;
         }
 
+        if (imageUrl.startsWith(BLOB_URL_PREFIX)) {
+            Matcher matcher = BLOB_URL.matcher(imageUrl);
+            if (!matcher.matches()) {
+                logger.error("URL de imagen inválida: {}", imageUrl);
+                throw new InvalidRequestException("URL de imagen inválida: " + imageUrl);
+            }
+            try {
+                releaseBlob(matcher.group(2));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return;
+        }
+
+        // Imágenes subidas antes del almacenamiento por contenido
+
         String expectedPrefix = "/images/" + baseDir + (id != null ? "/" + id : "") + "/";
         if (!imageUrl.startsWith(expectedPrefix)) {
             logger.error("URL de imagen inválida: {}", imageUrl);
@@ -109,9 +538,8 @@ public class ImageUploadService {
         String filename = imageUrl.substring(expectedPrefix.length());
         Path filePath = Paths.get(uploadDir, filename);
 
-        logger.debug("Eliminando archivo: {}", filePath);
-        Files.deleteIfExists(filePath);
-        logger.info("Imagen eliminada exitosamente");
+        imageDeletionQueue.submit("imagen " + filePath, () -> Files.deleteIfExists(filePath));
+        logger.info("Imagen encolada para borrado: {}", filePath);
     }
 
     /**
@@ -165,7 +593,7 @@ public class ImageUploadService {
     }
 
     /**
-     * Elimina un directorio y su contenido.
+     * Elimina un directorio y su contenido en segundo plano.
      *
      * @param baseDir Directorio base a eliminar
      * @param id ID del recurso
@@ -186,13 +614,8 @@ public class ImageUploadService {
             return;
         }
 
-        try {
-            logger.debug("Eliminando directorio: {}", dir.getPath());
-            FileUtils.deleteDirectory(dir);
-            logger.info("Directorio eliminado exitosamente");
-        } catch (IOException e) {
-            logger.error("Error al eliminar el directorio: {}", e.getMessage());
-            throw new IOException("Error al eliminar el directorio", e);
-        }
+        // Recorrer el directorio puede ser lento: se hace en segundo plano
+        imageDeletionQueue.submit("directorio " + dir.getPath(), () -> FileUtils.deleteDirectory(dir));
+        logger.info("Directorio encolado para borrado: {}", dir.getPath());
     }
 }
\ No newline at end of file
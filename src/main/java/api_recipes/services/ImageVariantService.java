@@ -0,0 +1,409 @@
+package api_recipes.services;
+
+import api_recipes.storage.ImageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que genera en segundo plano las versiones redimensionadas de cada imagen.
+ *
+ * Cada variante se vuelve a codificar desde los píxeles con {@code javax.imageio}, por lo que
+ * no conserva los metadatos del original (EXIF, GPS...); antes se aplica la orientación EXIF de
+ * los JPEG para que la variante se vea igual que el original. El trabajo va a un pool acotado: si
+ * está saturado la tarea se descarta y, mientras tanto, se sirve el original.
+ *
+ * Antes de decodificar se leen las dimensiones de la cabecera: las imágenes con más píxeles
+ * que el máximo se quedan sin variantes y las grandes se decodifican submuestreadas, de modo
+ * que una imagen de pocos bytes con dimensiones enormes no agota la memoria.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class ImageVariantService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final float JPEG_QUALITY = 0.85f;
+    // Lado máximo con el que se decodifica el original: el doble de la variante mayor
+    private static final int MAX_DECODED_SIZE = 2 * Variant.FULL.getMaxSize();
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    /**
+     * Variantes disponibles y el lado máximo (en píxeles) de cada una.
+     */
+    public enum Variant {
+        THUMB(160), CARD(480), FULL(1280);
+
+        private final int maxSize;
+
+        Variant(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final ImageStore imageStore;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+    private final Timer generationTimer;
+
+    /**
+     * Constructor del servicio de variantes.
+     *
+     * @param threads Hilos dedicados a redimensionar
+     * @param queueCapacity Imágenes que pueden esperar en cola antes de descartar
+     * @param maxPixels Píxeles máximos (ancho x alto) de un original para generar sus variantes
+     * @param meterRegistry Registro de métricas
+     * @param imageStore Almacén de imágenes del que se leen los originales y en el que se guardan las variantes
+     */
+    public ImageVariantService(@Value("${api_recipes.images.variants.threads:2}") int threads,
+                               @Value("${api_recipes.images.variants.queueCapacity:100}") int queueCapacity,
+                               @Value("${api_recipes.images.variants.maxPixels:40000000}") long maxPixels,
+                               MeterRegistry meterRegistry, ImageStore imageStore) {
+        this.imageStore = imageStore;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("images.variants.queue.size", executor, e -> e.getQueue().size())
+                .description("Imágenes esperando a que se generen sus variantes")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("images.variants.rejected")
+                .description("Imágenes cuyas variantes se descartaron por saturación del pool")
+                .register(meterRegistry);
+        this.generationTimer = Timer.builder("images.variants.duration")
+                .description("Tiempo de generar todas las variantes de una imagen")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola la generación de variantes de una imagen. No espera al resultado.
+     *
+     * @param original Clave de la imagen original en el almacén
+     */
+    public void submit(String original) {
+        try {
+            executor.execute(() -> {
+                try {
+                    generationTimer.recordCallable(() -> {
+                        generate(original);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    logger.error("Error al generar variantes de {}: {}", original, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            logger.warn("Pool de variantes saturado, se servirá el original de {}", original);
+        }
+    }
+
+    /**
+     * Genera las variantes que falten de una imagen.
+     *
+     * @param original Clave de la imagen original
+     * @throws IOException si hay un error al leer o escribir
+     */
+    void generate(String original) throws IOException {
+        Optional<Resource> resource = imageStore.get(original);
+        if (resource.isEmpty()) {
+            logger.debug("La imagen {} ya no existe, no se generan variantes", original);
+            return;
+        }
+        BufferedImage source;
+        try (InputStream in = resource.get().getInputStream()) {
+            source = decode(original, in);
+        }
+        if (source == null) {
+            return;
+        }
+        String format = outputFormat(original);
+        for (Variant variant : Variant.values()) {
+            String target = variantKey(original, variant);
+            if (imageStore.exists(target)) {
+                continue;
+            }
+            BufferedImage resized = resize(source, variant.getMaxSize(), "jpg".equals(format));
+            Path staging = imageStore.newStagingFile();
+            try {
+                write(resized, format, staging);
+                imageStore.put(target, staging);
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+        }
+        logger.debug("Variantes generadas para {}", original);
+    }
+
+    /**
+     * Decodifica el primer fotograma de una imagen comprobando antes sus dimensiones.
+     * Si el lado mayor es al menos el doble de {@link #MAX_DECODED_SIZE} se lee solo una de
+     * cada N filas y columnas, sin bajar de ese lado: sigue bastando para la variante mayor.
+     * Los JPEG se devuelven ya girados según su orientación EXIF.
+     *
+     * @param original Clave de la imagen original (para las trazas)
+     * @param in Contenido de la imagen
+     * @return Imagen decodificada o null si no se puede decodificar o excede el máximo de píxeles
+     * @throws IOException si hay un error al leer
+     */
+    BufferedImage decode(String original, InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("No se puede decodificar la imagen {}", original);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // La orientación se lee de los segmentos del JPEG: el lector de javax.imageio
+                // rechaza los metadatos de muchas fotos de móvil (APP1 antes de JFIF)
+                int orientation = "jpeg".equalsIgnoreCase(reader.getFormatName()) ? exifOrientation(input) : 1;
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Imagen {} demasiado grande ({}x{}), no se generan variantes", original, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(width, height) / MAX_DECODED_SIZE;
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage image = reader.read(0, param);
+                return orient(image, orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Lee la orientación EXIF (etiqueta 0x0112 del IFD0) del segmento APP1 de un JPEG, recorriendo
+     * los segmentos hasta el inicio de los datos. La posición del flujo no cambia.
+     *
+     * @param input JPEG posicionado en el marcador SOI
+     * @return Orientación de 1 a 8; 1 (sin girar) si no hay EXIF o no se puede leer
+     * @throws IOException si hay un error al leer
+     */
+    static int exifOrientation(ImageInputStream input) throws IOException {
+        input.mark();
+        try {
+            if (input.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = input.readUnsignedShort();
+                // SOS (empiezan los datos), EOI o un marcador no válido: ya no hay más cabeceras
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = input.readUnsignedShort();
+                if (length < 2) {
+                    return 1;
+                }
+                if (marker == 0xFFE1) {
+                    byte[] data = new byte[length - 2];
+                    input.readFully(data);
+                    int orientation = exifOrientation(data);
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    input.skipBytes(length - 2);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        } finally {
+            input.reset();
+        }
+    }
+
+    // APP1: "Exif\0\0", cabecera TIFF (orden de bytes, 42, desplazamiento del IFD0) y entradas de 12 bytes
+    private static int exifOrientation(byte[] app1) {
+        try {
+            ByteBuffer exif = ByteBuffer.wrap(app1);
+            if (app1.length < 14 || exif.getInt(0) != 0x45786966 || exif.getShort(4) != 0) {
+                return 0;
+            }
+            ByteBuffer tiff = exif.position(6).slice();
+            if (tiff.getShort(0) == 0x4949) {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (tiff.getShort(0) != 0x4D4D) {
+                return 0;
+            }
+            int ifd = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == EXIF_ORIENTATION_TAG) {
+                    int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                    return orientation >= 1 && orientation <= 8 ? orientation : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // EXIF truncado o corrupto: se trata como si no tuviera orientación
+        }
+        return 0;
+    }
+
+    /**
+     * Gira o voltea la imagen para que se vea como indica su orientación EXIF.
+     *
+     * @param image Imagen tal como está almacenada
+     * @param orientation Orientación EXIF (1 a 8)
+     * @return Imagen en su orientación visual
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // x' = m00·x + m01·y + m02, y' = m10·x + m11·y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // espejo horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // espejo vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // trasposición
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // 90° horario
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // trasposición inversa
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);  // 8: 90° antihorario
+        };
+        boolean swap = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    /**
+     * Clave de una variante: la del original con el nombre de la variante como sufijo.
+     * Los GIF se convierten a PNG (primer fotograma).
+     *
+     * @param original Clave de la imagen original
+     * @param variant Variante
+     * @return Clave de la variante (puede no existir todavía)
+     */
+    public String variantKey(String original, Variant variant) {
+        String baseName = original.substring(0, original.lastIndexOf('.'));
+        return baseName + "_" + variant.key() + "." + outputFormat(original);
+    }
+
+    /**
+     * Elimina las variantes de una imagen.
+     *
+     * @param original Clave de la imagen original
+     * @throws IOException si hay un error al borrar
+     */
+    public void deleteVariants(String original) throws IOException {
+        for (Variant variant : Variant.values()) {
+            imageStore.delete(variantKey(original, variant));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String outputFormat(String original) {
+        return original.endsWith(".jpg") ? "jpg" : "png";
+    }
+
+    // Reduce a la mitad por pasos para no perder calidad en reducciones grandes
+    private static BufferedImage resize(BufferedImage source, int maxSize, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            // Sin metadatos: la variante no arrastra EXIF del original
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.exceptions.ResourceAlreadyExistsException;
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.payload.response.ProfilingReport;
+import api_recipes.payload.response.ProfilingSession;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Grabaciones de Java Flight Recorder bajo demanda, con perfiles predefinidos.
+ *
+ * Solo puede haber una grabación en curso. Cada una se detiene sola al cumplir su duración
+ * máxima y se guarda en {@code api_recipes.profiling.dir}, donde se conservan las últimas
+ * {@code api_recipes.profiling.keep}. Al detenerla se resume en los N métodos más calientes,
+ * los puntos que más memoria reservan y los que más tiempo esperan por bloqueos.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class ProfilingService {
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingService.class);
+    private static final Pattern RECORDING_ID = Pattern.compile("^(cpu|allocation|locks)-\\d+$");
+    private static final String EXTENSION = ".jfr";
+    private static final int MAX_TOP = 100;
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+    // Esperas de hilos de pools sin trabajo: no son contención
+    private static final Set<String> IDLE_WAITS = Set.of(
+            "java.util.concurrent.ThreadPoolExecutor.getTask",
+            "java.util.concurrent.ForkJoinPool.awaitWork",
+            "java.util.concurrent.ScheduledThreadPoolExecutor$DelayedWorkQueue.take",
+            "org.apache.tomcat.util.threads.TaskQueue.take",
+            "org.apache.tomcat.util.threads.TaskQueue.poll");
+
+    /**
+     * Perfiles de grabación.
+     */
+    public enum Profile {
+        // Muestras de pila de los hilos en ejecución
+        CPU,
+        // Muestras de reservas de memoria, ponderadas por bytes
+        ALLOCATION,
+        // Esperas por monitores, park y anclaje de hilos virtuales por encima del umbral
+        LOCKS
+    }
+
+    private final Path dir;
+    private final int keep;
+    private final long maxDurationSeconds;
+    private final long lockThresholdMs;
+
+    private Recording recording;
+    private ProfilingSession session;
+
+    /**
+     * Constructor del servicio de perfilado.
+     *
+     * @param dir Directorio de las grabaciones
+     * @param keep Grabaciones que se conservan en disco
+     * @param maxDurationSeconds Duración máxima que se puede pedir
+     * @param lockThresholdMs Espera mínima para registrar un evento del perfil LOCKS
+     */
+    public ProfilingService(@Value("${api_recipes.profiling.dir:profiling}") String dir,
+                            @Value("${api_recipes.profiling.keep:10}") int keep,
+                            @Value("${api_recipes.profiling.maxDurationSeconds:600}") long maxDurationSeconds,
+                            @Value("${api_recipes.profiling.lockThresholdMs:10}") long lockThresholdMs) {
+        this.dir = Paths.get(dir);
+        this.keep = keep;
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.lockThresholdMs = lockThresholdMs;
+    }
+
+    /**
+     * Empieza una grabación.
+     *
+     * @param profileName Perfil de eventos: CPU, ALLOCATION o LOCKS
+     * @param durationSeconds Tiempo tras el que se detiene sola
+     * @return La sesión en curso
+     * @throws ResourceAlreadyExistsException Si ya hay una grabación en curso
+     */
+    public synchronized ProfilingSession start(String profileName, long durationSeconds) throws IOException {
+        Profile profile = Arrays.stream(Profile.values())
+                .filter(candidate -> candidate.name().equalsIgnoreCase(profileName))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestException("Perfil no válido: " + profileName
+                        + ". Valores permitidos: " + Arrays.toString(Profile.values())));
+        if (durationSeconds < 1 || durationSeconds > maxDurationSeconds) {
+            throw new InvalidRequestException("La duración debe estar entre 1 y " + maxDurationSeconds + " segundos");
+        }
+        if (isRunning()) {
+            throw new ResourceAlreadyExistsException("Ya hay una grabación en curso: " + session.getRecordingId());
+        }
+        closeRecording();
+        Files.createDirectories(dir);
+        prune();
+
+        String recordingId = profile.name().toLowerCase() + "-" + System.currentTimeMillis();
+        Recording newRecording = new Recording(settings(profile));
+        newRecording.setName("api_recipes " + recordingId);
+        newRecording.setToDisk(true);
+        newRecording.setDuration(Duration.ofSeconds(durationSeconds));
+        newRecording.setDestination(file(recordingId));
+        newRecording.start();
+        recording = newRecording;
+
+        session = new ProfilingSession();
+        session.setRecordingId(recordingId);
+        session.setProfile(profile.name());
+        session.setStartTime(Instant.now());
+        session.setMaxDurationSeconds(durationSeconds);
+        session.setRunning(true);
+        logger.info("Grabación JFR {} iniciada ({} s como máximo)", recordingId, durationSeconds);
+        return session;
+    }
+
+    /**
+     * Estado de la última grabación lanzada.
+     */
+    public synchronized ProfilingSession status() {
+        if (session == null) {
+            throw new ResourceNotFoundException("No se ha lanzado ninguna grabación");
+        }
+        session.setRunning(isRunning());
+        return session;
+    }
+
+    /**
+     * Detiene la grabación en curso (o recoge la que ya se detuvo sola) y la resume.
+     *
+     * @param top Entradas de cada lista del resumen
+     */
+    public synchronized ProfilingReport stop(int top) throws IOException {
+        checkTop(top);
+        if (recording == null) {
+            throw new InvalidRequestException("No hay ninguna grabación que detener");
+        }
+        String recordingId = session.getRecordingId();
+        // Al detenerse, JFR escribe la grabación en su destino
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        closeRecording();
+        session.setRunning(false);
+        logger.info("Grabación JFR {} detenida", recordingId);
+        return summarize(recordingId, top);
+    }
+
+    /**
+     * Resume una grabación guardada.
+     *
+     * @param recordingId Identificador de la grabación
+     * @param top Entradas de cada lista del resumen
+     */
+    public ProfilingReport summarize(String recordingId, int top) throws IOException {
+        checkTop(top);
+        Path file = recordingFile(recordingId);
+
+        Map<String, Long> cpu = new HashMap<>();
+        Map<String, Long> allocation = new HashMap<>();
+        Map<String, Long> locksNanos = new HashMap<>();
+        Instant first = null;
+        Instant last = null;
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                first = first == null || event.getStartTime().isBefore(first) ? event.getStartTime() : first;
+                last = last == null || event.getEndTime().isAfter(last) ? event.getEndTime() : last;
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> count(cpu, topFrame(event.getStackTrace()), 1);
+                    case "jdk.ObjectAllocationSample" ->
+                            count(allocation, applicationFrame(event.getStackTrace()), event.getLong("weight"));
+                    case "jdk.JavaMonitorEnter", "jdk.ThreadPark", "jdk.VirtualThreadPinned" -> {
+                        if (!isIdleWait(event.getStackTrace())) {
+                            count(locksNanos, applicationFrame(event.getStackTrace()), event.getDuration().toNanos());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        Map<String, Long> locks = new HashMap<>();
+        locksNanos.forEach((frame, nanos) -> locks.put(frame, Duration.ofNanos(nanos).toMillis()));
+
+        ProfilingReport report = new ProfilingReport();
+        report.setRecordingId(recordingId);
+        report.setProfile(recordingId.substring(0, recordingId.indexOf('-')).toUpperCase());
+        report.setDurationMs(first != null ? Duration.between(first, last).toMillis() : 0);
+        report.setSizeBytes(Files.size(file));
+        report.setDownloadUrl("/api/admin/profiling/recordings/" + recordingId + "/file");
+        report.setHotMethods(top(cpu, top));
+        report.setAllocationSites(top(allocation, top));
+        report.setLockSites(top(locks, top));
+        return report;
+    }
+
+    /**
+     * Fichero .jfr de una grabación guardada.
+     *
+     * @throws ResourceNotFoundException Si el identificador no es válido o el fichero ya no existe
+     */
+    public Path recordingFile(String recordingId) {
+        if (recordingId == null || !RECORDING_ID.matcher(recordingId).matches()) {
+            throw new ResourceNotFoundException("Grabación '" + recordingId + "' no encontrada");
+        }
+        Path file = file(recordingId);
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Grabación '" + recordingId + "' no encontrada");
+        }
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        closeRecording();
+    }
+
+    private static void checkTop(int top) {
+        if (top < 1 || top > MAX_TOP) {
+            throw new InvalidRequestException("El número de entradas debe estar entre 1 y " + MAX_TOP);
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Path file(String recordingId) {
+        return dir.resolve(recordingId + EXTENSION);
+    }
+
+    private Map<String, String> settings(Profile profile) {
+        Map<String, String> settings = new HashMap<>();
+        String threshold = lockThresholdMs + " ms";
+        switch (profile) {
+            case CPU -> {
+                settings.put("jdk.ExecutionSample#enabled", "true");
+                settings.put("jdk.ExecutionSample#period", "10 ms");
+            }
+            case ALLOCATION -> {
+                settings.put("jdk.ObjectAllocationSample#enabled", "true");
+                settings.put("jdk.ObjectAllocationSample#throttle", "300/s");
+                settings.put("jdk.ObjectAllocationSample#stackTrace", "true");
+            }
+            case LOCKS -> {
+                for (String event : List.of("jdk.JavaMonitorEnter", "jdk.ThreadPark", "jdk.VirtualThreadPinned")) {
+                    settings.put(event + "#enabled", "true");
+                    settings.put(event + "#threshold", threshold);
+                    settings.put(event + "#stackTrace", "true");
+                }
+            }
+        }
+        return settings;
+    }
+
+    // Borra las grabaciones más antiguas (por el instante de su identificador) para dejar sitio a la nueva
+    private void prune() throws IOException {
+        List<Path> recordings;
+        try (Stream<Path> files = Files.list(dir)) {
+            recordings = files.filter(path -> RECORDING_ID.matcher(recordingId(path)).matches())
+                    .sorted(Comparator.comparingLong(ProfilingService::startMillis).reversed())
+                    .toList();
+        }
+        for (Path old : recordings.subList(Math.min(recordings.size(), Math.max(keep - 1, 0)), recordings.size())) {
+            Files.deleteIfExists(old);
+            logger.info("Grabación JFR antigua borrada: {}", old.getFileName());
+        }
+    }
+
+    private static String recordingId(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(EXTENSION) ? name.substring(0, name.length() - EXTENSION.length()) : name;
+    }
+
+    private static long startMillis(Path file) {
+        String recordingId = recordingId(file);
+        return Long.parseLong(recordingId.substring(recordingId.indexOf('-') + 1));
+    }
+
+    private static void count(Map<String, Long> weights, String frame, long weight) {
+        if (frame != null) {
+            weights.merge(frame, weight, Long::sum);
+        }
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return null;
+        }
+        return describe(stackTrace.getFrames().get(0));
+    }
+
+    // Primer marco fuera del JDK: en reservas y esperas el marco superior es casi siempre del JDK
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (JDK_PACKAGES.stream().noneMatch(type::startsWith)) {
+                return describe(frame);
+            }
+        }
+        return describe(stackTrace.getFrames().get(0));
+    }
+
+    private static boolean isIdleWait(RecordedStackTrace stackTrace) {
+        return stackTrace != null && stackTrace.getFrames().stream().anyMatch(frame -> IDLE_WAITS.contains(describe(frame)));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static List<ProfilingReport.Entry> top(Map<String, Long> weights, int top) {
+        long total = weights.values().stream().mapToLong(Long::longValue).sum();
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(top)
+                .map(entry -> new ProfilingReport.Entry(entry.getKey(), entry.getValue(),
+                        total == 0 ? 0 : Math.round(entry.getValue() * 1000.0 / total) / 10.0))
+                .toList();
+    }
+}
@@ -13,6 +13,7 @@ import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
@@ -32,6 +33,7 @@ import java.util.stream.Collectors;
 @Service
 public class RecipeService {
     private static final Logger logger = LoggerFactory.getLogger(RecipeService.class);
+    static final int MAX_POPULAR = 50;
 
     private final RecipeRepository recipeRepository;
     private final RecipeMapper recipeMapper;
@@ -62,8 +64,30 @@ public class RecipeService {
      */
     public Page<RecipeDto> getAllRecipes(Pageable pageable) {
         logger.info("Obteniendo todas las recetas paginadas");
-        Page<Recipe> recipePage = recipeRepository.findAllWithRelationships(pageable);
-        return recipePage.map(recipe -> recipeMapper.toDTO(recipe));
+        Page<Long> ids = recipeRepository.findPageIds(pageable);
+        Map<Long, Recipe> recipes = new HashMap<>();
+        recipeRepository.findAllWithRelationshipsByIdIn(ids.getContent())
+                .forEach(recipe -> recipes.put(recipe.getId(), recipe));
+        // Se conserva el orden de la página
+        return ids.map(id -> recipeMapper.toDTO(recipes.get(id)));
+    }
+
+    /**
+     * Obtiene las recetas más populares.
+     *
+     * @param limit Número máximo de recetas, como máximo {@link #MAX_POPULAR}
+     * @return Recetas ordenadas de más a menos popular
+     * @throws InvalidRequestException si el límite no es positivo
+     */
+    public List<RecipeDto> getPopularRecipes(int limit) {
+        if (limit < 1) {
+            throw new InvalidRequestException("El número de recetas debe ser mayor que 0");
+        }
+        int size = Math.min(limit, MAX_POPULAR);
+        logger.info("Obteniendo las {} recetas más populares", size);
+        return recipeRepository.findByOrderByPopularityDescIdDesc(Limit.of(size)).stream()
+                .map(recipeMapper::toDTO)
+                .toList();
     }
 
     /**
@@ -75,7 +99,7 @@ public class RecipeService {
      */
     public RecipeDto getRecipeById(Long id) {
         logger.info("Buscando receta por ID: {}", id);
-        return recipeRepository.findById(id)
+        return recipeRepository.findWithRelationshipsById(id)
                 .map(recipeMapper::toDTO)
                 .orElseThrow(() -> {
                     logger.error("Receta no encontrada con ID: {}", id);
@@ -175,7 +199,9 @@ public class RecipeService {
             throw new AccessDeniedException("No tienes permiso para eliminar esta receta");
         }
 
-        recipeRepository.delete(recipe);
+        // Borrado en bloque: ingredientes, favoritos y categorías caen por ON DELETE CASCADE
+        // sin cargar las colecciones de la receta
+        recipeRepository.deleteByIds(List.of(recipeId));
         logger.info("Receta eliminada exitosamente - ID: {}", recipeId);
     }
 
@@ -253,11 +279,10 @@ public class RecipeService {
      * @param ingredients Lista de ingredientes a validar
      * @throws InvalidRequestException si hay ingredientes duplicados
      */
-    private void validateUniqueIngredients(Set<RecipeIngredientRequest> ingredients) {
+    void validateUniqueIngredients(Set<RecipeIngredientRequest> ingredients) {
         logger.debug("Validando ingredientes únicos");
         Set<Long> uniqueIds = new HashSet<>();
         for (RecipeIngredientRequest req : ingredients) {
-            System.out.println(req.getIngredientId());
             if (!uniqueIds.add(req.getIngredientId())) {
                 logger.error("Ingrediente duplicado encontrado - ID: {}", req.getIngredientId());
                 throw new InvalidRequestException("Ingrediente duplicado con ID " + req.getIngredientId());
@@ -271,7 +296,7 @@ public class RecipeService {
      * @param recipe Receta a actualizar
      * @param ingredientRequests Lista de ingredientes a asignar
      */
-    private void updateRecipeIngredients(Recipe recipe, Set<RecipeIngredientRequest> ingredientRequests) {
+    void updateRecipeIngredients(Recipe recipe, Set<RecipeIngredientRequest> ingredientRequests) {
         logger.debug("Actualizando ingredientes de la receta - ID: {}", recipe.getId());
         Set<RecipeIngredient> existingIngredients = recipe.getRecipeIngredients();
 
@@ -354,12 +379,11 @@ public class RecipeService {
 
     public List<RecipeDto> getRecipesByUserId(Long userId) {
   
-       // Verificar si el usuario tiene recetas
-       if (recipeRepository.findByUserId(userId).isEmpty()) {
-        throw new ResourceNotFoundException("El usuario con ID: " + userId + " no tiene recetas");
-       }
        // Obtener todas las recetas del usuario
        List<Recipe> recipes = recipeRepository.findByUserId(userId);
+       if (recipes.isEmpty()) {
+        throw new ResourceNotFoundException("El usuario con ID: " + userId + " no tiene recetas");
+       }
 
        return recipes.stream().map(recipeMapper::toDTO).collect(Collectors.toList());
     }
@@ -0,0 +1,85 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.models.Role;
+import api_recipes.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Registro en memoria de los roles del sistema.
+ *
+ * Los roles son tres filas fijas que siembra la migración {@code V8__seed_data.sql}; se cargan
+ * una sola vez al arrancar, de modo que el registro y la actualización de usuarios los resuelven
+ * sin consultar la base de datos. Si falta alguno la aplicación no arranca. Las instancias quedan desligadas de cualquier sesión, pero tienen su id y sirven para
+ * asignarlas a un usuario (la relación no propaga operaciones a los roles).
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class RoleRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+    private final RoleRepository roleRepository;
+    private final Map<Role.RoleName, Role> roles = new EnumMap<>(Role.RoleName.class);
+
+    /**
+     * Constructor del registro de roles.
+     *
+     * @param roleRepository Repositorio de roles
+     */
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Carga los roles en memoria.
+     *
+     * @throws IllegalStateException si falta algún rol en la base de datos
+     */
+    @PostConstruct
+    public void load() {
+        Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+        roleRepository.findAll().forEach(role -> loaded.putIfAbsent(role.getName(), role));
+        for (Role.RoleName name : Role.RoleName.values()) {
+            if (!loaded.containsKey(name)) {
+                logger.error("Falta el rol {} en la tabla roles", name);
+                throw new IllegalStateException("Falta el rol " + name + " en la tabla roles; ¿se aplicaron las migraciones?");
+            }
+        }
+        roles.putAll(loaded);
+        logger.info("Roles cargados: {}", roles.keySet());
+    }
+
+    /**
+     * Obtiene un rol.
+     *
+     * @param name Nombre del rol
+     * @return Rol con su id
+     */
+    public Role get(Role.RoleName name) {
+        return roles.get(name);
+    }
+
+    /**
+     * Obtiene un rol a partir de su nombre, sin distinguir mayúsculas.
+     *
+     * @param name Nombre del rol, por ejemplo {@code role_admin}
+     * @return Rol con su id
+     * @throws InvalidRequestException si el nombre no corresponde a ningún rol
+     */
+    public Role resolve(String name) {
+        try {
+            return get(Role.RoleName.valueOf(name.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            logger.error("Rol inválido: {}", name);
+            throw new InvalidRequestException("Rol inválido: " + name);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package api_recipes.services;
+
+import api_recipes.repository.TokenUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Servicio que elimina en segundo plano los tokens de restablecimiento caducados.
+ *
+ * Borra por tramos de tamaño fijo, cada uno en su propia transacción corta, para no mantener
+ * bloqueos largos sobre {@code tokens}. Cada tramo se localiza en el orden del índice de
+ * caducidad y se borra por clave primaria. El borrado es idempotente: si varios nodos lo ejecutan
+ * a la vez, cada fila la elimina solo uno y los demás simplemente borran menos.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class TokenPurgeService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenPurgeService.class);
+
+    private final TokenUserRepository tokenUserRepository;
+    private final TransactionOperations transactionOperations;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+
+    /**
+     * Constructor del servicio de purga.
+     *
+     * @param tokenUserRepository Repositorio de tokens de usuario
+     * @param transactionOperations Plantilla de transacciones para cada tramo
+     * @param meterRegistry Registro de métricas
+     * @param chunkSize Filas borradas por sentencia
+     * @param maxChunks Tramos máximos por ejecución (el resto queda para la siguiente)
+     */
+    public TokenPurgeService(TokenUserRepository tokenUserRepository, TransactionOperations transactionOperations,
+                             MeterRegistry meterRegistry,
+                             @Value("${api_recipes.tokens.purge.chunkSize:1000}") int chunkSize,
+                             @Value("${api_recipes.tokens.purge.maxChunks:100}") int maxChunks) {
+        this.tokenUserRepository = tokenUserRepository;
+        this.transactionOperations = transactionOperations;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.purgedCounter = Counter.builder("tokens.purge.deleted")
+                .description("Tokens de restablecimiento caducados eliminados")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("tokens.purge.duration")
+                .description("Duración de cada ejecución de la purga de tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Elimina los tokens caducados por tramos.
+     *
+     * @return Número total de tokens eliminados
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.tokens.purge.intervalMs:3600000}",
+            initialDelayString = "${api_recipes.tokens.purge.initialDelayMs:60000}")
+    public int purgeExpired() {
+        Timer.Sample sample = Timer.start();
+        Date now = new Date();
+        int total = 0;
+        int chunks = 0;
+        int found;
+        do {
+            List<Long> ids = tokenUserRepository.findExpiredIds(now, chunkSize);
+            found = ids.size();
+            if (found == 0) {
+                break;
+            }
+            int deleted = Objects.requireNonNullElse(transactionOperations.execute(
+                    status -> tokenUserRepository.deleteByIds(ids)), 0);
+            total += deleted;
+            purgedCounter.increment(deleted);
+            chunks++;
+        } while (found == chunkSize && chunks < maxChunks);
+        long nanos = sample.stop(purgeTimer);
+
+        if (total > 0) {
+            logger.info("Purga de tokens caducados - eliminados: {}, tramos: {}, duración: {} ms",
+                    total, chunks, nanos / 1_000_000);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,271 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.models.UserDeletionJob;
+import api_recipes.repository.*;
+import api_recipes.repository.RecipeRepository.RecipeImage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Servicio que elimina usuarios en segundo plano, por tramos y con borrados en bloque.
+ *
+ * La petición solo registra un {@link UserDeletionJob} y responde. El trabajo borra primero los
+ * favoritos del usuario y después sus recetas de {@code chunkSize} en {@code chunkSize}: cada
+ * tramo elimina favoritos y recetas con una sentencia cada uno (ingredientes y categorías los
+ * borra la base de datos en cascada) y guarda el progreso en la misma transacción corta. Todos los pasos son idempotentes, así que
+ * si el proceso cae otro nodo (o el mismo al arrancar) retoma el trabajo cuando deja de avanzar
+ * durante {@code leaseMs}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Service
+public class UserDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(UserDeletionService.class);
+    private static final EnumSet<UserDeletionJob.Status> ACTIVE =
+            EnumSet.of(UserDeletionJob.Status.PENDING, UserDeletionJob.Status.RUNNING);
+
+    private final UserDeletionJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final RecipeRepository recipeRepository;
+    private final FavoriteRepository favoriteRepository;
+    private final TokenUserRepository tokenRepository;
+    private final ImageUploadService imageUploadService;
+    private final TransactionOperations transactionOperations;
+    private final int chunkSize;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor del servicio de borrado de usuarios.
+     *
+     * @param transactionOperations Plantilla de transacciones para cada tramo
+     * @param chunkSize Recetas (o favoritos) borrados por tramo
+     * @param leaseMs Tiempo sin avanzar tras el cual un trabajo en curso se da por abandonado
+     * @param maxAttempts Intentos antes de marcar el trabajo como fallido
+     */
+    public UserDeletionService(UserDeletionJobRepository jobRepository, UserRepository userRepository,
+                               RecipeRepository recipeRepository, FavoriteRepository favoriteRepository,
+                               TokenUserRepository tokenRepository, ImageUploadService imageUploadService,
+                               TransactionOperations transactionOperations,
+                               @Value("${api_recipes.users.deletion.chunkSize:200}") int chunkSize,
+                               @Value("${api_recipes.users.deletion.leaseMs:300000}") long leaseMs,
+                               @Value("${api_recipes.users.deletion.maxAttempts:5}") int maxAttempts) {
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.recipeRepository = recipeRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.tokenRepository = tokenRepository;
+        this.imageUploadService = imageUploadService;
+        this.transactionOperations = transactionOperations;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        // Un solo hilo: los borrados compiten por las mismas tablas, en paralelo no irían más rápido
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-deletion");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Registra el borrado de un usuario y lo lanza en segundo plano. Si ya hay un borrado en
+     * curso para el usuario, devuelve ese.
+     *
+     * @param userId ID del usuario a eliminar
+     * @return Trabajo de borrado
+     * @throws ResourceNotFoundException si el usuario no existe
+     */
+    public UserDeletionJob requestDeletion(Long userId) {
+        UserDeletionJob job = transactionOperations.execute(status -> {
+            if (!userRepository.existsById(userId)) {
+                logger.error("Usuario no encontrado para eliminación - ID: {}", userId);
+                throw new ResourceNotFoundException("No se encontró el usuario con ID: " + userId);
+            }
+            return jobRepository.findFirstByUserIdAndStatusIn(userId, ACTIVE).orElseGet(() -> {
+                Date now = new Date();
+                return jobRepository.save(UserDeletionJob.builder()
+                        .userId(userId)
+                        .status(UserDeletionJob.Status.PENDING)
+                        .totalRecipes(recipeRepository.countByUserId(userId))
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build());
+            });
+        });
+        logger.info("Borrado de usuario registrado - usuario: {}, trabajo: {}", userId, job.getId());
+        submit(job.getId());
+        return job;
+    }
+
+    /**
+     * Obtiene un trabajo de borrado.
+     *
+     * @param jobId ID del trabajo
+     * @return Trabajo con su progreso
+     * @throws ResourceNotFoundException si el trabajo no existe
+     */
+    public UserDeletionJob getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("No se encontró el borrado con ID: " + jobId));
+    }
+
+    /**
+     * Retoma los trabajos pendientes y los abandonados (por ejemplo, tras una caída).
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.users.deletion.resumeIntervalMs:60000}",
+            initialDelayString = "${api_recipes.users.deletion.resumeInitialDelayMs:30000}")
+    public void resumeJobs() {
+        List<Long> jobIds = jobRepository.findResumableIds(new Date(System.currentTimeMillis() - leaseMs));
+        if (!jobIds.isEmpty()) {
+            logger.info("Retomando {} borrados de usuario", jobIds.size());
+            jobIds.forEach(this::submit);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            // Queda en PENDING: lo recogerá la siguiente pasada de resumeJobs
+            logger.warn("Cola de borrados de usuario llena, el trabajo {} esperará a la siguiente pasada", jobId);
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo si consigue reclamarlo.
+     *
+     * @param jobId ID del trabajo
+     */
+    void run(Long jobId) {
+        Date now = new Date();
+        Integer claimed = transactionOperations.execute(
+                status -> jobRepository.claim(jobId, now, new Date(now.getTime() - leaseMs)));
+        if (!Objects.equals(claimed, 1)) {
+            return;
+        }
+        Long userId = getJob(jobId).getUserId();
+        logger.info("Iniciando borrado de usuario - usuario: {}, trabajo: {}", userId, jobId);
+        try {
+            deleteFavorites(jobId, userId);
+            deleteRecipes(jobId, userId);
+            deleteUser(jobId, userId);
+            logger.info("Usuario y todas sus relaciones eliminadas exitosamente - ID: {}", userId);
+        } catch (RuntimeException e) {
+            logger.error("Error en el borrado del usuario {} (trabajo {}): {}", userId, jobId, e.getMessage());
+            fail(jobId, e);
+        }
+    }
+
+    // Favoritos que el usuario ha marcado en recetas de otros
+    private void deleteFavorites(Long jobId, Long userId) {
+        int deleted;
+        do {
+            deleted = Objects.requireNonNullElse(transactionOperations.execute(status -> {
+                int count = favoriteRepository.deleteChunkByUserId(userId, chunkSize);
+                progress(jobId, job -> job.setDeletedFavorites(job.getDeletedFavorites() + count));
+                return count;
+            }), 0);
+        } while (deleted == chunkSize);
+    }
+
+    private void deleteRecipes(Long jobId, Long userId) {
+        List<RecipeImage> chunk;
+        do {
+            chunk = transactionOperations.execute(status -> {
+                List<RecipeImage> recipes = recipeRepository.findByUserIdOrderById(userId, PageRequest.of(0, chunkSize));
+                if (recipes.isEmpty()) {
+                    return recipes;
+                }
+                List<Long> ids = recipes.stream().map(RecipeImage::getId).toList();
+                // Se cuentan antes para el progreso; ingredientes y categorías caen con la receta
+                int favorites = favoriteRepository.deleteByRecipeIds(ids);
+                recipeRepository.deleteByIds(ids);
+                progress(jobId, job -> {
+                    job.setDeletedRecipes(job.getDeletedRecipes() + ids.size());
+                    job.setDeletedFavorites(job.getDeletedFavorites() + favorites);
+                });
+                return recipes;
+            });
+            // Tras confirmar el tramo: las imágenes solo se liberan si las recetas ya no existen
+            releaseImages(chunk);
+        } while (chunk.size() == chunkSize);
+    }
+
+    private void deleteUser(Long jobId, Long userId) {
+        transactionOperations.executeWithoutResult(status -> {
+            tokenRepository.deleteAllByUserId(userId);
+            userRepository.findById(userId).ifPresent(userRepository::delete);
+            progress(jobId, job -> {
+                job.setStatus(UserDeletionJob.Status.COMPLETED);
+                job.setFinishedAt(new Date());
+                job.setLastError(null);
+            });
+        });
+    }
+
+    // Si el proceso cae entre el tramo y este paso, las imágenes quedan huérfanas y las recoge el recolector
+    private void releaseImages(List<RecipeImage> recipes) {
+        for (RecipeImage recipe : recipes) {
+            if (recipe.getImageUrl() == null) {
+                continue;
+            }
+            try {
+                imageUploadService.deleteImage(recipe.getImageUrl(), "recipes", recipe.getId());
+                imageUploadService.deleteDirectoryAndImage("recipes", recipe.getId());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("No se pudo liberar la imagen de la receta {}: {}", recipe.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Se llama dentro de la transacción del tramo: el progreso se confirma junto con el borrado
+    private void progress(Long jobId, Consumer<UserDeletionJob> update) {
+        UserDeletionJob job = getJob(jobId);
+        update.accept(job);
+        job.setUpdatedAt(new Date());
+        jobRepository.save(job);
+    }
+
+    private void fail(Long jobId, RuntimeException error) {
+        transactionOperations.executeWithoutResult(status -> {
+            UserDeletionJob job = getJob(jobId);
+            job.setAttempts(job.getAttempts() + 1);
+            String message = Objects.toString(error.getMessage(), error.getClass().getSimpleName());
+            job.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            job.setUpdatedAt(new Date());
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(UserDeletionJob.Status.FAILED);
+                job.setFinishedAt(new Date());
+            } else {
+                job.setStatus(UserDeletionJob.Status.PENDING);
+            }
+            jobRepository.save(job);
+        });
+    }
+}
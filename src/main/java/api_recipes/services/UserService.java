@@ -1,31 +1,26 @@
 package api_recipes.services;
 
-import api_recipes.exceptions.ImageProcessingException;
 import api_recipes.exceptions.InvalidRequestException;
 import api_recipes.exceptions.ResourceAlreadyExistsException;
 import api_recipes.exceptions.ResourceNotFoundException;
 import api_recipes.mapper.UserMapper;
 import api_recipes.models.Role;
-import api_recipes.models.Favorite;
-import api_recipes.models.Recipe;
 import api_recipes.models.User;
 import api_recipes.payload.dto.UserDto;
 import api_recipes.payload.request.SignupRequest;
 import api_recipes.payload.request.UserRequest;
-import api_recipes.repository.RoleRepository;
-import api_recipes.repository.TokenUserRepository;
+import api_recipes.payload.response.KeysetPage;
 import api_recipes.repository.UserRepository;
-import api_recipes.repository.FavoriteRepository;
-import api_recipes.repository.RecipeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.io.IOException;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -42,36 +37,23 @@ public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder encoder;
-    private final RecipeRepository recipeRepository;
-    private final ImageUploadService imageUploadService;
-    private final FavoriteRepository favoriteRepository;
-    private final TokenUserRepository tokenRepository;
 
     /**
      * Constructor del servicio de usuarios.
      *
      * @param userRepository Repositorio de usuarios
      * @param userMapper Mapper para convertir entre entidades y DTOs
-     * @param roleRepository Repositorio de roles
+     * @param roleRegistry Registro en memoria de los roles
      * @param passwordEncoder Codificador de contraseñas
-     * @param recipeRepository Repositorio de recetas
-     * @param imageUploadService Servicio de carga de imágenes
-     * @param favoriteRepository Repositorio de favoritos
-     * @param tokenRepository Repositorio de tokens
      */
-    public UserService(UserRepository userRepository, UserMapper userMapper, RoleRepository roleRepository,
-            PasswordEncoder passwordEncoder, RecipeRepository recipeRepository, ImageUploadService imageUploadService,
-            FavoriteRepository favoriteRepository, TokenUserRepository tokenRepository) {
+    public UserService(UserRepository userRepository, UserMapper userMapper, RoleRegistry roleRegistry,
+            PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.encoder = passwordEncoder;
-        this.recipeRepository = recipeRepository;
-        this.imageUploadService = imageUploadService;
-        this.favoriteRepository = favoriteRepository;
-        this.tokenRepository = tokenRepository;
     }
 
     /**
@@ -81,23 +63,69 @@ public class UserService {
      * @param pageSize Tamaño de la página
      * @return Página de usuarios convertidos a DTOs
      */
+    @Transactional(readOnly = true)
     public Page<UserDto> getAllPageableUser(int page, int pageSize) {
         logger.info("Obteniendo usuarios paginados - página: {}, tamaño: {}", page, pageSize);
-        Pageable pageable = PageRequest.of(page, pageSize);
+        Pageable pageable = PageRequest.of(page, pageSizeOf(pageSize), Sort.by("id"));
         return userRepository.findAll(pageable).map(userMapper::toDTO);
     }
 
     /**
-     * Obtiene todos los usuarios del sistema.
+     * Obtiene una página de usuarios ordenados por id, a partir de un cursor.
+     * Cada página son dos consultas (usuarios y sus roles) sea cual sea su posición en el listado.
      *
-     * @return Lista de usuarios convertidos a DTOs
+     * @param after ID del último usuario de la página anterior (null para la primera)
+     * @param pageSize Tamaño de la página, como máximo {@link User#ROLES_BATCH_SIZE}
+     * @return Página de usuarios y cursor de la siguiente
      */
-    public List<UserDto> getAllUsers() {
-        logger.info("Obteniendo todos los usuarios");
-        return userRepository.findAll()
-                .stream()
-                .map(userMapper::toDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDto> getUsersAfter(Long after, int pageSize) {
+        int size = pageSizeOf(pageSize);
+        logger.info("Obteniendo usuarios tras el ID: {}, tamaño: {}", after, size);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(size));
+        List<UserDto> content = users.stream().map(userMapper::toDTO).toList();
+        Long nextCursor = users.size() == size ? users.get(users.size() - 1).getId() : null;
+        return new KeysetPage<>(content, content.size(), nextCursor);
+    }
+
+    /**
+     * Busca usuarios cuyo nombre o email empiece por el texto dado, sin distinguir mayúsculas.
+     * Primero van las coincidencias por nombre y después las de email.
+     *
+     * @param query Prefijo a buscar
+     * @param limit Número máximo de resultados, como máximo {@link User#ROLES_BATCH_SIZE}
+     * @return Usuarios encontrados
+     * @throws InvalidRequestException si el texto está vacío
+     */
+    @Transactional(readOnly = true)
+    public List<UserDto> searchUsers(String query, int limit) {
+        String prefix = User.normalize(query);
+        if (prefix == null || prefix.isEmpty()) {
+            throw new InvalidRequestException("El texto de búsqueda no puede estar vacío");
+        }
+        int size = pageSizeOf(limit);
+        logger.info("Buscando usuarios por prefijo: {}, límite: {}", prefix, size);
+
+        Map<Long, User> found = new LinkedHashMap<>();
+        userRepository.findByUsernameNormalizedStartingWithOrderByUsernameNormalized(prefix, Limit.of(size))
+                .forEach(user -> found.put(user.getId(), user));
+        if (found.size() < size) {
+            for (User user : userRepository.findByEmailNormalizedStartingWithOrderByEmailNormalized(prefix, Limit.of(size))) {
+                if (found.size() == size) {
+                    break;
+                }
+                found.putIfAbsent(user.getId(), user);
+            }
+        }
+        return found.values().stream().map(userMapper::toDTO).toList();
+    }
+
+    // Con más usuarios por página que el lote de roles volverían las consultas por usuario
+    private static int pageSizeOf(int pageSize) {
+        if (pageSize < 1) {
+            throw new InvalidRequestException("El tamaño de página debe ser mayor que 0");
+        }
+        return Math.min(pageSize, User.ROLES_BATCH_SIZE);
     }
 
     /**
@@ -146,11 +174,7 @@ public class UserService {
 
         Set<Role> roles = assignRoles(signUpRequest.getRoles());
         if (roles.isEmpty()) {
-            roles.add(roleRepository.findByName(Role.RoleName.ROLE_USER)
-                    .orElseThrow(() -> {
-                        logger.error("Rol por defecto ROLE_USER no encontrado");
-                        return new ResourceNotFoundException("Rol por defecto no encontrado.");
-                    }));
+            roles.add(roleRegistry.get(Role.RoleName.ROLE_USER));
         }
         user.setRoles(roles);
         User savedUser = userRepository.save(user);
@@ -204,56 +228,11 @@ public class UserService {
         return userMapper.toDTO(updatedUser);
     }
 
-    /**
-     * Elimina un usuario y todas sus relaciones del sistema.
-     *
-     * @param userId ID del usuario a eliminar
-     * @throws ResourceNotFoundException si el usuario no existe
-     * @throws ImageProcessingException si hay un error al eliminar archivos asociados
-     */
-    @Transactional
-    public void deleteUserAndRelations(Long userId)  {
-        logger.info("Iniciando eliminación de usuario y sus relaciones - ID: {}", userId);
-        
-        User deleteUser = userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado para eliminación - ID: {}", userId);
-                    return new ResourceNotFoundException("No se encontró el usuario con ID: " + userId);
-                });
-
-        tokenRepository.deleteAllByUserId(userId);
-        logger.debug("Tokens eliminados para usuario - ID: {}", userId);
-
-        List<Favorite> userFavorites = favoriteRepository.findAllByUser(deleteUser);
-        favoriteRepository.deleteAll(userFavorites);
-        logger.debug("Favoritos eliminados para usuario - ID: {}", userId);
-
-        List<Recipe> myRecipes = recipeRepository.findByUserId(deleteUser.getId());
-        for (Recipe recipe : myRecipes) {
-            if (recipe.getImageUrl() != null) {
-                try {
-                    imageUploadService.deleteDirectoryAndImage("recipes", recipe.getId());
-                    logger.debug("Imagen de receta eliminada - ID: {}", recipe.getId());
-                } catch (IOException e) {
-                    logger.error("Error al eliminar imagen de receta - ID: {}, Error: {}", recipe.getId(), e.getMessage());
-                    throw new ImageProcessingException("Error al eliminar la imagen de la receta: " + e.getMessage());
-                }
-            }
-        }
-        
-        recipeRepository.deleteAll(myRecipes);
-        logger.debug("Recetas eliminadas para usuario - ID: {}", userId);
-        
-        userRepository.delete(deleteUser);
-        logger.info("Usuario y todas sus relaciones eliminadas exitosamente - ID: {}", userId);
-    }
-
     /**
      * Asigna roles a un usuario basado en una lista de nombres de roles.
      *
      * @param strRoles Conjunto de nombres de roles a asignar
      * @return Conjunto de roles asignados
-     * @throws ResourceNotFoundException si algún rol no existe
      * @throws InvalidRequestException si algún rol es inválido
      */
     private Set<Role> assignRoles(Set<String> strRoles) {
@@ -262,20 +241,9 @@ public class UserService {
         if (strRoles == null || strRoles.isEmpty())
             return roles;
 
+        // Sin consultas: los roles se resuelven desde el registro en memoria
         return strRoles.stream()
-                .map(role -> {
-                    try {
-                        Role.RoleName roleName = Role.RoleName.valueOf(role.toUpperCase());
-                        return roleRepository.findByName(roleName)
-                                .orElseThrow(() -> {
-                                    logger.error("Rol no encontrado: {}", role);
-                                    return new ResourceNotFoundException("Rol " + role + " no encontrado");
-                                });
-                    } catch (IllegalArgumentException e) {
-                        logger.error("Rol inválido: {}", role);
-                        throw new InvalidRequestException("Rol inválido: " + role);
-                    }
-                })
+                .map(roleRegistry::resolve)
                 .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package api_recipes.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de imágenes en ficheros sueltos: cada clave es una ruta bajo el directorio raíz
+ * ({@code uploads/images/blobs/<aa>/<hash>.<ext>}), servida también por /images/blobs.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class FileSystemImageStore implements ImageStore {
+
+    private final Path root;
+
+    public FileSystemImageStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path newStagingFile() throws IOException {
+        Path stagingDir = root.resolve(ImageKeys.STAGING_DIR);
+        Files.createDirectories(stagingDir);
+        return Files.createFile(stagingDir.resolve(UUID.randomUUID() + ".tmp")).toAbsolutePath();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(source);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        // Mismo sistema de ficheros que el temporal: es un renombrado atómico, sin copia
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public List<StoredImage> list() throws IOException {
+        List<StoredImage> images = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return images;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String key = root.relativize(file).toString().replace('\\', '/');
+                if (!ImageKeys.isValid(key)) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                images.add(new StoredImage(key, attributes.size(), attributes.lastModifiedTime().toMillis()));
+            }
+        }
+        return images;
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(ImageKeys.requireValid(key));
+    }
+}
@@ -0,0 +1,30 @@
+package api_recipes.storage;
+
+import java.util.regex.Pattern;
+
+/**
+ * Formato de las claves de imagen compartido por los backends de {@link ImageStore}.
+ */
+final class ImageKeys {
+
+    static final String STAGING_DIR = ".incoming";
+    static final String STAGING_PREFIX = STAGING_DIR + "/";
+
+    // <aa>/<hash>[_variante].<ext> o un temporal .incoming/<uuid>.tmp
+    private static final Pattern VALID_KEY = Pattern.compile(
+            "^([0-9a-f]{2}/[0-9a-f]{64}(_[a-z]+)?\\.(jpg|png|gif)|\\.incoming/[0-9a-f-]{36}\\.tmp)$");
+
+    private ImageKeys() {
+    }
+
+    static boolean isValid(String key) {
+        return key != null && VALID_KEY.matcher(key).matches();
+    }
+
+    static String requireValid(String key) {
+        if (!isValid(key)) {
+            throw new IllegalArgumentException("Clave de imagen no válida: " + key);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,82 @@
+package api_recipes.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Almacén de ficheros de imagen direccionados por clave ({@code <aa>/<hash>[_variante].<ext>}).
+ *
+ * Las imágenes se escriben primero en un fichero temporal del propio almacén
+ * ({@link #newStagingFile()}) y se publican con {@link #put}, de modo que nunca se sirve
+ * una imagen a medias. El backend se elige con {@code api_recipes.images.store}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public interface ImageStore {
+
+    /**
+     * Crea un fichero temporal en el que escribir una imagen antes de publicarla.
+     *
+     * @return Ruta del fichero temporal (vacío)
+     * @throws IOException si no se puede crear
+     */
+    Path newStagingFile() throws IOException;
+
+    /**
+     * Publica el contenido de un fichero temporal bajo una clave. El almacén se queda con el
+     * fichero (lo mueve o lo copia y lo borra). Si la clave ya existe no se sobrescribe.
+     *
+     * @param key Clave de la imagen
+     * @param source Fichero temporal obtenido con {@link #newStagingFile()}
+     * @throws IOException si hay un error al guardar
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Indica si existe una imagen con la clave dada.
+     */
+    boolean exists(String key);
+
+    /**
+     * Obtiene una imagen. Si el backend guarda ficheros sueltos el recurso es un fichero
+     * ({@link Resource#isFile()}) y puede enviarse con sendfile.
+     *
+     * @param key Clave de la imagen
+     * @return Recurso con el contenido, o vacío si no existe
+     */
+    Optional<Resource> get(String key);
+
+    /**
+     * Elimina una imagen.
+     *
+     * @param key Clave de la imagen
+     * @return true si existía
+     * @throws IOException si hay un error al borrar
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Lista todas las imágenes almacenadas, incluidos los ficheros temporales que hayan quedado
+     * de subidas interrumpidas (con clave {@code .incoming/...}), para que el recolector los
+     * reconcilie.
+     *
+     * @return Imágenes almacenadas
+     * @throws IOException si hay un error al recorrer el almacén
+     */
+    List<StoredImage> list() throws IOException;
+
+    /**
+     * Imagen almacenada, tal como la ve el recolector.
+     *
+     * @param key Clave de la imagen
+     * @param size Tamaño en bytes
+     * @param lastModified Instante de escritura (ms)
+     */
+    record StoredImage(String key, long size, long lastModified) {
+    }
+}
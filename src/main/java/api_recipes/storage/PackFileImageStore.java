@@ -0,0 +1,581 @@
+package api_recipes.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de imágenes empaquetadas en ficheros grandes de solo anexado (segmentos), para no
+ * crear un fichero por imagen y variante cuando hay millones de ellas.
+ *
+ * Cada segmento es una secuencia de registros
+ * {@code [magic][tipo][instante][longitud clave][clave][longitud datos][datos]}; un borrado
+ * añade un registro sin datos (lápida). El índice clave → posición vive en memoria y se
+ * reconstruye recorriendo los segmentos al arrancar; si el último registro quedó a medias por
+ * una caída, se trunca. Las lecturas se sirven desde segmentos mapeados en memoria, sin copiar
+ * el contenido al heap. La compactación reescribe los segmentos cerrados con muchos registros
+ * muertos.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class PackFileImageStore implements ImageStore, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PackFileImageStore.class);
+
+    private static final int MAGIC = 0x494D4731; // "IMG1"
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    // magic (4) + tipo (1) + instante (8) + longitud de la clave (2)
+    private static final int FIXED_HEADER = 4 + 1 + 8 + 2;
+    private static final int DATA_LENGTH = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^segment-(\\d{6})\\.pack$");
+
+    private final Path dir;
+    private final Path stagingDir;
+    private final long maxSegmentSize;
+    private final double compactionThreshold;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    // Un único escritor: anexar registros, actualizar el índice y cambiar de segmento
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Segment active;
+
+    /**
+     * Abre (o crea) el almacén y reconstruye el índice a partir de los segmentos.
+     *
+     * @param dir Directorio de los segmentos
+     * @param maxSegmentSize Tamaño a partir del cual se abre un segmento nuevo
+     * @param compactionThreshold Fracción de datos vivos por debajo de la cual se compacta un segmento
+     * @throws IOException si no se pueden leer los segmentos
+     */
+    public PackFileImageStore(Path dir, long maxSegmentSize, double compactionThreshold) throws IOException {
+        if (maxSegmentSize <= 0 || maxSegmentSize > Integer.MAX_VALUE) {
+            // Cada segmento se mapea entero en un único MappedByteBuffer
+            throw new IllegalArgumentException("Tamaño de segmento no válido: " + maxSegmentSize);
+        }
+        this.dir = dir;
+        this.stagingDir = dir.resolve(ImageKeys.STAGING_DIR);
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionThreshold = compactionThreshold;
+        Files.createDirectories(stagingDir);
+        load();
+    }
+
+    @Override
+    public Path newStagingFile() throws IOException {
+        return Files.createFile(stagingDir.resolve(UUID.randomUUID() + ".tmp")).toAbsolutePath();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        ImageKeys.requireValid(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            if (index.containsKey(key)) {
+                return;
+            }
+            long length = Files.size(source);
+            try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+                Segment segment = segmentFor(recordSize(keyBytes, length));
+                long offset = segment.size.get();
+                long dataOffset = writeHeader(segment, offset, PUT, System.currentTimeMillis(), keyBytes, length);
+                long copied = 0;
+                while (copied < length) {
+                    long transferred = segment.channel.transferFrom(input, dataOffset + copied, length - copied);
+                    if (transferred <= 0) {
+                        throw new EOFException("Fichero temporal truncado: " + source);
+                    }
+                    copied += transferred;
+                }
+                append(segment, key, offset, dataOffset, length);
+            }
+        } finally {
+            writeLock.unlock();
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        // Si la compactación mueve el registro entre la lectura del índice y la del segmento, se reintenta
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Location location = index.get(key);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Segment segment = segments.get(location.segmentId());
+            if (segment == null) {
+                continue;
+            }
+            try {
+                ByteBuffer data = segment.slice(location.dataOffset(), location.length());
+                return Optional.of(new MappedImageResource(key, data, location.timestamp()));
+            } catch (IOException e) {
+                logger.warn("No se puede mapear el segmento {}: {}", segment.path.getFileName(), e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (key.startsWith(ImageKeys.STAGING_PREFIX)) {
+            return Files.deleteIfExists(dir.resolve(ImageKeys.requireValid(key)));
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return false;
+            }
+            Segment segment = segmentFor(recordSize(keyBytes, 0));
+            long offset = segment.size.get();
+            writeHeader(segment, offset, DELETE, System.currentTimeMillis(), keyBytes, 0);
+            segment.channel.force(false);
+            segment.size.set(offset + recordSize(keyBytes, 0));
+            index.remove(key);
+            release(location);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<StoredImage> list() throws IOException {
+        List<StoredImage> images = new ArrayList<>(index.size());
+        index.forEach((key, location) -> images.add(new StoredImage(key, location.length(), location.timestamp())));
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String key = ImageKeys.STAGING_PREFIX + file.getFileName();
+                if (ImageKeys.isValid(key)) {
+                    images.add(new StoredImage(key, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+                }
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Compacta los segmentos cerrados cuya fracción de datos vivos está por debajo del umbral:
+     * copia los registros vigentes al segmento activo y borra el fichero antiguo.
+     */
+    @Scheduled(fixedDelayString = "${api_recipes.images.pack.compactionIntervalMs:600000}",
+            initialDelayString = "${api_recipes.images.pack.compactionIntervalMs:600000}")
+    public void compact() {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active) {
+                continue;
+            }
+            long size = segment.size.get();
+            double liveRatio = size == 0 ? 0 : (double) segment.liveBytes.get() / size;
+            if (liveRatio >= compactionThreshold) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (IOException e) {
+                logger.error("Error al compactar el segmento {}: {}", segment.path.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Número de segmentos en disco.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        long started = System.currentTimeMillis();
+        long before = segment.size.get();
+        scan(segment, record -> {
+            writeLock.lock();
+            try {
+                if (record.type() == PUT) {
+                    Location location = index.get(record.key());
+                    // Solo se copia si el índice sigue apuntando a este registro
+                    if (location != null && location.segmentId() == segment.id
+                            && location.dataOffset() == record.dataOffset()) {
+                        copy(segment, record);
+                    }
+                } else if (!index.containsKey(record.key()) && segments.firstKey() < segment.id) {
+                    // La lápida aún hace falta si un segmento anterior conserva el registro borrado
+                    byte[] keyBytes = record.key().getBytes(StandardCharsets.UTF_8);
+                    Segment target = segmentFor(recordSize(keyBytes, 0));
+                    long offset = target.size.get();
+                    writeHeader(target, offset, DELETE, record.timestamp(), keyBytes, 0);
+                    target.size.set(offset + recordSize(keyBytes, 0));
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        });
+
+        writeLock.lock();
+        try {
+            active.channel.force(false);
+            segments.remove(segment.id);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Segmento {} compactado: {} bytes liberados en {} ms",
+                segment.path.getFileName(), before - segment.liveBytes.get(), System.currentTimeMillis() - started);
+    }
+
+    private void copy(Segment source, Record record) throws IOException {
+        byte[] keyBytes = record.key().getBytes(StandardCharsets.UTF_8);
+        Segment target = segmentFor(recordSize(keyBytes, record.length()));
+        long offset = target.size.get();
+        long dataOffset = writeHeader(target, offset, PUT, record.timestamp(), keyBytes, record.length());
+        long copied = 0;
+        while (copied < record.length()) {
+            target.channel.position(dataOffset + copied);
+            long transferred = source.channel.transferTo(record.dataOffset() + copied, record.length() - copied, target.channel);
+            if (transferred <= 0) {
+                throw new EOFException("Segmento truncado: " + source.path);
+            }
+            copied += transferred;
+        }
+        append(target, record.key(), offset, dataOffset, record.length(), record.timestamp());
+    }
+
+    private void append(Segment segment, String key, long offset, long dataOffset, long length) throws IOException {
+        append(segment, key, offset, dataOffset, length, System.currentTimeMillis());
+        segment.channel.force(false);
+    }
+
+    // Publica un registro ya escrito: primero crece el segmento y después el índice lo hace visible
+    private void append(Segment segment, String key, long offset, long dataOffset, long length, long timestamp) {
+        long recordSize = dataOffset + length - offset;
+        segment.size.set(offset + recordSize);
+        segment.liveBytes.addAndGet(recordSize);
+        Location previous = index.put(key, new Location(segment.id, dataOffset, length, timestamp, recordSize));
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    private void release(Location location) {
+        Segment segment = segments.get(location.segmentId());
+        if (segment != null) {
+            segment.liveBytes.addAndGet(-location.recordSize());
+        }
+    }
+
+    private Segment segmentFor(long recordSize) throws IOException {
+        long size = active.size.get();
+        if (size > 0 && size + recordSize > maxSegmentSize) {
+            active.channel.force(false);
+            active = openSegment(active.id + 1);
+            logger.info("Nuevo segmento de imágenes: {}", active.path.getFileName());
+        }
+        return active;
+    }
+
+    private static long recordSize(byte[] keyBytes, long length) {
+        return FIXED_HEADER + keyBytes.length + DATA_LENGTH + length;
+    }
+
+    private static long writeHeader(Segment segment, long offset, byte type, long timestamp,
+                                    byte[] keyBytes, long length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER + keyBytes.length + DATA_LENGTH)
+                .putInt(MAGIC)
+                .put(type)
+                .putLong(timestamp)
+                .putShort((short) keyBytes.length)
+                .put(keyBytes)
+                .putLong(length)
+                .flip();
+        long position = offset;
+        while (header.hasRemaining()) {
+            position += segment.channel.write(header, position);
+        }
+        return position;
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+            matcher.matches();
+            Segment segment = openSegment(Integer.parseInt(matcher.group(1)));
+            long end = scan(segment, record -> {
+                long recordSize = record.dataOffset() + record.length() - record.offset();
+                Location previous = record.type() == PUT
+                        ? index.put(record.key(), new Location(segment.id, record.dataOffset(), record.length(), record.timestamp(), recordSize))
+                        : index.remove(record.key());
+                if (previous != null) {
+                    release(previous);
+                }
+                if (record.type() == PUT) {
+                    segment.liveBytes.addAndGet(recordSize);
+                }
+            });
+            if (end < segment.channel.size()) {
+                logger.warn("Segmento {} con un registro incompleto, se trunca en {} bytes", file.getFileName(), end);
+                segment.channel.truncate(end);
+                segment.channel.force(true);
+            }
+            segment.size.set(end);
+        }
+        active = segments.isEmpty() ? openSegment(1) : segments.lastEntry().getValue();
+        logger.info("Almacén de imágenes empaquetadas abierto: {} imágenes en {} segmentos", index.size(), segments.size());
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = dir.resolve(String.format("segment-%06d.pack", id));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, path, channel);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Recorre los registros completos de un segmento.
+     *
+     * @return Posición del final del último registro completo
+     */
+    private static long scan(Segment segment, RecordVisitor visitor) throws IOException {
+        FileChannel channel = segment.channel;
+        long fileSize = channel.size();
+        long offset = 0;
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER);
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(DATA_LENGTH);
+        while (offset + FIXED_HEADER <= fileSize) {
+            readFully(channel, fixed.clear(), offset);
+            fixed.flip();
+            if (fixed.getInt() != MAGIC) {
+                break;
+            }
+            byte type = fixed.get();
+            long timestamp = fixed.getLong();
+            int keyLength = Short.toUnsignedInt(fixed.getShort());
+            long lengthOffset = offset + FIXED_HEADER + keyLength;
+            if ((type != PUT && type != DELETE) || lengthOffset + DATA_LENGTH > fileSize) {
+                break;
+            }
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+            readFully(channel, keyBuffer, offset + FIXED_HEADER);
+            readFully(channel, lengthBuffer.clear(), lengthOffset);
+            long length = lengthBuffer.flip().getLong();
+            long dataOffset = lengthOffset + DATA_LENGTH;
+            if (length < 0 || dataOffset + length > fileSize) {
+                break;
+            }
+            String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+            visitor.visit(new Record(type, key, timestamp, offset, dataOffset, length));
+            offset = dataOffset + length;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Posición de la última versión de una imagen.
+     */
+    private record Location(int segmentId, long dataOffset, long length, long timestamp, long recordSize) {
+    }
+
+    /**
+     * Registro leído de un segmento.
+     */
+    private record Record(byte type, String key, long timestamp, long offset, long dataOffset, long length) {
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(Record record) throws IOException;
+    }
+
+    /**
+     * Fichero de segmento con su mapeo en memoria. El segmento activo crece, así que se vuelve a
+     * mapear cuando se lee más allá de lo mapeado.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong size = new AtomicLong();
+        private final AtomicLong liveBytes = new AtomicLong();
+        private volatile MappedByteBuffer mapped;
+
+        Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        ByteBuffer slice(long offset, long length) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < offset + length) {
+                current = remap(offset + length);
+            }
+            return current.slice((int) offset, (int) length).asReadOnlyBuffer();
+        }
+
+        private synchronized MappedByteBuffer remap(long required) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < required) {
+                current = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.max(required, size.get()));
+                mapped = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Imagen servida directamente desde el segmento mapeado.
+     */
+    private static final class MappedImageResource extends AbstractResource {
+        private final String key;
+        private final ByteBuffer data;
+        private final long lastModified;
+
+        MappedImageResource(String key, ByteBuffer data, long lastModified) {
+            this.key = key;
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(data.duplicate());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return data.remaining();
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "Imagen empaquetada [" + key + "]";
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof MappedImageResource resource && key.equals(resource.key));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    /**
+     * Flujo de lectura sobre un buffer; {@link #skip} es inmediato para las peticiones Range.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package api_recipes.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tramo de una traza: una operación con su inicio, su duración y sus atributos.
+ *
+ * Se abre con {@link Tracer} y se cierra con {@link #close()}, normalmente en un
+ * try-with-resources. Fuera de una traza muestreada el tracer devuelve {@link #NOOP}, que no
+ * registra nada.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class Span implements AutoCloseable {
+
+    /**
+     * Tipo de tramo, con la misma numeración que OTLP.
+     */
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        private final int otlpValue;
+
+        Kind(int otlpValue) {
+            this.otlpValue = otlpValue;
+        }
+
+        public int getOtlpValue() {
+            return otlpValue;
+        }
+    }
+
+    static final Span NOOP = new Span(null, null, null, "noop", Kind.INTERNAL, 0);
+
+    private final Tracer.ActiveTrace trace;
+    private final String spanId;
+    private final String parentSpanId;
+    private final Kind kind;
+    private final long startNanos;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private String name;
+    private long endNanos = -1;
+
+    Span(Tracer.ActiveTrace trace, String spanId, String parentSpanId, String name, Kind kind, long startNanos) {
+        this.trace = trace;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Añade un atributo al tramo.
+     *
+     * @param key Nombre del atributo
+     * @param value Valor (se guarda como texto)
+     * @return El propio tramo
+     */
+    public Span tag(String key, Object value) {
+        if (trace != null && value != null) {
+            attributes.put(key, value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Cambia el nombre del tramo, p. ej. cuando la ruta solo se conoce al terminar la petición.
+     */
+    public void rename(String name) {
+        if (trace != null) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Identificador de la traza, o {@code null} si no se está trazando.
+     */
+    public String getTraceId() {
+        return trace != null ? trace.traceId : null;
+    }
+
+    @Override
+    public void close() {
+        if (trace != null && endNanos < 0) {
+            endNanos = System.nanoTime();
+            trace.closed(this);
+        }
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * Inicio del tramo en nanosegundos desde el inicio de la traza.
+     */
+    public long getStartOffsetNanos() {
+        return startNanos - trace.startNanos;
+    }
+
+    /**
+     * Duración del tramo en nanosegundos; un tramo que no se cerró dura hasta el fin de la traza.
+     */
+    public long getDurationNanos() {
+        return (endNanos >= 0 ? endNanos : trace.endNanos) - startNanos;
+    }
+}
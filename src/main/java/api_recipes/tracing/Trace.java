@@ -0,0 +1,26 @@
+package api_recipes.tracing;
+
+import java.util.List;
+
+/**
+ * Traza terminada: la petición (tramo raíz) y todos los tramos registrados dentro de ella,
+ * en orden de inicio.
+ *
+ * @param traceId Identificador de la traza (32 caracteres hexadecimales)
+ * @param startEpochNanos Inicio de la traza en nanosegundos desde la época Unix
+ * @param durationNanos Duración del tramo raíz
+ * @param spans Tramos, el raíz primero
+ * @param droppedSpans Tramos descartados por superar el máximo por traza
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public record Trace(String traceId, long startEpochNanos, long durationNanos, List<Span> spans, int droppedSpans) {
+
+    /**
+     * Nombre de la traza, el de su tramo raíz.
+     */
+    public String name() {
+        return spans.get(0).getName();
+    }
+}
@@ -0,0 +1,135 @@
+package api_recipes.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporta las trazas terminadas a un fichero en formato OTLP/JSON, una petición
+ * {@code ExportTraceServiceRequest} por línea (el formato del exportador de ficheros del
+ * OpenTelemetry Collector), de modo que el Collector o Jaeger pueden importarlo.
+ *
+ * La escritura va en un hilo en segundo plano; si la cola se llena, la traza solo queda en el
+ * buffer en memoria.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "api_recipes.tracing.export.file")
+public class TraceFileExporter {
+    private static final Logger logger = LoggerFactory.getLogger(TraceFileExporter.class);
+
+    private final Path file;
+    private final String serviceName;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final Counter droppedCounter;
+
+    /**
+     * Constructor del exportador.
+     *
+     * @param file Fichero al que se añaden las trazas
+     * @param queueCapacity Trazas que pueden esperar a escribirse
+     * @param serviceName Nombre del servicio en el recurso OTLP
+     * @param objectMapper Serializador JSON
+     * @param meterRegistry Registro de métricas
+     */
+    public TraceFileExporter(@Value("${api_recipes.tracing.export.file}") Path file,
+                             @Value("${api_recipes.tracing.export.queueCapacity:1000}") int queueCapacity,
+                             @Value("${spring.application.name:api-recipes}") String serviceName,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.file = file;
+        this.serviceName = serviceName;
+        this.objectMapper = objectMapper;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "trace-export");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.droppedCounter = Counter.builder("api_recipes.tracing.export.dropped")
+                .description("Trazas que no se exportaron a fichero")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola una traza para escribirla. Nunca bloquea ni lanza excepción a quien llama.
+     */
+    public void export(Trace trace) {
+        try {
+            executor.execute(() -> write(trace));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void write(Trace trace) {
+        try {
+            String line = objectMapper.writeValueAsString(toOtlp(trace)) + System.lineSeparator();
+            Files.writeString(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            droppedCounter.increment();
+            logger.error("Error al exportar la traza {} a {}: {}", trace.traceId(), file, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toOtlp(Trace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Span span : trace.spans()) {
+            long start = trace.startEpochNanos() + span.getStartOffsetNanos();
+            Map<String, Object> otlpSpan = new LinkedHashMap<>();
+            otlpSpan.put("traceId", trace.traceId());
+            otlpSpan.put("spanId", span.getSpanId());
+            if (span.getParentSpanId() != null) {
+                otlpSpan.put("parentSpanId", span.getParentSpanId());
+            }
+            otlpSpan.put("name", span.getName());
+            otlpSpan.put("kind", span.getKind().getOtlpValue());
+            // Los enteros de 64 bits van como texto en OTLP/JSON
+            otlpSpan.put("startTimeUnixNano", Long.toString(start));
+            otlpSpan.put("endTimeUnixNano", Long.toString(start + span.getDurationNanos()));
+            otlpSpan.put("attributes", attributes(span.getAttributes()));
+            spans.add(otlpSpan);
+        }
+        return Map.of("resourceSpans", List.of(Map.of(
+                "resource", Map.of("attributes", attributes(Map.of("service.name", serviceName))),
+                "scopeSpans", List.of(Map.of(
+                        "scope", Map.of("name", "api_recipes.tracing"),
+                        "spans", spans)))));
+    }
+
+    private static List<Map<String, Object>> attributes(Map<String, String> attributes) {
+        List<Map<String, Object>> otlpAttributes = new ArrayList<>();
+        attributes.forEach((key, value) ->
+                otlpAttributes.add(Map.of("key", key, "value", Map.of("stringValue", value))));
+        return otlpAttributes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
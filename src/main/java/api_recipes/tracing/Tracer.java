@@ -0,0 +1,181 @@
+package api_recipes.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Trazas en memoria de las peticiones HTTP.
+ *
+ * Cada petición se muestrea al entrar ({@code api_recipes.tracing.sampleRate}); si no sale
+ * elegida, abrir un tramo solo cuesta consultar un ThreadLocal. Los tramos de una traza viven
+ * en el hilo de la petición, así que el trabajo que se lanza a otros hilos (borrados de
+ * imágenes, emails) no aparece en ella. Las trazas terminadas se guardan en un buffer circular
+ * con las últimas {@code api_recipes.tracing.bufferSize} y, si está configurado, se exportan a
+ * fichero en formato OTLP ({@link TraceFileExporter}).
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Component
+public class Tracer {
+
+    private final ThreadLocal<ActiveTrace> current = new ThreadLocal<>();
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int maxSpansPerTrace;
+    private final AtomicReferenceArray<Trace> buffer;
+    private final AtomicLong written = new AtomicLong();
+    private final ObjectProvider<TraceFileExporter> exporter;
+
+    /**
+     * Constructor del tracer.
+     *
+     * @param enabled Si se traza alguna petición
+     * @param sampleRate Fracción de peticiones que se trazan (0 a 1)
+     * @param bufferSize Trazas que se conservan en memoria
+     * @param maxSpansPerTrace Tramos por traza a partir de los que se descartan (p. ej. en un N+1)
+     * @param exporter Exportación a fichero, si está configurada
+     */
+    public Tracer(@Value("${api_recipes.tracing.enabled:true}") boolean enabled,
+                  @Value("${api_recipes.tracing.sampleRate:0.01}") double sampleRate,
+                  @Value("${api_recipes.tracing.bufferSize:200}") int bufferSize,
+                  @Value("${api_recipes.tracing.maxSpansPerTrace:500}") int maxSpansPerTrace,
+                  ObjectProvider<TraceFileExporter> exporter) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.buffer = new AtomicReferenceArray<>(bufferSize);
+        this.exporter = exporter;
+    }
+
+    /**
+     * Empieza una traza en el hilo actual si la petición sale muestreada. Si ya hay una traza
+     * en curso, abre un tramo dentro de ella.
+     *
+     * @param name Nombre del tramo raíz
+     * @param kind Tipo del tramo raíz
+     * @return Tramo raíz; al cerrarlo la traza se da por terminada
+     */
+    public Span startTrace(String name, Span.Kind kind) {
+        if (current.get() != null) {
+            return startSpan(name, kind);
+        }
+        if (!enabled || sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return Span.NOOP;
+        }
+        ActiveTrace trace = new ActiveTrace(randomId(16));
+        current.set(trace);
+        return trace.open(name, kind);
+    }
+
+    /**
+     * Abre un tramo interno dentro de la traza en curso.
+     */
+    public Span startSpan(String name) {
+        return startSpan(name, Span.Kind.INTERNAL);
+    }
+
+    /**
+     * Abre un tramo dentro de la traza en curso, hijo del último tramo abierto.
+     *
+     * @return El tramo, o {@link Span#NOOP} si el hilo no está trazando
+     */
+    public Span startSpan(String name, Span.Kind kind) {
+        ActiveTrace trace = current.get();
+        return trace != null ? trace.open(name, kind) : Span.NOOP;
+    }
+
+    /**
+     * Indica si el hilo actual está dentro de una traza muestreada.
+     */
+    public boolean isTracing() {
+        return current.get() != null;
+    }
+
+    /**
+     * Trazas del buffer, de la más reciente a la más antigua.
+     */
+    public List<Trace> recentTraces() {
+        List<Trace> traces = new ArrayList<>();
+        long last = written.get();
+        for (long i = last - 1; i >= 0 && i >= last - buffer.length(); i--) {
+            Trace trace = buffer.get((int) (i % buffer.length()));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Busca una traza en el buffer.
+     */
+    public Optional<Trace> findTrace(String traceId) {
+        return recentTraces().stream().filter(trace -> trace.traceId().equals(traceId)).findFirst();
+    }
+
+    private void finish(ActiveTrace active) {
+        current.remove();
+        Trace trace = new Trace(active.traceId, active.startEpochNanos, active.endNanos - active.startNanos,
+                List.copyOf(active.spans), active.droppedSpans);
+        buffer.set((int) (written.getAndIncrement() % buffer.length()), trace);
+        exporter.ifAvailable(fileExporter -> fileExporter.export(trace));
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    /**
+     * Traza en curso en un hilo. Solo la toca ese hilo, así que no necesita sincronización.
+     */
+    final class ActiveTrace {
+        final String traceId;
+        final long startNanos = System.nanoTime();
+        final long startEpochNanos;
+        long endNanos;
+        private final Deque<Span> open = new ArrayDeque<>();
+        private final List<Span> spans = new ArrayList<>();
+        private int droppedSpans;
+
+        ActiveTrace(String traceId) {
+            this.traceId = traceId;
+            Instant now = Instant.now();
+            this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        }
+
+        Span open(String name, Span.Kind kind) {
+            if (spans.size() >= maxSpansPerTrace) {
+                droppedSpans++;
+                return Span.NOOP;
+            }
+            Span parent = open.peek();
+            Span span = new Span(this, randomId(8), parent != null ? parent.getSpanId() : null, name, kind, System.nanoTime());
+            spans.add(span);
+            open.push(span);
+            return span;
+        }
+
+        void closed(Span span) {
+            open.remove(span);
+            if (span == spans.get(0)) {
+                endNanos = startNanos + span.getStartOffsetNanos() + span.getDurationNanos();
+                finish(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package api_recipes.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Tramo por cada llamada a un controlador, un servicio, la carga del usuario autenticado o
+ * un mapper de MapStruct (donde suelen dispararse las cargas perezosas al construir los DTO).
+ *
+ * Las llamadas internas de un bean a sí mismo no pasan por el proxy y no generan tramo.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Aspect
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("execution(public * *(..)) && (within(api_recipes.controllers..*) || within(api_recipes.services..*)"
+            + " || within(api_recipes.mapper..*) || within(api_recipes.security.services.UserDetailsServiceImpl))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!tracer.isTracing()) {
+            return joinPoint.proceed();
+        }
+        Span span = tracer.startSpan(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.tag("error", e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            span.close();
+        }
+    }
+}
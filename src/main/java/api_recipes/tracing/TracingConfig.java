@@ -0,0 +1,75 @@
+package api_recipes.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentación de las trazas: el filtro que las abre, los tramos de controladores,
+ * servicios y mappers, los de cada sentencia SQL y el de la serialización JSON.
+ *
+ * Con {@code api_recipes.tracing.enabled=false} no se registra nada de esto y
+ * {@link Tracer} no muestrea ninguna petición.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "api_recipes.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public TracingAspect tracingAspect(Tracer tracer) {
+        return new TracingAspect(tracer);
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter tracingJackson2HttpMessageConverter(ObjectMapper objectMapper, Tracer tracer) {
+        return new TracingJackson2HttpMessageConverter(objectMapper, tracer);
+    }
+
+    @Bean
+    public static TracingDataSourcePostProcessor tracingDataSourcePostProcessor(ObjectProvider<Tracer> tracer) {
+        return new TracingDataSourcePostProcessor(tracer);
+    }
+
+    /**
+     * Envuelve cada DataSource con las trazas. Es el último envoltorio, así que el tramo de
+     * cada conexión incluye la espera en el limitador de hilos virtuales.
+     */
+    public static class TracingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<Tracer> tracer;
+
+        TracingDataSourcePostProcessor(ObjectProvider<Tracer> tracer) {
+            this.tracer = tracer;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof TracingDataSource) {
+                return bean;
+            }
+            return new TracingDataSource(dataSource, tracer.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
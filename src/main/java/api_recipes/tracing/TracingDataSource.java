@@ -0,0 +1,114 @@
+package api_recipes.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource que abre un tramo por cada sentencia SQL que se ejecuta y otro por la obtención
+ * de la conexión.
+ *
+ * Solo envuelve las conexiones que se piden dentro de una traza; el resto de peticiones
+ * reciben la conexión del pool tal cual. Al contrario que {@link api_recipes.config.SqlStatementCounter},
+ * cubre también el SQL de {@code JdbcTemplate}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private final Tracer tracer;
+
+    public TracingDataSource(DataSource targetDataSource, Tracer tracer) {
+        super(targetDataSource);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!tracer.isTracing()) {
+            return super.getConnection();
+        }
+        try (Span span = tracer.startSpan("db.connection", Span.Kind.CLIENT)) {
+            return traced(super.getConnection());
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!tracer.isTracing()) {
+            return super.getConnection(username, password);
+        }
+        try (Span span = tracer.startSpan("db.connection", Span.Kind.CLIENT)) {
+            return traced(super.getConnection(username, password));
+        }
+    }
+
+    private Connection traced(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> traced((Statement) result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> traced((Statement) result, CallableStatement.class, (String) args[0]);
+                        case "createStatement" -> traced((Statement) result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    // Abre un tramo en cada execute*; el SQL es el de la preparación o el que recibe el propio execute
+    private Statement traced(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    try (Span span = tracer.startSpan("sql", Span.Kind.CLIENT)) {
+                        span.tag("db.statement", sql);
+                        if (method.getName().startsWith("executeBatch") || method.getName().startsWith("executeLargeBatch")) {
+                            span.tag("db.batch", true);
+                        }
+                        return invoke(statement, method, args);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package api_recipes.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Abre la traza de cada petición muestreada. El tramo raíz cubre toda la cadena de filtros,
+ * así que el tiempo que no cae en ningún tramo hijo es el de los filtros y de Spring MVC.
+ *
+ * El identificador de la traza se devuelve en la cabecera {@link #TRACE_ID_HEADER} para poder
+ * buscarla en {@code /api/admin/traces}.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Span span = tracer.startTrace(request.getMethod() + " " + request.getRequestURI(), Span.Kind.SERVER);
+        if (span.getTraceId() != null) {
+            response.setHeader(TRACE_ID_HEADER, span.getTraceId());
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? pattern.toString() : "UNKNOWN";
+            span.rename(request.getMethod() + " " + route);
+            span.tag("http.request.method", request.getMethod())
+                    .tag("http.route", route)
+                    .tag("url.path", request.getRequestURI())
+                    .tag("http.response.status_code", response.getStatus());
+            span.close();
+        }
+    }
+}
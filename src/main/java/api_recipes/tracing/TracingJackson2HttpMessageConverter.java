@@ -0,0 +1,35 @@
+package api_recipes.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Conversor JSON de Spring MVC que abre un tramo mientras Jackson escribe la respuesta. Si la
+ * respuesta lleva entidades, las cargas perezosas que dispare la serialización quedan dentro.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class TracingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final Tracer tracer;
+
+    public TracingJackson2HttpMessageConverter(ObjectMapper objectMapper, Tracer tracer) {
+        super(objectMapper);
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        try (Span span = tracer.startSpan("json.serialize")) {
+            span.tag("type", object.getClass().getSimpleName());
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+}
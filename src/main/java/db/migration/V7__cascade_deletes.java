@@ -0,0 +1,81 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sustituye las claves foráneas de las tablas de detalle ({@code favorites},
+ * {@code recipe_ingredients}, {@code recipe_categories}) por otras con {@code ON DELETE CASCADE},
+ * para que borrar una receta, una categoría o un tramo de recetas sea una sola sentencia.
+ *
+ * Va en Java y no en SQL porque el nombre de la clave existente no es el mismo en todas las bases
+ * de datos: las creadas por V1 usan {@code fk_*}, pero las que generó Hibernate antes de Flyway
+ * (tomadas como V1 con baseline-on-migrate) tienen nombres calculados por él. Se buscan en los
+ * metadatos JDBC, que funcionan igual en MySQL y en H2.
+ *
+ * @author Sandy
+ * @version 1.0
+ */
+public class V7__cascade_deletes extends BaseJavaMigration {
+
+    private static final String[][] FOREIGN_KEYS = {
+            // tabla hija, columna, tabla padre, nombre de la nueva clave
+            {"favorites", "recipe_id", "recipes", "fk_favorites_recipe"},
+            {"favorites", "user_id", "users", "fk_favorites_user"},
+            {"recipe_ingredients", "recipe_id", "recipes", "fk_recipe_ingredients_recipe"},
+            {"recipe_ingredients", "ingredient_id", "ingredients", "fk_recipe_ingredients_ingredient"},
+            {"recipe_categories", "recipe_id", "recipes", "fk_recipe_categories_recipe"},
+            {"recipe_categories", "category_id", "categories", "fk_recipe_categories_category"}
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        DatabaseMetaData metaData = connection.getMetaData();
+        // MySQL no admite DROP CONSTRAINT para claves foráneas antes de la 8.0.19
+        String dropClause = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")
+                ? " DROP FOREIGN KEY "
+                : " DROP CONSTRAINT ";
+
+        try (Statement statement = connection.createStatement()) {
+            for (String[] fk : FOREIGN_KEYS) {
+                for (String existing : foreignKeyNames(connection, fk[0], fk[1], fk[2])) {
+                    statement.execute("ALTER TABLE " + fk[0] + dropClause + existing);
+                }
+                statement.execute("ALTER TABLE " + fk[0] + " ADD CONSTRAINT " + fk[3]
+                        + " FOREIGN KEY (" + fk[1] + ") REFERENCES " + fk[2] + " (id) ON DELETE CASCADE");
+            }
+        }
+    }
+
+    /**
+     * Nombres de las claves foráneas de {@code child.column} hacia {@code parent}.
+     */
+    private static List<String> foreignKeyNames(Connection connection, String child, String column, String parent)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? child.toUpperCase(Locale.ROOT) : child;
+        List<String> names = new ArrayList<>();
+        try (ResultSet keys = metaData.getImportedKeys(connection.getCatalog(), connection.getSchema(), table)) {
+            while (keys.next()) {
+                if (column.equalsIgnoreCase(keys.getString("FKCOLUMN_NAME"))
+                        && parent.equalsIgnoreCase(keys.getString("PKTABLE_NAME"))) {
+                    String name = keys.getString("FK_NAME");
+                    if (!names.contains(name)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,2 @@
+-- Instante del último cambio de contraseña: AuthTokenFilter rechaza los JWT emitidos antes
+ALTER TABLE users ADD COLUMN password_changed_at datetime(6);
@@ -0,0 +1,98 @@
+-- Esquema inicial: las tablas tal y como las generaba Hibernate (ddl-auto=update) antes de pasar a
+-- Flyway. Una base de datos de esa época se toma como esta versión con baseline-on-migrate, así que
+-- aquí no va ningún cambio posterior: cada uno tiene su propia migración.
+-- Se escribe en SQL compatible con MySQL 8 y con H2, que usan las pruebas.
+
+CREATE TABLE users (
+    id bigint NOT NULL AUTO_INCREMENT,
+    username varchar(20) NOT NULL,
+    email varchar(50) NOT NULL,
+    password varchar(120) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE roles (
+    id bigint NOT NULL AUTO_INCREMENT,
+    name enum ('ROLE_USER','ROLE_MODERATOR','ROLE_ADMIN'),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    role_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE categories (
+    id bigint NOT NULL AUTO_INCREMENT,
+    name varchar(50) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+CREATE TABLE ingredients (
+    active bit NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    name varchar(50) NOT NULL,
+    image_url varchar(255),
+    unit_measure enum ('GRAMOS','MILILITROS','TAZAS','UNIDADES','LITROS','CUCHARADAS','CUCHARADITAS'),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_ingredients_name UNIQUE (name)
+);
+
+CREATE TABLE recipes (
+    popularity integer NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    user_id bigint NOT NULL,
+    title varchar(100) NOT NULL,
+    description TEXT NOT NULL,
+    preparation varchar(1000),
+    image_url varchar(255),
+    status enum ('PENDING','APPROVED','REJECTED'),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_recipes_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE recipe_categories (
+    category_id bigint NOT NULL,
+    recipe_id bigint NOT NULL,
+    PRIMARY KEY (category_id, recipe_id),
+    CONSTRAINT fk_recipe_categories_category FOREIGN KEY (category_id) REFERENCES categories (id),
+    CONSTRAINT fk_recipe_categories_recipe FOREIGN KEY (recipe_id) REFERENCES recipes (id)
+);
+
+CREATE TABLE recipe_ingredients (
+    quantity float(53) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    ingredient_id bigint NOT NULL,
+    recipe_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_recipe_ingredients_recipe_ingredient UNIQUE (recipe_id, ingredient_id),
+    CONSTRAINT fk_recipe_ingredients_ingredient FOREIGN KEY (ingredient_id) REFERENCES ingredients (id),
+    CONSTRAINT fk_recipe_ingredients_recipe FOREIGN KEY (recipe_id) REFERENCES recipes (id)
+);
+
+CREATE TABLE favorites (
+    id bigint NOT NULL AUTO_INCREMENT,
+    recipe_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_favorites_user_recipe UNIQUE (user_id, recipe_id),
+    CONSTRAINT fk_favorites_recipe FOREIGN KEY (recipe_id) REFERENCES recipes (id),
+    CONSTRAINT fk_favorites_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE tokens (
+    expiry_date datetime(6),
+    id bigint NOT NULL AUTO_INCREMENT,
+    user_id bigint NOT NULL,
+    token varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tokens_user UNIQUE (user_id),
+    CONSTRAINT uk_tokens_token UNIQUE (token),
+    CONSTRAINT fk_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,13 @@
+-- Columnas normalizadas (minúsculas y sin espacios en los extremos) para la búsqueda de usuarios por
+-- prefijo: el índice se usa con LIKE 'prefijo%' sin aplicar funciones a la columna.
+
+ALTER TABLE users ADD COLUMN username_normalized varchar(20);
+ALTER TABLE users ADD COLUMN email_normalized varchar(50);
+
+-- Usuarios que ya existían: a partir de aquí User las recalcula cada vez que se guarda
+UPDATE users
+SET username_normalized = LOWER(TRIM(username)),
+    email_normalized = LOWER(TRIM(email));
+
+CREATE INDEX idx_users_username_normalized ON users (username_normalized);
+CREATE INDEX idx_users_email_normalized ON users (email_normalized);
@@ -0,0 +1,13 @@
+-- Purga de tokens de refresco caducados y lista de JWT revocados hasta que caducan.
+
+CREATE INDEX idx_tokens_expiry_date ON tokens (expiry_date);
+
+CREATE TABLE revoked_tokens (
+    expires_at datetime(6) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    jti varchar(36) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_revoked_tokens_jti UNIQUE (jti)
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
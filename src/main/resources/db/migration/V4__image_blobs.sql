@@ -0,0 +1,13 @@
+-- Imágenes subidas, una fila por contenido distinto (hash SHA-256) con el número de referencias.
+
+CREATE TABLE image_blobs (
+    ref_count integer NOT NULL,
+    extension varchar(5) NOT NULL,
+    created_at datetime(6) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    size bigint NOT NULL,
+    updated_at datetime(6),
+    hash varchar(64) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_image_blobs_hash UNIQUE (hash)
+);
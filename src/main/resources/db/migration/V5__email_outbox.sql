@@ -0,0 +1,17 @@
+-- Correos pendientes de envío: se guardan en la misma transacción que el cambio que los origina.
+
+CREATE TABLE email_outbox (
+    attempts integer NOT NULL,
+    created_at datetime(6) NOT NULL,
+    id bigint NOT NULL AUTO_INCREMENT,
+    next_attempt_at datetime(6) NOT NULL,
+    sent_at datetime(6),
+    recipient varchar(100) NOT NULL,
+    last_error varchar(500),
+    body TEXT NOT NULL,
+    subject varchar(255) NOT NULL,
+    status enum ('PENDING','SENT','FAILED') NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
@@ -0,0 +1,19 @@
+-- Borrado de usuarios en segundo plano: un trabajo por usuario, retomable por tramos.
+
+CREATE TABLE user_deletion_jobs (
+    attempts integer NOT NULL,
+    created_at datetime(6) NOT NULL,
+    deleted_favorites bigint NOT NULL,
+    deleted_recipes bigint NOT NULL,
+    finished_at datetime(6),
+    id bigint NOT NULL AUTO_INCREMENT,
+    total_recipes bigint NOT NULL,
+    updated_at datetime(6) NOT NULL,
+    user_id bigint NOT NULL,
+    last_error varchar(500),
+    status enum ('PENDING','RUNNING','COMPLETED','FAILED') NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_user_deletion_jobs_status_updated ON user_deletion_jobs (status, updated_at);
+CREATE INDEX idx_user_deletion_jobs_user ON user_deletion_jobs (user_id);
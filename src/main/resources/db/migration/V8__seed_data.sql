@@ -1,11 +1,14 @@
--- Inicialización de Roles
-INSERT INTO roles (name) 
+-- Datos iniciales. Cada inserción comprueba si la fila ya existe, de modo que también se puede
+-- aplicar sobre una base de datos anterior a las migraciones.
+
+-- Inicialización de Roles (única fuente: RoleRegistry solo los carga y no arranca si falta alguno)
+INSERT INTO roles (name)
 SELECT 'ROLE_USER' WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_USER');
 
-INSERT INTO roles (name) 
+INSERT INTO roles (name)
 SELECT 'ROLE_MODERATOR' WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_MODERATOR');
 
-INSERT INTO roles (name) 
+INSERT INTO roles (name)
 SELECT 'ROLE_ADMIN' WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_ADMIN');
 
 -- Inicialización de Categorías
@@ -90,13 +93,13 @@ SELECT 'Limón', 'UNIDADES', true WHERE NOT EXISTS (SELECT 1 FROM ingredients WH
 
 -- Inicialización de Usuarios
 -- Usuario Admin (password: admin1234)
-INSERT INTO users (username, email, password)
-SELECT 'admin', 'admin@example.com', '$2y$10$WbgpQFQ1li/K3kR/NidTDupUbMhr4dA/KgOOFoqrYKYMBkSi.h0vq'
+INSERT INTO users (username, username_normalized, email, email_normalized, password)
+SELECT 'admin', 'admin', 'admin@example.com', 'admin@example.com', '$2y$10$WbgpQFQ1li/K3kR/NidTDupUbMhr4dA/KgOOFoqrYKYMBkSi.h0vq'
 WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = 'admin');
 
 -- Usuario Normal (password: user1234)
-INSERT INTO users (username, email, password)
-SELECT 'user', 'user@example.com', '$2y$10$WbgpQFQ1li/K3kR/NidTDupUbMhr4dA/KgOOFoqrYKYMBkSi.h0vq'
+INSERT INTO users (username, username_normalized, email, email_normalized, password)
+SELECT 'user', 'user', 'user@example.com', 'user@example.com', '$2y$10$WbgpQFQ1li/K3kR/NidTDupUbMhr4dA/KgOOFoqrYKYMBkSi.h0vq'
 WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = 'user');
 
 -- Asignación de Roles
@@ -0,0 +1,9 @@
+-- Índices para las consultas más frecuentes. Cada uno tiene su prueba de plan en QueryPlanTests.
+-- Las búsquedas por recipes.user_id y recipe_ingredients.ingredient_id usan el índice que crea su
+-- clave foránea (en InnoDB incluye además el id), así que no necesitan uno propio.
+
+-- findByTitle y existsByTitleAndIdNot (alta y edición de recetas)
+CREATE INDEX idx_recipes_title ON recipes (title);
+
+-- Recetas más populares: el índice ya está en el orden de la consulta y se corta en el límite
+CREATE INDEX idx_recipes_popularity ON recipes (popularity DESC, id DESC);
@@ -0,0 +1,150 @@
+package api_recipes.config;
+
+import api_recipes.tracing.Tracer;
+import api_recipes.tracing.TracingConfig;
+import api_recipes.tracing.TracingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Limitador de conexiones del modo de hilos virtuales: el permiso se devuelve una sola vez al
+ * cerrar, la espera agota su plazo con una {@link SQLException} y el DataSource solo se envuelve
+ * con {@code spring.threads.virtual.enabled=true}, siempre pegado al pool aunque también se trace.
+ */
+class ConnectionLimitingDataSourceTests {
+
+	private DataSource target;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		target = mock(DataSource.class);
+		when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+	}
+
+	@Test
+	void permitIsReleasedOnceEvenIfTheConnectionIsClosedTwice() throws SQLException {
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, 100);
+
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		assertThat(dataSource.getConnectionsInUse()).isEqualTo(2);
+
+		first.close();
+		first.close();
+		assertThat(dataSource.getConnectionsInUse()).isEqualTo(1);
+
+		// Un segundo permiso devuelto por el doble cierre dejaría pasar tres conexiones
+		Connection third = dataSource.getConnection();
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+		second.close();
+		third.close();
+		assertThat(dataSource.getConnectionsInUse()).isZero();
+	}
+
+	@Test
+	void waitingBeyondTheTimeoutRaisesSqlException() throws SQLException {
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+		Connection held = dataSource.getConnection();
+
+		long start = System.nanoTime();
+		assertThatThrownBy(dataSource::getConnection)
+				.isInstanceOf(SQLTransientConnectionException.class)
+				.hasMessageContaining("50 ms");
+		assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(45);
+
+		held.close();
+		assertThat(dataSource.getConnection()).isNotNull();
+	}
+
+	@Test
+	void permitIsReleasedWhenThePoolFails() throws SQLException {
+		when(target.getConnection()).thenThrow(new SQLException("pool agotado"));
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+		assertThatThrownBy(dataSource::getConnection).hasMessage("pool agotado");
+		assertThat(dataSource.getConnectionsInUse()).isZero();
+	}
+
+	@Test
+	void closeIsForwardedAndOtherCallsReachTheRealConnection() throws SQLException {
+		Connection real = mock(Connection.class);
+		when(target.getConnection()).thenReturn(real);
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+		Connection connection = dataSource.getConnection();
+		connection.setAutoCommit(false);
+		connection.close();
+
+		verify(real).setAutoCommit(false);
+		verify(real).close();
+	}
+
+	@Test
+	void dataSourceIsWrappedOnlyInVirtualThreadMode() {
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withUserConfiguration(PoolConfig.class, VirtualThreadConfig.class);
+
+		runner.withPropertyValues("spring.threads.virtual.enabled=true")
+				.run(context -> assertThat(context.getBean(DataSource.class)).isInstanceOf(ConnectionLimitingDataSource.class));
+		runner.run(context -> assertThat(context.getBean(DataSource.class)).isInstanceOf(HikariDataSource.class));
+	}
+
+	@Test
+	void limiterSitsUnderTheTracingWrapperWhateverTheRegistrationOrder() {
+		for (Class<?>[] configs : new Class<?>[][]{
+				{PoolConfig.class, TracerConfig.class, TracingConfig.class, VirtualThreadConfig.class},
+				{PoolConfig.class, TracerConfig.class, VirtualThreadConfig.class, TracingConfig.class}}) {
+			new ApplicationContextRunner()
+					.withUserConfiguration(configs)
+					.withPropertyValues("spring.threads.virtual.enabled=true")
+					.run(context -> {
+						DataSource dataSource = context.getBean(DataSource.class);
+						assertThat(dataSource).isInstanceOf(TracingDataSource.class);
+						ConnectionLimitingDataSource limiter = (ConnectionLimitingDataSource) ((TracingDataSource) dataSource).getTargetDataSource();
+						// Los permisos salen del pool (4), no del valor por defecto
+						assertThat(limiter.getMaxConcurrentConnections()).isEqualTo(4);
+						assertThat(limiter.getTargetDataSource()).isInstanceOf(HikariDataSource.class);
+					});
+		}
+	}
+
+	@Configuration
+	static class TracerConfig {
+
+		@Bean
+		Tracer tracer() {
+			return new Tracer(false, 0, 1, 1, null);
+		}
+
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+	}
+
+	@Configuration
+	static class PoolConfig {
+
+		@Bean
+		DataSource dataSource() {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setJdbcUrl("jdbc:h2:mem:limiter");
+			dataSource.setMaximumPoolSize(4);
+			return dataSource;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package api_recipes.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La caché de segundo nivel se configura igual en cualquier EntityManagerFactory, también en
+ * las pruebas de repositorios que no importan {@link SecondLevelCacheConfig}: proveedor JCache y
+ * fallo ante una región sin declarar, en lugar de crearla sin límites.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+class SecondLevelCacheSettingsTests {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void regionsComeFromTheEhcacheFileAndMissingOnesFail() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+		assertThat(sessionFactory.getCache().getRegionFactory()).isInstanceOf(JCacheRegionFactory.class);
+		assertThat(sessionFactory.getProperties())
+				.containsEntry(ConfigSettings.MISSING_CACHE_STRATEGY, "fail")
+				.containsEntry(ConfigSettings.CONFIG_URI, "hibernate-ehcache.xml");
+	}
+}
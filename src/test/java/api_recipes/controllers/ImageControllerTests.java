@@ -0,0 +1,104 @@
+package api_recipes.controllers;
+
+import api_recipes.services.ImageUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Cabeceras de caché, ETag, Range y sendfile al servir imágenes por contenido.
+ */
+class ImageControllerTests {
+
+	private static final String HASH = "ab" + "0".repeat(62);
+	private static final String URL = "/images/blobs/ab/" + HASH + ".jpg";
+
+	@TempDir
+	Path dir;
+
+	private MockMvc mockMvc;
+	private Path original;
+	private Path thumb;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		original = Files.write(dir.resolve(HASH + ".jpg"), new byte[64 * 1024]);
+		thumb = Files.write(dir.resolve(HASH + "_thumb.jpg"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+		ImageUploadService service = mock(ImageUploadService.class);
+		when(service.resolveImage(eq(URL), isNull())).thenReturn(resolved(original));
+		when(service.resolveImage(eq(URL), eq("thumb"))).thenReturn(resolved(thumb));
+		when(service.resolveImage(eq(URL), eq("card"))).thenReturn(resolved(original));
+		when(service.resolveImage(eq(URL), eq("full")))
+				.thenReturn(new ImageUploadService.ResolvedImage(HASH + "_full.jpg", new ByteArrayResource(new byte[64 * 1024])));
+		mockMvc = MockMvcBuilders.standaloneSetup(new ImageController(service)).build();
+	}
+
+	@Test
+	void versionedImagesAreImmutableWithStrongEtag() throws Exception {
+		mockMvc.perform(get(URL).param("size", "thumb"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "_thumb\""))
+				.andExpect(content().contentType("image/jpeg"))
+				.andExpect(content().bytes(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+	}
+
+	@Test
+	void matchingEtagReturnsNotModified() throws Exception {
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void rangeRequestsReturnPartialContent() throws Exception {
+		mockMvc.perform(get(URL).param("size", "thumb").header(HttpHeaders.RANGE, "bytes=2-4"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/8"))
+				.andExpect(content().bytes(new byte[]{3, 4, 5}));
+	}
+
+	@Test
+	void pendingVariantIsServedWithShortCache() throws Exception {
+		mockMvc.perform(get(URL).param("size", "card"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+	}
+
+	@Test
+	void largeFilesAreHandedToSendfileWhenSupported() throws Exception {
+		mockMvc.perform(get(URL).requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+				.andExpect(status().isOk())
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.filename", original.toAbsolutePath().toString()))
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.end", 64L * 1024))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 64L * 1024))
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void packedImagesAreCopiedInsteadOfSendfile() throws Exception {
+		mockMvc.perform(get(URL).param("size", "full").requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+				.andExpect(status().isOk())
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.filename", (Object) null))
+				.andExpect(content().bytes(new byte[64 * 1024]));
+	}
+
+	private static ImageUploadService.ResolvedImage resolved(Path path) {
+		return new ImageUploadService.ResolvedImage(path.getFileName().toString(), new FileSystemResource(path));
+	}
+}
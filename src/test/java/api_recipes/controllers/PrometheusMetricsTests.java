@@ -0,0 +1,66 @@
+package api_recipes.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Métricas publicadas en {@code /actuator/prometheus}: histogramas de latencia por endpoint y
+ * por método de repositorio, pool de conexiones (con el limitador de hilos virtuales) y ratio
+ * de aciertos de la caché de segundo nivel. Solo un ADMIN puede leerlas; la sonda de salud es
+ * pública. Sin {@code @AutoConfigureTestDatabase} para que la
+ * base de datos en memoria quede detrás de Hikari, como en producción.
+ */
+@SpringBootTest(properties = {
+		"api_recipes.jwtSecret=cHJvbWV0aGV1cy1tZXRyaWNzLXRlc3RzLXNlY3JldC1rZXktdGhhdC1pcy1sb25n",
+		"api_recipes.jwtExpirationMs=60000",
+		"app.base.url=http://localhost",
+		"spring.mail.host=localhost",
+		"spring.threads.virtual.enabled=true",
+		"management.endpoints.web.exposure.include=health,prometheus",
+		"management.health.mail.enabled=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class PrometheusMetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void scrapeExposesLatencyPoolAndCacheMetrics() throws Exception {
+		mockMvc.perform(get("/api/recipes")).andExpect(status().isOk());
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("admin").roles("ADMIN")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.containsPattern("http_server_requests_seconds_bucket\\{.*uri=\"/api/recipes\".*le=\"")
+				.containsPattern("http_server_requests_seconds\\{.*uri=\"/api/recipes\",quantile=\"0.99\"")
+				.containsPattern("spring_data_repository_invocations_seconds_bucket\\{.*repository=\"RecipeRepository\"")
+				.contains("hikaricp_connections_active")
+				.contains("api_recipes_datasource_limiter_active")
+				.contains("api_recipes_datasource_limiter_pending")
+				.contains("api_recipes_cache_hit_ratio{region=\"categories\",}");
+	}
+
+	@Test
+	void scrapeRequiresAnAdmin() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/prometheus").with(user("ana").roles("USER"))).andExpect(status().isForbidden());
+	}
+
+	@Test
+	void healthIsPublic() throws Exception {
+		mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+	}
+}
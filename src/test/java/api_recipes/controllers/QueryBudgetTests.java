@@ -0,0 +1,156 @@
+package api_recipes.controllers;
+
+import api_recipes.config.QueryCountFilter;
+import api_recipes.models.*;
+import api_recipes.repository.*;
+import api_recipes.security.services.UserDetailsImpl;
+import api_recipes.services.RoleRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint, sobre la aplicación completa y el esquema de las
+ * migraciones. Cada petición se lanza con la caché de segundo nivel vacía (el peor caso) y el
+ * número de sentencias no puede pasar del presupuesto ni crecer con el tamaño de la respuesta:
+ * si crece, alguna relación se está cargando elemento a elemento (N+1).
+ */
+@SpringBootTest(properties = {
+		"api_recipes.jwtSecret=cXVlcnktYnVkZ2V0LXRlc3RzLXNlY3JldC1rZXktdGhhdC1pcy1sb25nLWVub3VnaA==",
+		"api_recipes.jwtExpirationMs=60000",
+		"app.base.url=http://localhost",
+		"spring.mail.host=localhost"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTests {
+
+	private static final int RECIPES = 30;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionOperations transactionOperations;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
+	@Autowired
+	private FavoriteRepository favoriteRepository;
+
+	private UserDetailsImpl cook;
+	private UserDetailsImpl admin;
+	private Long recipeId;
+
+	@BeforeAll
+	void setUp() {
+		transactionOperations.executeWithoutResult(status -> {
+			User author = new User("cocinera", "cocinera@example.com", "secreto");
+			author.setRoles(Set.of(roleRegistry.get(Role.RoleName.ROLE_USER)));
+			userRepository.save(author);
+			User boss = new User("jefa", "jefa@example.com", "secreto");
+			boss.setRoles(Set.of(roleRegistry.get(Role.RoleName.ROLE_USER), roleRegistry.get(Role.RoleName.ROLE_ADMIN)));
+			userRepository.save(boss);
+
+			// Categorías e ingredientes de los datos iniciales
+			List<Category> categories = categoryRepository.findAll();
+			List<Ingredient> ingredients = ingredientRepository.findAll();
+			for (int i = 0; i < RECIPES; i++) {
+				Recipe recipe = new Recipe();
+				recipe.setTitle("Receta " + i);
+				recipe.setDescription("Descripción");
+				recipe.setPopularity(i);
+				recipe.setUser(author);
+				recipe.setCategories(new HashSet<>(List.of(
+						categories.get(i % categories.size()), categories.get((i + 1) % categories.size()))));
+				recipeRepository.save(recipe);
+				for (int j = 0; j < 3; j++) {
+					recipe.getRecipeIngredients().add(
+							new RecipeIngredient(null, recipe, ingredients.get((i + j) % ingredients.size()), 10.0 * (j + 1)));
+				}
+				favoriteRepository.save(new Favorite(author, recipe));
+				recipeId = recipe.getId();
+			}
+			cook = UserDetailsImpl.build(author);
+			admin = UserDetailsImpl.build(boss);
+		});
+	}
+
+	@Test
+	void recipePageIsThreeStatementsWhateverItsSize() throws Exception {
+		assertThat(statements(get("/api/recipes").param("size", "20"))).isLessThanOrEqualTo(3);
+		assertThat(statements(get("/api/recipes").param("size", "5")))
+				.isEqualTo(statements(get("/api/recipes").param("size", "20")));
+	}
+
+	@Test
+	void popularRecipesDoNotLoadRelationsPerRecipe() throws Exception {
+		assertThat(statements(get("/api/recipes/popular").param("limit", "20"))).isLessThanOrEqualTo(4);
+		assertThat(statements(get("/api/recipes/popular").param("limit", "5")))
+				.isEqualTo(statements(get("/api/recipes/popular").param("limit", "20")));
+	}
+
+	@Test
+	void singleRecipeIsLoadedWithItsRelations() throws Exception {
+		assertThat(statements(get("/api/recipes/{id}", recipeId))).isEqualTo(1);
+	}
+
+	@Test
+	void ownRecipesDoNotLoadRelationsPerRecipe() throws Exception {
+		assertThat(statements(get("/api/recipes/user").with(user(cook)))).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void favoritesDoNotLoadRecipesPerFavorite() throws Exception {
+		assertThat(statements(get("/api/favorites").with(user(cook)))).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void userPageLoadsRolesInOneBatch() throws Exception {
+		assertThat(statements(get("/api/users").param("page", "0").param("size", "20").with(user(admin))))
+				.isLessThanOrEqualTo(3);
+	}
+
+	// Sentencias SQL de una petición, con la caché de segundo nivel vacía
+	private long statements(MockHttpServletRequestBuilder request) throws Exception {
+		entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+		return (Long) mockMvc.perform(request)
+				.andExpect(status().isOk())
+				.andReturn().getRequest().getAttribute(QueryCountFilter.STATEMENTS_ATTRIBUTE);
+	}
+}
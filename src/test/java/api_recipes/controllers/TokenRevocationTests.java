@@ -0,0 +1,138 @@
+package api_recipes.controllers;
+
+import api_recipes.models.Role;
+import api_recipes.models.User;
+import api_recipes.repository.UserRepository;
+import api_recipes.security.jwt.JwtUtils;
+import api_recipes.security.services.UserDetailsImpl;
+import api_recipes.services.AccountService;
+import api_recipes.services.RoleRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Revocación de JWT de extremo a extremo: el filtro rechaza el token cerrado con logout y,
+ * tras un cambio o restablecimiento de contraseña, todos los emitidos antes del cambio.
+ */
+@SpringBootTest(properties = {
+		"api_recipes.jwtSecret=" + TokenRevocationTests.JWT_SECRET,
+		"api_recipes.jwtExpirationMs=60000",
+		"app.base.url=http://localhost",
+		"spring.mail.host=localhost"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class TokenRevocationTests {
+
+	static final String JWT_SECRET = "cmV2b2NhdGlvbi10ZXN0cy1zZWNyZXQta2V5LXRoYXQtaXMtbG9uZy1lbm91Z2g=";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Test
+	void loggedOutTokenIsRejected() throws Exception {
+		User user = user("logout");
+		String token = jwtUtils.generateJwtToken(authentication(user));
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void changingThePasswordRevokesEveryEarlierToken() throws Exception {
+		User user = user("cambio");
+		String presented = issuedSecondsAgo(user, 5);
+		String otherSession = issuedSecondsAgo(user, 5);
+
+		mockMvc.perform(patch("/api/account/change-password")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + presented)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"oldPassword\":\"secreto-actual\",\"newPassword\":\"secreto-nuevo\"}"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + presented))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + otherSession))
+				.andExpect(status().isUnauthorized());
+		String fresh = jwtUtils.generateJwtToken(authentication(user));
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + fresh))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void resettingThePasswordRevokesEveryEarlierToken() throws Exception {
+		User user = user("reset");
+		String token = issuedSecondsAgo(user, 5);
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk());
+
+		accountService.updatePassword(userRepository.findByUsername("reset").orElseThrow(), "secreto-nuevo");
+
+		mockMvc.perform(get("/api/favorites").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private User user(String username) {
+		User user = new User(username, username + "@example.com", passwordEncoder.encode("secreto-actual"));
+		user.setRoles(Set.of(roleRegistry.get(Role.RoleName.ROLE_USER)));
+		return userRepository.save(user);
+	}
+
+	private static UsernamePasswordAuthenticationToken authentication(User user) {
+		UserDetailsImpl principal = UserDetailsImpl.build(user);
+		return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+
+	// Token de una sesión abierta antes del cambio (el claim iat tiene precisión de segundos)
+	private static String issuedSecondsAgo(User user, int seconds) {
+		long now = System.currentTimeMillis();
+		return Jwts.builder()
+				.setSubject(user.getUsername())
+				.setId(UUID.randomUUID().toString())
+				.setIssuedAt(new Date(now - seconds * 1000L))
+				.setExpiration(new Date(now + 60_000))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)), SignatureAlgorithm.HS256)
+				.compact();
+	}
+}
@@ -0,0 +1,195 @@
+package api_recipes.controllers;
+
+import api_recipes.models.*;
+import api_recipes.repository.CategoryRepository;
+import api_recipes.repository.RecipeRepository;
+import api_recipes.repository.UserRepository;
+import api_recipes.security.jwt.JwtUtils;
+import api_recipes.security.services.UserDetailsImpl;
+import api_recipes.services.RoleRegistry;
+import api_recipes.tracing.TracingFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Trazas de peticiones con muestreo total: tramos de la autenticación, la carga del usuario,
+ * el controlador, el servicio, el mapper, cada sentencia SQL y la serialización; consulta por
+ * el endpoint de administración y exportación a fichero en formato OTLP/JSON.
+ */
+@SpringBootTest(properties = {
+		"api_recipes.jwtSecret=dHJhY2luZy10ZXN0cy1zZWNyZXQta2V5LXRoYXQtaXMtbG9uZy1lbm91Z2gtZm9yLWhz",
+		"api_recipes.jwtExpirationMs=60000",
+		"app.base.url=http://localhost",
+		"spring.mail.host=localhost",
+		"api_recipes.tracing.sampleRate=1"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TracingTests {
+
+	private static final Path EXPORT_FILE = exportFile();
+
+	@DynamicPropertySource
+	static void exportFile(DynamicPropertyRegistry registry) {
+		registry.add("api_recipes.tracing.export.file", EXPORT_FILE::toString);
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private TransactionOperations transactionOperations;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	private String bearer;
+
+	@BeforeAll
+	void setUp() {
+		UserDetailsImpl admin = transactionOperations.execute(status -> {
+			User user = new User("trazas", "trazas@example.com", "secreto");
+			user.setRoles(Set.of(roleRegistry.get(Role.RoleName.ROLE_ADMIN)));
+			userRepository.save(user);
+			for (int i = 0; i < 3; i++) {
+				Recipe recipe = new Recipe();
+				recipe.setTitle("Traza " + i);
+				recipe.setDescription("Descripción");
+				recipe.setUser(user);
+				recipe.setCategories(new HashSet<>(categoryRepository.findAll().subList(0, 1)));
+				recipeRepository.save(recipe);
+			}
+			return UserDetailsImpl.build(user);
+		});
+		bearer = "Bearer " + jwtUtils.generateJwtToken(
+				new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+	}
+
+	@Test
+	void requestIsBrokenDownIntoNestedSpans() throws Exception {
+		String traceId = mockMvc.perform(get("/api/recipes/popular").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(TracingFilter.TRACE_ID_HEADER);
+		assertThat(traceId).hasSize(32);
+
+		JsonNode trace = objectMapper.readTree(mockMvc.perform(get("/api/admin/traces/{id}", traceId)
+						.header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		assertThat(trace.get("name").asText()).isEqualTo("GET /api/recipes/popular");
+
+		Map<String, JsonNode> byId = new HashMap<>();
+		trace.get("spans").forEach(span -> byId.put(span.get("spanId").asText(), span));
+		List<String> names = byId.values().stream().map(span -> span.get("name").asText()).toList();
+		assertThat(names).contains("AuthTokenFilter", "UserDetailsServiceImpl.loadUserByUsername",
+				"RecipeController.getPopularRecipes", "RecipeService.getPopularRecipes",
+				"RecipeMapperImpl.toDTO", "sql", "json.serialize");
+
+		// La carga del usuario va dentro del filtro y su consulta dentro de la carga
+		JsonNode userLookup = span(byId, "UserDetailsServiceImpl.loadUserByUsername");
+		assertThat(byId.get(userLookup.get("parentSpanId").asText()).get("name").asText()).isEqualTo("AuthTokenFilter");
+		assertThat(byId.values()).anySatisfy(span -> {
+			assertThat(span.get("name").asText()).isEqualTo("sql");
+			assertThat(span.get("parentSpanId").asText()).isEqualTo(userLookup.get("spanId").asText());
+			assertThat(span.get("attributes").get("db.statement").asText()).containsIgnoringCase("users");
+		});
+		assertThat(span(byId, "json.serialize").get("parentSpanId").asText())
+				.isEqualTo(trace.get("spans").get(0).get("spanId").asText());
+	}
+
+	@Test
+	void tracesAreListedAndExportedAsOtlp() throws Exception {
+		String traceId = mockMvc.perform(get("/api/categories"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(TracingFilter.TRACE_ID_HEADER);
+
+		JsonNode traces = objectMapper.readTree(mockMvc.perform(get("/api/admin/traces")
+						.header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		assertThat(traces.findValuesAsText("traceId")).contains(traceId);
+
+		// La exportación va en segundo plano
+		JsonNode exported = null;
+		for (int attempt = 0; attempt < 50 && exported == null; attempt++) {
+			if (Files.exists(EXPORT_FILE)) {
+				exported = Files.readAllLines(EXPORT_FILE).stream()
+						.filter(line -> line.contains(traceId))
+						.map(this::readTree)
+						.findFirst().orElse(null);
+			}
+			if (exported == null) {
+				Thread.sleep(100);
+			}
+		}
+		assertThat(exported).isNotNull();
+		JsonNode spans = exported.get("resourceSpans").get(0).get("scopeSpans").get(0).get("spans");
+		assertThat(spans.get(0).get("traceId").asText()).isEqualTo(traceId);
+		assertThat(spans.get(0).get("kind").asInt()).isEqualTo(2);
+		assertThat(Long.parseLong(spans.get(0).get("endTimeUnixNano").asText()))
+				.isGreaterThan(Long.parseLong(spans.get(0).get("startTimeUnixNano").asText()));
+	}
+
+	private static JsonNode span(Map<String, JsonNode> byId, String name) {
+		return byId.values().stream().filter(span -> span.get("name").asText().equals(name)).findFirst().orElseThrow();
+	}
+
+	private static Path exportFile() {
+		try {
+			return Files.createTempDirectory("traces").resolve("traces.jsonl");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private JsonNode readTree(String line) {
+		try {
+			return objectMapper.readTree(line);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
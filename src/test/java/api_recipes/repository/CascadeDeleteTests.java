@@ -0,0 +1,160 @@
+package api_recipes.repository;
+
+import api_recipes.models.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Borrados en cascada por la base de datos: recetas, categorías y usuarios se eliminan con un
+ * número fijo de sentencias, sin cargar ni recorrer sus colecciones.
+ * Se ejecuta sobre H2 con el esquema que genera Hibernate a partir de las entidades.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.flyway.enabled=false"
+})
+class CascadeDeleteTests {
+
+	private static final int FAN_OUT = 20;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private FavoriteRepository favoriteRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User author;
+	private Category category;
+	private Recipe recipe;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		author = user("autora");
+		category = persist(category("Postres"));
+		Category other = persist(category("Cenas"));
+		recipe = recipe(author, Set.of(category, other));
+		for (int i = 0; i < FAN_OUT; i++) {
+			Ingredient ingredient = new Ingredient();
+			ingredient.setName("Ingrediente " + i);
+			ingredient.setUnit_measure(Ingredient.UnitMeasure.GRAMOS);
+			persist(ingredient);
+			persist(new RecipeIngredient(null, recipe, ingredient, 10.0 + i));
+			persist(new Favorite(user("fan" + i), recipe));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void recipeIsDeletedWithOneStatement() {
+		recipeRepository.deleteByIds(List.of(recipe.getId()));
+		entityManager.flush();
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(count("recipes")).isZero();
+		assertThat(count("recipe_ingredients")).isZero();
+		assertThat(count("favorites")).isZero();
+		assertThat(count("recipe_categories")).isZero();
+		// Los ingredientes y las categorías no dependen de la receta
+		assertThat(count("ingredients")).isEqualTo(FAN_OUT);
+		assertThat(count("categories")).isEqualTo(2);
+	}
+
+	@Test
+	void categoryIsDeletedWithOneStatement() {
+		assertThat(categoryRepository.deleteCategoryById(category.getId())).isEqualTo(1);
+		entityManager.flush();
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(count("recipe_categories")).isEqualTo(1);
+		assertThat(count("recipes")).isEqualTo(1);
+		assertThat(categoryRepository.deleteCategoryById(category.getId())).isZero();
+	}
+
+	@Test
+	void userRecipesAndFavoritesAreDeletedWithoutWalkingCollections() {
+		Recipe second = recipe(user("otra"), Set.of());
+		persist(new Favorite(author, second));
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		// Lo que hace cada tramo del borrado de usuarios
+		List<Long> ids = List.of(recipe.getId());
+		assertThat(favoriteRepository.deleteByRecipeIds(ids)).isEqualTo(FAN_OUT);
+		recipeRepository.deleteByIds(ids);
+		// Y el paso final: sus propios favoritos caen con el usuario
+		userRepository.delete(entityManager.find(User.class, author.getId()));
+		entityManager.flush();
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+		assertThat(count("recipe_ingredients")).isZero();
+		assertThat(count("recipe_categories")).isZero();
+		assertThat(count("favorites")).isZero();
+		assertThat(count("recipes")).isEqualTo(1);
+	}
+
+	private User user(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword("secreto");
+		return persist(user);
+	}
+
+	private static Category category(String name) {
+		Category category = new Category();
+		category.setName(name);
+		return category;
+	}
+
+	private Recipe recipe(User user, Set<Category> categories) {
+		Recipe recipe = new Recipe();
+		recipe.setTitle("Receta de " + user.getUsername());
+		recipe.setDescription("Descripción");
+		recipe.setUser(user);
+		recipe.setCategories(new HashSet<>(categories));
+		return persist(recipe);
+	}
+
+	private <T> T persist(T entity) {
+		return entityManager.persist(entity);
+	}
+
+	private int count(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+}
@@ -0,0 +1,83 @@
+package api_recipes.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migraciones sobre una base de datos de antes de Flyway: con el esquema que generaba Hibernate y
+ * baseline-on-migrate, Flyway la toma como V1 y las siguientes la dejan igual que una nueva
+ * (tablas nuevas, columnas de búsqueda rellenas y claves foráneas en cascada).
+ */
+class MigrationUpgradeTests {
+
+	@Test
+	void baselineDatabaseIsUpgradedByTheLaterMigrations() {
+		DataSource dataSource = newDatabase();
+		new ResourceDatabasePopulator(new ClassPathResource("db/hibernate-baseline.sql")).execute(dataSource);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.update("INSERT INTO users (username, email, password) VALUES (' Ana ', 'Ana@Example.com', 'x')");
+		long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ' Ana '", Long.class);
+		long recipeId = insertRecipeWithFavorite(jdbc, userId);
+
+		Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+		assertThat(jdbc.queryForObject("SELECT username_normalized FROM users WHERE id = ?", String.class, userId))
+				.isEqualTo("ana");
+		assertThat(jdbc.queryForObject("SELECT email_normalized FROM users WHERE id = ?", String.class, userId))
+				.isEqualTo("ana@example.com");
+		for (String table : new String[] {"REVOKED_TOKENS", "IMAGE_BLOBS", "EMAIL_OUTBOX", "USER_DELETION_JOBS"}) {
+			assertThat(tableExists(jdbc, table)).as(table).isTrue();
+		}
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM roles", Integer.class)).isEqualTo(3);
+
+		assertThat(cascadeForeignKeys(jdbc)).isEqualTo(6);
+		jdbc.update("DELETE FROM recipes WHERE id = ?", recipeId);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM favorites", Integer.class)).isZero();
+	}
+
+	@Test
+	void newDatabaseEndsWithTheSameCascades() {
+		DataSource dataSource = newDatabase();
+
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		assertThat(cascadeForeignKeys(jdbc)).isEqualTo(6);
+		// Una sola clave por columna: la de V1 se ha sustituido, no duplicado
+		assertThat(jdbc.queryForObject(
+				"SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+						+ "WHERE CONSTRAINT_TYPE = 'FOREIGN KEY' AND TABLE_NAME = 'FAVORITES'", Integer.class))
+				.isEqualTo(2);
+	}
+
+	private static DataSource newDatabase() {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+	}
+
+	private static long insertRecipeWithFavorite(JdbcTemplate jdbc, long userId) {
+		jdbc.update("INSERT INTO recipes (popularity, user_id, title, description) VALUES (0, ?, 'Receta', 'Descripción')",
+				userId);
+		long recipeId = jdbc.queryForObject("SELECT id FROM recipes WHERE title = 'Receta'", Long.class);
+		jdbc.update("INSERT INTO favorites (recipe_id, user_id) VALUES (?, ?)", recipeId, userId);
+		return recipeId;
+	}
+
+	private static boolean tableExists(JdbcTemplate jdbc, String table) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = ?",
+				Integer.class, table) == 1;
+	}
+
+	private static int cascadeForeignKeys(JdbcTemplate jdbc) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS "
+				+ "WHERE DELETE_RULE = 'CASCADE'", Integer.class);
+	}
+}
@@ -0,0 +1,137 @@
+package api_recipes.repository;
+
+import api_recipes.models.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Planes de las consultas frecuentes sobre el esquema de las migraciones: cada consulta se lanza
+ * desde su repositorio, se recoge el SQL que genera Hibernate y se comprueba con EXPLAIN que usa
+ * su índice. Si una consulta cambia y deja de poder usarlo, la prueba falla.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=api_recipes.repository.QueryPlanTests$SqlLog"
+})
+class QueryPlanTests {
+
+	private static final int RECIPES = 50;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private TokenUserRepository tokenUserRepository;
+
+	private User author;
+	private Ingredient ingredient;
+
+	@BeforeEach
+	void setUp() {
+		author = entityManager.persist(new User("autora", "autora@example.com", "secreto"));
+		User other = entityManager.persist(new User("otra", "otra@example.com", "secreto"));
+		ingredient = entityManager.persist(Ingredient.builder()
+				.name("Azafrán").unit_measure(Ingredient.UnitMeasure.GRAMOS).active(true).build());
+		for (int i = 0; i < RECIPES; i++) {
+			Recipe recipe = new Recipe();
+			recipe.setTitle("Receta " + i);
+			recipe.setDescription("Descripción");
+			recipe.setUser(i % 2 == 0 ? author : other);
+			recipe.setPopularity(i % 7);
+			entityManager.persist(recipe);
+			if (i % 10 == 0) {
+				entityManager.persist(new RecipeIngredient(null, recipe, ingredient, 1.0));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		SqlLog.clear();
+	}
+
+	@Test
+	void recipeTitleLookupsUseTheTitleIndex() {
+		recipeRepository.findByTitle("Receta 3");
+		assertThat(plan("Receta 3")).contains("IDX_RECIPES_TITLE").doesNotContain("tableScan");
+
+		recipeRepository.existsByTitleAndIdNot("Receta 3", 1L);
+		assertThat(plan("Receta 3", 1L, 1)).contains("IDX_RECIPES_TITLE").doesNotContain("tableScan");
+	}
+
+	@Test
+	void recipesOfAUserUseTheUserForeignKeyIndex() {
+		recipeRepository.findByUserId(author.getId());
+		assertThat(plan(author.getId())).contains("FK_RECIPES_USER").doesNotContain("tableScan");
+
+		recipeRepository.findByUserIdOrderById(author.getId(), PageRequest.of(0, 10));
+		assertThat(plan(author.getId(), 0, 10)).contains("FK_RECIPES_USER").doesNotContain("tableScan");
+
+		assertThat(recipeRepository.countByUserId(author.getId())).isEqualTo(RECIPES / 2);
+		assertThat(plan(author.getId())).contains("FK_RECIPES_USER").doesNotContain("tableScan");
+	}
+
+	@Test
+	void popularRecipesAreReadInIndexOrder() {
+		List<Recipe> popular = recipeRepository.findByOrderByPopularityDescIdDesc(Limit.of(5));
+
+		assertThat(popular).extracting(Recipe::getPopularity).containsExactly(6, 6, 6, 6, 6);
+		assertThat(plan(0, 5)).contains("IDX_RECIPES_POPULARITY").contains("index sorted");
+	}
+
+	@Test
+	void ingredientUsageCheckOnlyReadsTheIngredientForeignKeyIndex() {
+		assertThat(recipeRepository.existsByRecipeIngredients_Ingredient_Id(ingredient.getId())).isTrue();
+
+		assertThat(plan(ingredient.getId())).contains("FK_RECIPE_INGREDIENTS_INGREDIENT").doesNotContain("tableScan").doesNotContain("RECIPES\"");
+	}
+
+	@Test
+	void expiredTokenPurgeUsesTheExpiryIndex() {
+		tokenUserRepository.findExpiredIds(new Date(), 100);
+
+		assertThat(plan(new Date(), 100)).contains("IDX_TOKENS_EXPIRY_DATE").doesNotContain("tableScan");
+	}
+
+	// Plan de la última sentencia que lanzó Hibernate, con los mismos parámetros
+	private String plan(Object... parameters) {
+		String sql = SqlLog.last();
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+	}
+
+	/**
+	 * Registra el SQL que llega a la base de datos.
+	 */
+	public static class SqlLog implements StatementInspector {
+		private static final Deque<String> STATEMENTS = new ConcurrentLinkedDeque<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+
+		static void clear() {
+			STATEMENTS.clear();
+		}
+
+		static String last() {
+			return STATEMENTS.getLast();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package api_recipes.repository;
+
+import api_recipes.config.SecondLevelCacheConfig;
+import api_recipes.models.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Caché de segundo nivel: las lecturas repetidas de una receta no vuelven a consultar
+ * categorías ni ingredientes, y los borrados nativos solo invalidan las regiones de sus tablas.
+ * Cada paso va en su propia transacción, como en peticiones distintas.
+ */
+@DataJpaTest(properties = {
+		"spring.sql.init.mode=never",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=api_recipes.repository.SecondLevelCacheTests$SqlLog"
+})
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+	private static final int INGREDIENTS = 5;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionOperations transactionOperations;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private RecipeIngredientRepository recipeIngredientRepository;
+
+	@Autowired
+	private TokenUserRepository tokenUserRepository;
+
+	private Long recipeId;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		recipeId = transactionOperations.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			User user = new User("u" + suffix, suffix + "@example.com", "secreto");
+			user.setRoles(Set.of(roleRepository.save(Role.builder().name(Role.RoleName.ROLE_USER).build())));
+			userRepository.save(user);
+
+			Recipe recipe = new Recipe();
+			recipe.setTitle("Receta " + suffix);
+			recipe.setDescription("Descripción");
+			recipe.setUser(user);
+			recipe.setCategories(new HashSet<>(List.of(
+					categoryRepository.save(Category.builder().name("Cenas " + suffix).build()),
+					categoryRepository.save(Category.builder().name("Postres " + suffix).build()))));
+			recipeRepository.save(recipe);
+			for (int i = 0; i < INGREDIENTS; i++) {
+				Ingredient ingredient = ingredientRepository.save(Ingredient.builder()
+						.name("Ingrediente " + i + " " + suffix).unit_measure(Ingredient.UnitMeasure.GRAMOS).active(true).build());
+				recipeIngredientRepository.save(new RecipeIngredient(null, recipe, ingredient, 1.0 + i));
+			}
+			return recipe.getId();
+		});
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+		SqlLog.clear();
+	}
+
+	@Test
+	void repeatedRecipeReadsDoNotQueryCategoriesOrIngredients() {
+		List<String> first = readRecipe();
+		assertThat(SqlLog.touching(" categories ")).isNotEmpty();
+		assertThat(SqlLog.touching(" ingredients ")).isNotEmpty();
+
+		SqlLog.clear();
+		List<String> second = readRecipe();
+
+		assertThat(second).isEqualTo(first);
+		assertThat(SqlLog.touching(" categories ")).isEmpty();
+		assertThat(SqlLog.touching(" ingredients ")).isEmpty();
+		assertThat(statistics.getDomainDataRegionStatistics("categories").getHitCount()).isEqualTo(2);
+		assertThat(statistics.getDomainDataRegionStatistics("ingredients").getHitCount()).isEqualTo(INGREDIENTS);
+		assertThat(statistics.getDomainDataRegionStatistics("recipes.categories").getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void nativeDeletesOnlyInvalidateTheirTables() {
+		readRecipe();
+		Long categoryId = transactionOperations.execute(status ->
+				recipeRepository.findById(recipeId).orElseThrow().getCategories().iterator().next().getId());
+
+		// Purga de tokens: no toca ninguna tabla en caché
+		transactionOperations.executeWithoutResult(status -> tokenUserRepository.deleteByIds(List.of(-1L)));
+		assertThat(entityManagerFactory.getCache().contains(Category.class, categoryId)).isTrue();
+
+		transactionOperations.executeWithoutResult(status -> categoryRepository.deleteCategoryById(categoryId));
+		assertThat(entityManagerFactory.getCache().contains(Category.class, categoryId)).isFalse();
+
+		SqlLog.clear();
+		List<String> names = readRecipe();
+		assertThat(names).filteredOn(name -> name.startsWith("Cenas") || name.startsWith("Postres")).hasSize(1);
+		// Los ingredientes siguen en caché
+		assertThat(SqlLog.touching(" ingredients ")).isEmpty();
+	}
+
+	// Nombres de las categorías y los ingredientes de la receta, leídos como al mapear la respuesta
+	private List<String> readRecipe() {
+		return transactionOperations.execute(status -> {
+			Recipe recipe = recipeRepository.findById(recipeId).orElseThrow();
+			List<String> names = new ArrayList<>();
+			recipe.getCategories().forEach(category -> names.add(category.getName()));
+			recipe.getRecipeIngredients().forEach(item -> names.add(item.getIngredient().getName()));
+			Collections.sort(names);
+			return names;
+		});
+	}
+
+	/**
+	 * Registra el SQL que llega a la base de datos.
+	 */
+	public static class SqlLog implements StatementInspector {
+		private static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+
+		static void clear() {
+			STATEMENTS.clear();
+		}
+
+		static List<String> touching(String table) {
+			return STATEMENTS.stream()
+					.filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("select"))
+					.filter(sql -> (sql.toLowerCase(Locale.ROOT) + " ").contains(table))
+					.toList();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package api_recipes.security.jwt;
+
+import api_recipes.models.RevokedToken;
+import api_recipes.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lista de revocación: filtro de Bloom con confirmación en el conjunto exacto, purga de
+ * entradas caducadas y reconstrucción desde {@code revoked_tokens} al arrancar.
+ */
+class TokenDenylistTests {
+
+	private RevokedTokenRepository revokedTokenRepository;
+
+	@BeforeEach
+	void setUp() {
+		revokedTokenRepository = mock(RevokedTokenRepository.class);
+		when(revokedTokenRepository.findAllByExpiresAtAfter(any())).thenReturn(List.of());
+	}
+
+	@Test
+	void revokedTokenIsPersistedAndRejected() {
+		TokenDenylist denylist = denylist(1 << 16, 4);
+
+		denylist.revoke("revocado", inMillis(60_000));
+
+		assertThat(denylist.isRevoked("revocado")).isTrue();
+		assertThat(denylist.isRevoked("otro")).isFalse();
+		assertThat(denylist.isRevoked(null)).isFalse();
+		verify(revokedTokenRepository).save(argThat(token -> token.getJti().equals("revocado")));
+	}
+
+	@Test
+	void bloomFalsePositivesAreResolvedByTheExactSet() {
+		// 64 bits y una función hash: con 500 revocaciones el filtro queda saturado y deja pasar todo
+		TokenDenylist denylist = denylist(64, 1);
+		for (int i = 0; i < 500; i++) {
+			denylist.revoke("revocado-" + i, inMillis(60_000));
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			assertThat(denylist.isRevoked(UUID.randomUUID().toString())).isFalse();
+		}
+		assertThat(denylist.isRevoked("revocado-123")).isTrue();
+	}
+
+	@Test
+	void expiredOrIncompleteRevocationsAreIgnored() {
+		TokenDenylist denylist = denylist(1 << 16, 4);
+
+		denylist.revoke("caducado", inMillis(-1000));
+		denylist.revoke(null, inMillis(60_000));
+		denylist.revoke("sin-expiracion", null);
+
+		assertThat(denylist.isRevoked("caducado")).isFalse();
+		verify(revokedTokenRepository, never()).save(any());
+	}
+
+	@Test
+	void purgeDropsExpiredEntriesFromMemoryAndDatabase() throws Exception {
+		TokenDenylist denylist = denylist(1 << 16, 4);
+		denylist.revoke("breve", inMillis(100));
+		denylist.revoke("vigente", inMillis(60_000));
+		assertThat(denylist.isRevoked("breve")).isTrue();
+
+		Thread.sleep(200);
+		denylist.purgeExpired();
+
+		assertThat(denylist.isRevoked("breve")).isFalse();
+		assertThat(denylist.isRevoked("vigente")).isTrue();
+		verify(revokedTokenRepository).deleteExpired(any(Date.class));
+	}
+
+	@Test
+	void startupRebuildsTheListFromPersistedRevocations() {
+		when(revokedTokenRepository.findAllByExpiresAtAfter(any())).thenReturn(List.of(
+				RevokedToken.builder().jti("persistido").expiresAt(inMillis(60_000)).build()));
+
+		TokenDenylist denylist = denylist(1 << 16, 4);
+
+		assertThat(denylist.isRevoked("persistido")).isTrue();
+		assertThat(denylist.isRevoked("otro")).isFalse();
+		verify(revokedTokenRepository, never()).save(any());
+	}
+
+	private TokenDenylist denylist(int bloomBits, int hashFunctions) {
+		TokenDenylist denylist = new TokenDenylist(revokedTokenRepository, bloomBits, hashFunctions);
+		denylist.load();
+		return denylist;
+	}
+
+	private static Date inMillis(long millis) {
+		return new Date(System.currentTimeMillis() + millis);
+	}
+}
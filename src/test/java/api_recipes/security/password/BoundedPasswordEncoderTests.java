@@ -0,0 +1,176 @@
+package api_recipes.security.password;
+
+import api_recipes.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tormenta de logins contra un pool de "hilos de Tomcat" compartido con lecturas baratas.
+ * El delegado simula un hash de 100 ms, o uno que no termina hasta que la prueba lo libera,
+ * para que la prueba no dependa de la CPU.
+ */
+class BoundedPasswordEncoderTests {
+
+	private static final int REQUEST_THREADS = 8;
+	private static final int LOGINS = 64;
+	private static final int READS = 16;
+	private static final long HASH_MILLIS = 100;
+
+	@Test
+	void recipeReadsCompleteWhileTheHashPoolIsSaturated() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch release = new CountDownLatch(1);
+		SlowPasswordEncoder delegate = new SlowPasswordEncoder(release);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, 30_000, 2, registry);
+		ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+		try {
+			AtomicInteger rejected = new AtomicInteger();
+			List<Future<?>> logins = new ArrayList<>();
+			for (int i = 0; i < LOGINS; i++) {
+				logins.add(requestThreads.submit(() -> {
+					try {
+						encoder.matches("password", "hash");
+					} catch (ServiceOverloadedException e) {
+						rejected.incrementAndGet();
+					}
+				}));
+			}
+
+			// Un hash en curso (bloqueado) y otro en cola: el resto se rechaza sin ocupar el hilo
+			List<Future<Integer>> reads = new ArrayList<>();
+			for (int i = 0; i < READS; i++) {
+				int read = i;
+				reads.add(requestThreads.submit(() -> read));
+			}
+			for (Future<Integer> read : reads) {
+				read.get(30, TimeUnit.SECONDS);
+			}
+			// Todas las lecturas han terminado sin que el pool de hashing quedara libre
+			assertThat(delegate.concurrent.get()).isEqualTo(1);
+			assertThat(release.getCount()).isEqualTo(1);
+
+			release.countDown();
+			for (Future<?> login : logins) {
+				login.get(30, TimeUnit.SECONDS);
+			}
+			assertThat(rejected.get()).isEqualTo(LOGINS - 2);
+			assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(LOGINS - 2);
+			assertThat(registry.get("password.hashing.duration").tag("operation", "matches").timer().count()).isEqualTo(2);
+		} finally {
+			release.countDown();
+			requestThreads.shutdownNow();
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void withoutTheBoundedPoolReadsQueueBehindTheStorm() throws Exception {
+		StormResult result = runStorm(new SlowPasswordEncoder());
+
+		// 64 logins / 8 hilos * 100 ms: las lecturas esperan a que termine la tormenta
+		assertThat(result.maxReadLatencyMs).isGreaterThan(500);
+		assertThat(result.rejectedLogins).isZero();
+	}
+
+	@Test
+	void hashingConcurrencyNeverExceedsThePoolSize() throws Exception {
+		SlowPasswordEncoder delegate = new SlowPasswordEncoder();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 2, 4, 5000, 2, new SimpleMeterRegistry());
+		try {
+			runStorm(encoder);
+			assertThat(delegate.maxConcurrent.get()).isLessThanOrEqualTo(2);
+		} finally {
+			encoder.shutdown();
+		}
+	}
+
+	private StormResult runStorm(PasswordEncoder encoder) throws Exception {
+		ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+		try {
+			AtomicInteger rejected = new AtomicInteger();
+			List<Future<?>> logins = new ArrayList<>();
+			for (int i = 0; i < LOGINS; i++) {
+				logins.add(requestThreads.submit(() -> {
+					try {
+						encoder.matches("password", "hash");
+					} catch (ServiceOverloadedException e) {
+						rejected.incrementAndGet();
+					}
+				}));
+			}
+
+			List<Future<Long>> reads = new ArrayList<>();
+			for (int i = 0; i < READS; i++) {
+				long submittedAt = System.nanoTime();
+				reads.add(requestThreads.submit(() -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt)));
+			}
+
+			long maxReadLatencyMs = 0;
+			for (Future<Long> read : reads) {
+				maxReadLatencyMs = Math.max(maxReadLatencyMs, read.get(30, TimeUnit.SECONDS));
+			}
+			for (Future<?> login : logins) {
+				login.get(30, TimeUnit.SECONDS);
+			}
+			return new StormResult(maxReadLatencyMs, rejected.get());
+		} finally {
+			requestThreads.shutdownNow();
+		}
+	}
+
+	private record StormResult(long maxReadLatencyMs, int rejectedLogins) {
+	}
+
+	private static class SlowPasswordEncoder implements PasswordEncoder {
+		private final AtomicInteger concurrent = new AtomicInteger();
+		private final AtomicInteger maxConcurrent = new AtomicInteger();
+		private final CountDownLatch release;
+
+		SlowPasswordEncoder() {
+			this(null);
+		}
+
+		SlowPasswordEncoder(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			hash();
+			return "hash";
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			hash();
+			return true;
+		}
+
+		private void hash() {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			try {
+				if (release != null) {
+					release.await(30, TimeUnit.SECONDS);
+				} else {
+					Thread.sleep(HASH_MILLIS);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				concurrent.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package api_recipes.security.password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Límites de la calibración del coste de BCrypt y re-hash solo hacia un coste mayor.
+ * Se usan costes bajos para que cada hash tarde como mucho unas decenas de milisegundos.
+ */
+class CalibratedBCryptPasswordEncoderTests {
+
+	@Test
+	void calibrationNeverGoesBelowTheMinimum() {
+		// Con coste 8 el hash tarda más de 1 ms: ningún coste cabe y se queda en el mínimo
+		assertThat(CalibratedBCryptPasswordEncoder.calibrate(0, 8, 10).getStrength()).isEqualTo(8);
+	}
+
+	@Test
+	void calibrationNeverGoesAboveTheMaximum() {
+		assertThat(CalibratedBCryptPasswordEncoder.calibrate(60_000, 4, 6).getStrength()).isEqualTo(6);
+	}
+
+	@Test
+	void calibratedEncoderHashesWithTheChosenCost() {
+		CalibratedBCryptPasswordEncoder encoder = CalibratedBCryptPasswordEncoder.calibrate(60_000, 4, 5);
+
+		String hash = encoder.encode("secreto");
+
+		assertThat(hash).startsWith("$2a$05$");
+		assertThat(encoder.matches("secreto", hash)).isTrue();
+		assertThat(encoder.upgradeEncoding(hash)).isFalse();
+	}
+
+	@Test
+	void onlyHashesWithALowerCostAreUpgraded() {
+		CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secreto"))).isTrue();
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secreto"))).isFalse();
+		// Hash subido por un nodo calibrado con más coste: no se baja
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secreto"))).isFalse();
+	}
+
+	@Test
+	void unknownEncodingsAreNotUpgraded() {
+		CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+		assertThat(encoder.upgradeEncoding(null)).isFalse();
+		assertThat(encoder.upgradeEncoding("")).isFalse();
+		assertThat(encoder.upgradeEncoding("{noop}secreto")).isFalse();
+	}
+}
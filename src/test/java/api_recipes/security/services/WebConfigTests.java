@@ -0,0 +1,89 @@
+package api_recipes.security.services;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Recursos estáticos de /images: solo se sirven los directorios de imágenes antiguas, nunca los
+ * segmentos empaquetados ni los temporales que haya bajo el mismo directorio.
+ */
+@SpringJUnitWebConfig(WebConfigTests.TestConfig.class)
+class WebConfigTests {
+
+	@TempDir
+	static Path imagesDir;
+
+	@Autowired
+	private WebApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@DynamicPropertySource
+	static void imagesDir(DynamicPropertyRegistry registry) {
+		registry.add("api_recipes.images.dir", () -> imagesDir.toString());
+	}
+
+	@BeforeAll
+	static void createFiles() throws Exception {
+		write("recipes/7/foto.jpg");
+		write("ingredients/tomate.png");
+		write("packs/segment-000001.pack");
+		write("blobs/.incoming/3f2b6c1e-0d7a-4c53-9b1e-5a8f2d6e4c10.tmp");
+	}
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+	}
+
+	@Test
+	void legacyImagesAreServedWithOneDayCache() throws Exception {
+		mockMvc.perform(get("/images/recipes/7/foto.jpg"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "max-age=86400, public"));
+		mockMvc.perform(get("/images/ingredients/tomate.png"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void packSegmentsAreNotServed() throws Exception {
+		mockMvc.perform(get("/images/packs/segment-000001.pack"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void stagingFilesAreNotServed() throws Exception {
+		mockMvc.perform(get("/images/blobs/.incoming/3f2b6c1e-0d7a-4c53-9b1e-5a8f2d6e4c10.tmp"))
+				.andExpect(status().isNotFound());
+	}
+
+	private static void write(String file) throws Exception {
+		Path path = imagesDir.resolve(file);
+		Files.createDirectories(path.getParent());
+		Files.write(path, new byte[]{1, 2, 3});
+	}
+
+	@Configuration
+	@EnableWebMvc
+	@Import(WebConfig.class)
+	static class TestConfig {
+	}
+}
@@ -0,0 +1,140 @@
+package api_recipes.services;
+
+import api_recipes.models.EmailOutbox;
+import api_recipes.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Despacho de la bandeja de salida contra un servidor SMTP en memoria (GreenMail).
+ * El repositorio se simula con una lista para no depender de la base de datos.
+ */
+class EmailOutboxServiceTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private final List<EmailOutbox> outbox = new ArrayList<>();
+	private EmailOutboxRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		outbox.clear();
+		repository = mock(EmailOutboxRepository.class);
+		when(repository.findDueForUpdate(any(), any(), any())).thenAnswer(invocation -> {
+			EmailOutbox.Status status = invocation.getArgument(0);
+			Date now = invocation.getArgument(1);
+			Pageable pageable = invocation.getArgument(2);
+			return outbox.stream()
+					.filter(e -> e.getStatus() == status && !e.getNextAttemptAt().after(now))
+					.limit(pageable.getPageSize())
+					.toList();
+		});
+	}
+
+	@Test
+	void pendingEmailsAreSentInBatchesAndMarkedAsSent() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			outbox.add(pending("user" + i + "@example.com"));
+		}
+
+		service(mailSender(greenMail.getSmtp().getPort()), 2, 3).dispatchPending();
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertThat(received).hasSize(5);
+		assertThat(received[0].getSubject()).isEqualTo("Restablecer contraseña");
+		assertThat(outbox).allSatisfy(e -> {
+			assertThat(e.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+			assertThat(e.getSentAt()).isNotNull();
+		});
+	}
+
+	@Test
+	void smtpFailureSchedulesRetryWithExponentialBackoff() {
+		EmailOutbox email = pending("user@example.com");
+		outbox.add(email);
+		EmailOutboxService service = service(mailSender(closedPort()), 10, 3);
+
+		long before = System.currentTimeMillis();
+		service.dispatchPending();
+
+		assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+		assertThat(email.getAttempts()).isEqualTo(1);
+		assertThat(email.getLastError()).isNotBlank();
+		assertThat(email.getNextAttemptAt().getTime() - before).isBetween(1000L, 1000L + 5000);
+
+		email.setNextAttemptAt(new Date(0));
+		before = System.currentTimeMillis();
+		service.dispatchPending();
+
+		assertThat(email.getAttempts()).isEqualTo(2);
+		assertThat(email.getNextAttemptAt().getTime() - before).isBetween(2000L, 2000L + 5000);
+		assertThat(greenMail.getReceivedMessages()).isEmpty();
+	}
+
+	@Test
+	void emailIsMarkedAsFailedAfterMaxAttempts() {
+		EmailOutbox email = pending("user@example.com");
+		outbox.add(email);
+		EmailOutboxService service = service(mailSender(closedPort()), 10, 2);
+
+		service.dispatchPending();
+		email.setNextAttemptAt(new Date(0));
+		service.dispatchPending();
+
+		assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.FAILED);
+		assertThat(email.getAttempts()).isEqualTo(2);
+	}
+
+	private EmailOutboxService service(JavaMailSenderImpl mailSender, int batchSize, int maxAttempts) {
+		return new EmailOutboxService(repository, mailSender, TransactionOperations.withoutTransaction(),
+				batchSize, maxAttempts, 1000, 60000);
+	}
+
+	private static JavaMailSenderImpl mailSender(int port) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("127.0.0.1");
+		mailSender.setPort(port);
+		mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "1000");
+		mailSender.getJavaMailProperties().put("mail.smtp.from", "noreply@example.com");
+		return mailSender;
+	}
+
+	private static int closedPort() {
+		try (java.net.ServerSocket socket = new java.net.ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (java.io.IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static EmailOutbox pending(String recipient) {
+		Date now = new Date();
+		return EmailOutbox.builder()
+				.id((long) recipient.hashCode())
+				.recipient(recipient)
+				.subject("Restablecer contraseña")
+				.body("Haz clic en el siguiente enlace para crear una nueva")
+				.status(EmailOutbox.Status.PENDING)
+				.attempts(0)
+				.nextAttemptAt(now)
+				.createdAt(now)
+				.build();
+	}
+}
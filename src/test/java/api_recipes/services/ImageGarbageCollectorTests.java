@@ -0,0 +1,139 @@
+package api_recipes.services;
+
+import api_recipes.models.ImageBlob;
+import api_recipes.payload.response.ImageGcReport;
+import api_recipes.repository.ImageBlobRepository;
+import api_recipes.repository.IngredientRepository;
+import api_recipes.repository.RecipeRepository;
+import api_recipes.storage.FileSystemImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reconciliación de ficheros y contadores de imágenes contra las referencias en base de datos.
+ */
+class ImageGarbageCollectorTests {
+
+	private static final String LIVE = "aa" + "1".repeat(62);
+	private static final String LEAKED = "bb" + "2".repeat(62);
+	private static final FileTime OLD = FileTime.fromMillis(System.currentTimeMillis() - 2 * 3600_000L);
+
+	@TempDir
+	Path imagesDir;
+
+	private final Map<String, ImageBlob> blobs = new LinkedHashMap<>();
+	private final List<String> recipeUrls = new ArrayList<>();
+	private ImageBlobRepository blobRepository;
+	private ImageGarbageCollector collector;
+	private Path blobDir;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		blobDir = imagesDir.resolve("blobs");
+		blobRepository = mock(ImageBlobRepository.class);
+		when(blobRepository.findByIdGreaterThanOrderById(anyLong(), any())).thenAnswer(invocation -> {
+			long after = invocation.getArgument(0);
+			return blobs.values().stream().filter(b -> b.getId() > after).toList();
+		});
+		when(blobRepository.findByHashForUpdate(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(blobs.get(invocation.<String>getArgument(0))));
+		doAnswer(invocation -> blobs.remove(invocation.<ImageBlob>getArgument(0).getHash()))
+				.when(blobRepository).delete(any());
+
+		RecipeRepository recipeRepository = mock(RecipeRepository.class);
+		when(recipeRepository.findAllImageUrls()).thenReturn(recipeUrls);
+		when(recipeRepository.countByImageUrl(anyString()))
+				.thenAnswer(invocation -> recipeUrls.stream().filter(invocation.getArgument(0)::equals).count());
+		IngredientRepository ingredientRepository = mock(IngredientRepository.class);
+		when(ingredientRepository.findAllImageUrls()).thenReturn(List.of());
+
+		ImageUploadService uploadService = mock(ImageUploadService.class);
+		when(uploadService.deleteBlobIfUnreferenced(anyString(), anyString())).thenAnswer(invocation -> {
+			String hash = invocation.getArgument(0);
+			return !blobs.containsKey(hash)
+					&& Files.deleteIfExists(blobDir.resolve(hash.substring(0, 2)).resolve(hash + invocation.getArgument(1)));
+		});
+
+		collector = new ImageGarbageCollector(blobRepository, recipeRepository, ingredientRepository, uploadService,
+				TransactionOperations.withoutTransaction(), new FileSystemImageStore(blobDir), imagesDir.toString(),
+				3600_000L, 1, 0, false);
+	}
+
+	@Test
+	void dryRunReportsOrphansWithoutDeleting() throws Exception {
+		Path referenced = file("recipes/1/recipe_a.jpg", OLD);
+		Path orphan = file("recipes/2/recipe_b.jpg", OLD);
+		recipeUrls.add("/images/recipes/1/recipe_a.jpg");
+
+		ImageGcReport report = collector.collect(true);
+
+		assertThat(report.isDryRun()).isTrue();
+		assertThat(report.getScannedFiles()).isEqualTo(2);
+		assertThat(report.getOrphanFiles()).isEqualTo(1);
+		assertThat(report.getSample()).containsExactly(orphan.toString());
+		assertThat(report.getDeletedFiles()).isZero();
+		assertThat(orphan).exists();
+		assertThat(referenced).exists();
+	}
+
+	@Test
+	void unreferencedLegacyFilesAreDeletedButRecentOnesAreKept() throws Exception {
+		Path orphan = file("ingredients/ingredient_old.png", OLD);
+		Path recent = file("ingredients/ingredient_new.png", FileTime.fromMillis(System.currentTimeMillis()));
+
+		ImageGcReport report = collector.collect(false);
+
+		assertThat(report.getDeletedFiles()).isEqualTo(1);
+		assertThat(orphan).doesNotExist();
+		assertThat(recent).exists();
+		assertThat(imagesDir.resolve("recipes")).doesNotExist();
+	}
+
+	@Test
+	void leakedReferencesAreReconciled() throws Exception {
+		blob(1, LIVE, 2);
+		blob(2, LEAKED, 1);
+		Path live = file("blobs/aa/" + LIVE + ".jpg", OLD);
+		Path leaked = file("blobs/bb/" + LEAKED + ".jpg", OLD);
+		file("blobs/bb/" + LEAKED + "_thumb.jpg", OLD);
+		Path staging = file("blobs/.incoming/" + UUID.randomUUID() + ".tmp", OLD);
+		recipeUrls.add("/images/blobs/aa/" + LIVE + ".jpg");
+
+		ImageGcReport report = collector.collect(false);
+
+		assertThat(blobs).containsOnlyKeys(LIVE);
+		assertThat(blobs.get(LIVE).getRefCount()).isEqualTo(1);
+		assertThat(report.getFixedRefCounts()).isEqualTo(2);
+		assertThat(report.getReleasedBlobs()).isEqualTo(1);
+		assertThat(live).exists();
+		assertThat(leaked).doesNotExist();
+		assertThat(staging).doesNotExist();
+		assertThat(report.getOrphanFiles()).isEqualTo(3);
+		verify(blobRepository, never()).saveAndFlush(any());
+	}
+
+	private void blob(long id, String hash, int refCount) {
+		Date old = new Date(OLD.toMillis());
+		blobs.put(hash, ImageBlob.builder().id(id).hash(hash).extension(".jpg").size(1)
+				.refCount(refCount).createdAt(old).updatedAt(old).build());
+	}
+
+	private Path file(String relative, FileTime modified) throws Exception {
+		Path path = imagesDir.resolve(relative);
+		Files.createDirectories(path.getParent());
+		Files.write(path, new byte[]{1, 2, 3});
+		Files.setLastModifiedTime(path, modified);
+		return path;
+	}
+}
@@ -0,0 +1,164 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.models.Ingredient;
+import api_recipes.models.Recipe;
+import api_recipes.payload.response.ImageImportReport;
+import api_recipes.payload.response.ImageImportReport.Entry;
+import api_recipes.payload.response.ImageImportReport.Status;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Importación masiva desde un ZIP: lectura por entradas, actualización por lotes e informe.
+ * La subida y la base de datos se simulan: cada imagen recibe la URL de su contenido.
+ */
+class ImageImportServiceTests {
+
+	private final Map<String, Map<Long, String>> tables = Map.of(
+			"ingredients", new HashMap<>(Map.of(12L, "/images/ingredients/old.png")),
+			"recipes", new HashMap<>(Collections.singletonMap(7L, null)));
+	private final List<SqlParameterSource[]> batches = new ArrayList<>();
+	private ImageUploadService uploadService;
+	private ImageImportService service;
+	private Cache cache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		uploadService = mock(ImageUploadService.class);
+		when(uploadService.uploadImage(any(InputStream.class), anyLong())).thenAnswer(invocation -> {
+			String content = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+			if (!content.startsWith("img")) {
+				throw new InvalidRequestException("Solo se permiten archivos de imagen");
+			}
+			return "/images/blobs/" + content;
+		});
+
+		NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+		doAnswer(invocation -> {
+			Map<Long, String> table = tables.get(tableOf(invocation.getArgument(0)));
+			for (Long id : invocation.<Map<String, List<Long>>>getArgument(1).get("ids")) {
+				if (table.containsKey(id)) {
+					ResultSet row = mock(ResultSet.class);
+					when(row.getLong("id")).thenReturn(id);
+					when(row.getString("image_url")).thenReturn(table.get(id));
+					invocation.<RowCallbackHandler>getArgument(2).processRow(row);
+				}
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+		when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocation -> {
+			SqlParameterSource[] updates = invocation.getArgument(1);
+			batches.add(updates);
+			for (SqlParameterSource update : updates) {
+				tables.get(tableOf(invocation.getArgument(0)))
+						.put((Long) update.getValue("id"), (String) update.getValue("imageUrl"));
+			}
+			return new int[updates.length];
+		});
+
+		cache = mock(Cache.class);
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.getCache()).thenReturn(cache);
+
+		service = new ImageImportService(uploadService, jdbcTemplate, entityManagerFactory,
+				TransactionOperations.withoutTransaction(), 2);
+	}
+
+	@Test
+	void entriesAreImportedInBatchesWithAReport() throws Exception {
+		byte[] zip = zip(
+				"12.png", "img-a",
+				"ingredients/12.png", "img-b",
+				"recipes/7.jpg", "img-c",
+				"99.png", "img-d",
+				"notas.txt", "texto",
+				"ingredients/13.png", "falsa");
+
+		ImageImportReport report = service.importZip(new ByteArrayInputStream(zip), "ingredients");
+
+		assertThat(report.getEntries()).extracting(Entry::getName, Entry::getStatus).containsExactly(
+				tuple("12.png", Status.REPLACED),
+				tuple("ingredients/12.png", Status.IMPORTED),
+				tuple("recipes/7.jpg", Status.IMPORTED),
+				tuple("99.png", Status.NOT_FOUND),
+				tuple("notas.txt", Status.SKIPPED),
+				tuple("ingredients/13.png", Status.INVALID));
+		assertThat(report.getImportedEntries()).isEqualTo(2);
+		assertThat(report.getFailedEntries()).isEqualTo(2);
+		assertThat(report.getSkippedEntries()).isEqualTo(2);
+		assertThat(report.getError()).isNull();
+
+		assertThat(tables.get("ingredients")).containsEntry(12L, "/images/blobs/img-b").doesNotContainKey(99L);
+		assertThat(tables.get("recipes")).containsEntry(7L, "/images/blobs/img-c");
+		assertThat(batches).hasSize(2);
+
+		// La imagen sustituida, la anterior del ingrediente y la del recurso inexistente se liberan
+		verify(uploadService).deleteImage("/images/blobs/img-a", "ingredients", null);
+		verify(uploadService).deleteImage("/images/ingredients/old.png", "ingredients", null);
+		verify(uploadService).deleteImage("/images/blobs/img-d", "ingredients", null);
+		verify(uploadService, never()).deleteImage(eq("/images/blobs/img-b"), anyString(), any());
+		verify(uploadService, never()).deleteImage(eq("/images/blobs/img-c"), anyString(), any());
+
+		// Lo actualizado por JDBC se invalida en la caché de segundo nivel
+		verify(cache).evict(Ingredient.class, 12L);
+		verify(cache).evict(Recipe.class, 7L);
+		verify(cache, never()).evict(Ingredient.class, 99L);
+	}
+
+	@Test
+	void truncatedArchiveKeepsWhatWasRead() throws Exception {
+		byte[] noise = new byte[8192];
+		new Random(42).nextBytes(noise);
+		byte[] zip = zip("12.png", "img-a", "recipes/7.jpg", "img-" + Base64.getEncoder().encodeToString(noise));
+		byte[] truncated = Arrays.copyOf(zip, zip.length - 200);
+
+		ImageImportReport report = service.importZip(new ByteArrayInputStream(truncated), "ingredients");
+
+		assertThat(report.getError()).isNotNull();
+		assertThat(tables.get("ingredients")).containsEntry(12L, "/images/blobs/img-a");
+	}
+
+	@Test
+	void unknownTargetIsRejected() {
+		assertThatThrownBy(() -> service.importZip(new ByteArrayInputStream(new byte[0]), "users"))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	private static String tableOf(String sql) {
+		return sql.contains("recipes") ? "recipes" : "ingredients";
+	}
+
+	private static byte[] zip(String... namesAndContents) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (int i = 0; i < namesAndContents.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+				zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,181 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.models.ImageBlob;
+import api_recipes.repository.ImageBlobRepository;
+import api_recipes.storage.FileSystemImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Almacenamiento de imágenes por contenido: deduplicación y contador de referencias.
+ * El repositorio se simula con un mapa para no depender de la base de datos.
+ */
+class ImageUploadServiceTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 1, 2, 3, 4};
+
+	@TempDir
+	Path blobDir;
+
+	private final Map<String, ImageBlob> blobs = new HashMap<>();
+	private ImageBlobRepository repository;
+	private ImageUploadService service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(ImageBlobRepository.class);
+		when(repository.findByHashForUpdate(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(blobs.get(invocation.<String>getArgument(0))));
+		when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+			ImageBlob blob = invocation.getArgument(0);
+			blobs.put(blob.getHash(), blob);
+			return blob;
+		});
+		doAnswer(invocation -> blobs.remove(invocation.<ImageBlob>getArgument(0).getHash()))
+				.when(repository).delete(any());
+		// Los borrados en segundo plano se ejecutan en el acto para poder comprobarlos
+		ImageDeletionQueue deletionQueue = mock(ImageDeletionQueue.class);
+		doAnswer(invocation -> {
+			invocation.<ImageDeletionQueue.DeletionTask>getArgument(1).run();
+			return null;
+		}).when(deletionQueue).submit(anyString(), any());
+		service = new ImageUploadService(repository, TransactionOperations.withoutTransaction(),
+				mock(ImageVariantService.class), deletionQueue, new FileSystemImageStore(blobDir));
+	}
+
+	@Test
+	void identicalUploadsShareOneBlob() throws Exception {
+		String first = service.uploadImage(image("receta.png"));
+		String second = service.uploadImage(image("ingrediente.PNG"));
+
+		assertThat(second).isEqualTo(first);
+		assertThat(first).matches("/images/blobs/[0-9a-f]{2}/[0-9a-f]{64}\\.png");
+		assertThat(storedFiles()).isEqualTo(1);
+		assertThat(blobs.values()).singleElement().extracting(ImageBlob::getRefCount).isEqualTo(2);
+		verify(repository, times(1)).saveAndFlush(any());
+	}
+
+	@Test
+	void duplicateMultipartUploadIsOnlyHashed() throws Exception {
+		service.uploadImage(image("receta.png"));
+		MockMultipartFile duplicate = spy(image("copia.png"));
+
+		service.uploadImage(duplicate);
+
+		// Una sola lectura para el hash y ninguna escritura: ni copia en el almacén ni temporal
+		verify(duplicate, never()).transferTo(any(Path.class));
+		try (Stream<Path> files = Files.walk(blobDir)) {
+			assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+		}
+	}
+
+	@Test
+	void blobIsDeletedOnlyWithItsLastReference() throws Exception {
+		String url = service.uploadImage(image("a.png"));
+		service.uploadImage(image("b.png"));
+
+		service.deleteImage(url, "recipes", 1L);
+		assertThat(storedFiles()).isEqualTo(1);
+
+		service.deleteImage(url, "ingredients", null);
+		assertThat(storedFiles()).isZero();
+		assertThat(blobs).isEmpty();
+	}
+
+	@Test
+	void streamedUploadDeduplicatesWithMultipartUpload() throws Exception {
+		String multipart = service.uploadImage(image("receta.png"));
+		String streamed = service.uploadImage(new ByteArrayInputStream(PNG), PNG.length);
+
+		assertThat(streamed).isEqualTo(multipart);
+		assertThat(storedFiles()).isEqualTo(1);
+		assertThat(blobs.values()).singleElement().extracting(ImageBlob::getRefCount).isEqualTo(2);
+	}
+
+	@Test
+	void fakeImageIsRejectedFromItsContent() {
+		byte[] text = "esto no es una imagen".getBytes();
+
+		assertThatThrownBy(() -> service.uploadImage(new MockMultipartFile("image", "foto.png", "image/png", text)))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> service.uploadImage(new ByteArrayInputStream(text), text.length))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	@Test
+	void oversizedStreamStopsReadingAtTheLimit() throws Exception {
+		CountingInputStream endless = new CountingInputStream(PNG);
+
+		assertThatThrownBy(() -> service.uploadImage(endless, -1))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessageContaining("5MB");
+		assertThat(endless.read).isLessThan(5 * 1024 * 1024 + 128 * 1024);
+		assertThat(storedFiles()).isZero();
+		verify(repository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void declaredOversizeIsRejectedBeforeReading() {
+		CountingInputStream endless = new CountingInputStream(PNG);
+
+		assertThatThrownBy(() -> service.uploadImage(endless, 6L * 1024 * 1024))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThat(endless.read).isZero();
+	}
+
+	private static MockMultipartFile image(String filename) {
+		return new MockMultipartFile("image", filename, "image/png", PNG);
+	}
+
+	private long storedFiles() throws Exception {
+		try (Stream<Path> files = Files.walk(blobDir)) {
+			return files.filter(Files::isRegularFile).filter(file -> !file.toString().endsWith(".tmp")).count();
+		}
+	}
+
+	/**
+	 * Flujo infinito que empieza con una cabecera PNG y cuenta los bytes leídos.
+	 */
+	private static final class CountingInputStream extends InputStream {
+		private final byte[] header;
+		private long read;
+
+		CountingInputStream(byte[] header) {
+			this.header = header;
+		}
+
+		@Override
+		public int read() {
+			int value = read < header.length ? header[(int) read] & 0xFF : 0;
+			read++;
+			return value;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			for (int i = 0; i < len; i++) {
+				b[off + i] = (byte) read();
+			}
+			return len;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package api_recipes.services;
+
+import api_recipes.storage.FileSystemImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Generación de variantes: tamaño de cada una, orientación EXIF aplicada antes de eliminar los
+ * metadatos y límite de píxeles del original antes de decodificarlo.
+ */
+class ImageVariantServiceTests {
+
+	@TempDir
+	Path dir;
+
+	private ImageVariantService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new ImageVariantService(1, 4, 40_000_000, new SimpleMeterRegistry(), new FileSystemImageStore(dir));
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void variantsAreResizedAndStripped() throws Exception {
+		String original = store("ab/" + "ab12".repeat(16) + ".jpg", jpegWithExif(2000, 1000));
+
+		service.generate(original);
+
+		for (ImageVariantService.Variant variant : ImageVariantService.Variant.values()) {
+			Path path = dir.resolve(service.variantKey(original, variant));
+			BufferedImage image = ImageIO.read(path.toFile());
+			assertThat(image.getWidth()).isEqualTo(variant.getMaxSize());
+			assertThat(image.getHeight()).isEqualTo(variant.getMaxSize() / 2);
+			assertThat(new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1)).doesNotContain("Exif");
+		}
+		assertThat(service.variantKey(original, ImageVariantService.Variant.THUMB))
+				.isEqualTo("ab/" + "ab12".repeat(16) + "_thumb.jpg");
+	}
+
+	@Test
+	void smallImagesAreNotUpscaled() throws Exception {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB), "png", png);
+		String original = store("cd/" + "cd34".repeat(16) + ".png", png.toByteArray());
+
+		service.generate(original);
+
+		BufferedImage full = ImageIO.read(dir.resolve(service.variantKey(original, ImageVariantService.Variant.FULL)).toFile());
+		assertThat(full.getWidth()).isEqualTo(100);
+		assertThat(full.getHeight()).isEqualTo(50);
+	}
+
+	@Test
+	void deleteVariantsRemovesEveryVariant() throws Exception {
+		String original = store("ef/" + "ef56".repeat(16) + ".jpg", jpegWithExif(400, 200));
+		service.generate(original);
+
+		service.deleteVariants(original);
+
+		try (var files = Files.list(dir.resolve("ef"))) {
+			assertThat(files).containsExactly(dir.resolve(original));
+		}
+	}
+
+	@Test
+	void imagesAboveThePixelLimitAreNotDecoded() throws Exception {
+		// Cabecera PNG de 100000x100000 píxeles sin datos: decodificarla reservaría decenas de GB
+		String original = store("aa/" + "aa78".repeat(16) + ".png", pngHeader(100_000, 100_000));
+
+		service.generate(original);
+
+		try (var files = Files.list(dir.resolve("aa"))) {
+			assertThat(files).containsExactly(dir.resolve(original));
+		}
+	}
+
+	@Test
+	void largeImagesAreDecodedSubsampled() throws Exception {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(6000, 100, BufferedImage.TYPE_INT_RGB), "png", png);
+
+		BufferedImage decoded = service.decode("grande.png", new ByteArrayInputStream(png.toByteArray()));
+
+		assertThat(decoded.getWidth()).isEqualTo(3000);
+		assertThat(decoded.getHeight()).isEqualTo(50);
+	}
+
+	@Test
+	void contentThatIsNotAnImageIsSkipped() throws Exception {
+		String original = store("bb/" + "bb90".repeat(16) + ".png", "no es una imagen".getBytes(StandardCharsets.UTF_8));
+
+		service.generate(original);
+
+		try (var files = Files.list(dir.resolve("bb"))) {
+			assertThat(files).containsExactly(dir.resolve(original));
+		}
+	}
+
+	private String store(String key, byte[] content) throws Exception {
+		Path path = dir.resolve(key);
+		Files.createDirectories(path.getParent());
+		Files.write(path, content);
+		return key;
+	}
+
+	@Test
+	void exifOrientationIsAppliedBeforeResizing() throws Exception {
+		// Foto de móvil guardada apaisada con orientación 6: se ve girada 90° en sentido horario
+		String original = store("cc/" + "cc12".repeat(16) + ".jpg", jpegWithExif(400, 200, exifOrientation(6)));
+
+		service.generate(original);
+
+		BufferedImage card = ImageIO.read(dir.resolve(service.variantKey(original, ImageVariantService.Variant.CARD)).toFile());
+		assertThat(card.getWidth()).isEqualTo(200);
+		assertThat(card.getHeight()).isEqualTo(400);
+		// La mitad izquierda (naranja) del almacenado queda arriba
+		assertThat(isOrange(card.getRGB(100, 50))).isTrue();
+		assertThat(isOrange(card.getRGB(100, 350))).isFalse();
+	}
+
+	@Test
+	void everyExifOrientationMapsTheStoredCornerToTheTopLeft() {
+		// Esquina que debe quedar arriba a la izquierda tras aplicar cada orientación
+		int[][] storedCorner = {{0, 0}, {0, 0}, {3, 0}, {3, 1}, {0, 1}, {0, 0}, {0, 1}, {3, 1}, {3, 0}};
+		for (int orientation = 1; orientation <= 8; orientation++) {
+			BufferedImage stored = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+			stored.setRGB(storedCorner[orientation][0], storedCorner[orientation][1], 0xFFFFFF);
+
+			BufferedImage oriented = ImageVariantService.orient(stored, orientation);
+
+			assertThat(oriented.getWidth()).as("orientación %d", orientation).isEqualTo(orientation >= 5 ? 2 : 4);
+			assertThat(oriented.getRGB(0, 0) & 0xFFFFFF).as("orientación %d", orientation).isEqualTo(0xFFFFFF);
+		}
+	}
+
+	private static boolean isOrange(int rgb) {
+		int red = (rgb >> 16) & 0xFF;
+		int blue = rgb & 0xFF;
+		return red > 200 && blue < 80;
+	}
+
+	// EXIF big-endian con un IFD0 de una sola entrada: Orientation (0x0112, SHORT)
+	private static byte[] exifOrientation(int orientation) throws Exception {
+		ByteArrayOutputStream exif = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(exif);
+		out.write("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+		out.writeShort(0x4D4D);
+		out.writeShort(42);
+		out.writeInt(8);
+		out.writeShort(1);
+		out.writeShort(0x0112);
+		out.writeShort(3);
+		out.writeInt(1);
+		out.writeShort(orientation);
+		out.writeShort(0);
+		out.writeInt(0);
+		return exif.toByteArray();
+	}
+
+	private static byte[] jpegWithExif(int width, int height) throws Exception {
+		return jpegWithExif(width, height, "Exif\0\0GPS-SECRETO".getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	// JPEG con un segmento APP1 (EXIF) insertado tras el marcador SOI
+	private static byte[] jpegWithExif(int width, int height, byte[] payload) throws Exception {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.ORANGE);
+		graphics.fillRect(0, 0, width / 2, height);
+		graphics.dispose();
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", jpeg);
+		byte[] plain = jpeg.toByteArray();
+
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		result.write(plain, 0, 2);
+		result.write(0xFF);
+		result.write(0xE1);
+		result.write((payload.length + 2) >> 8);
+		result.write((payload.length + 2) & 0xFF);
+		result.write(payload);
+		result.write(plain, 2, plain.length - 2);
+		return result.toByteArray();
+	}
+
+	// Firma PNG, cabecera IHDR con las dimensiones indicadas y fin de imagen, sin píxeles
+	private static byte[] pngHeader(int width, int height) throws Exception {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(result);
+		out.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+		ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(ihdr);
+		data.writeInt(width);
+		data.writeInt(height);
+		data.write(new byte[] {8, 2, 0, 0, 0});
+		chunk(out, "IHDR", ihdr.toByteArray());
+		chunk(out, "IEND", new byte[0]);
+		return result.toByteArray();
+	}
+
+	private static void chunk(DataOutputStream out, String type, byte[] data) throws Exception {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data);
+		out.writeInt(data.length);
+		out.write(typeBytes);
+		out.write(data);
+		out.writeInt((int) crc.getValue());
+	}
+}
@@ -0,0 +1,143 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.exceptions.ResourceAlreadyExistsException;
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.payload.response.ProfilingReport;
+import api_recipes.payload.response.ProfilingSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Grabaciones de Java Flight Recorder con cada perfil y su resumen de puntos calientes.
+ */
+class ProfilingServiceTests {
+
+	private static final Object LOCK = new Object();
+	private static volatile long sink;
+
+	@TempDir
+	Path profilingDir;
+
+	private ProfilingService profilingService;
+
+	@BeforeEach
+	void setUp() {
+		profilingService = new ProfilingService(profilingDir.toString(), 2, 60, 5);
+	}
+
+	@AfterEach
+	void tearDown() {
+		profilingService.shutdown();
+	}
+
+	@Test
+	void cpuProfileFindsTheHotMethod() throws Exception {
+		ProfilingSession session = profilingService.start("cpu", 60);
+		assertThat(session.isRunning()).isTrue();
+		spin(500);
+
+		ProfilingReport report = profilingService.stop(10);
+
+		assertThat(report.getProfile()).isEqualTo("CPU");
+		assertThat(frames(report.getHotMethods())).contains(ProfilingServiceTests.class.getName() + ".spin");
+		assertThat(report.getHotMethods().get(0).getPercent()).isPositive();
+		assertThat(Files.size(profilingService.recordingFile(session.getRecordingId()))).isEqualTo(report.getSizeBytes());
+		assertThat(profilingService.status().isRunning()).isFalse();
+	}
+
+	@Test
+	void allocationProfileFindsTheAllocationSite() throws Exception {
+		profilingService.start("allocation", 60);
+		allocate(500);
+
+		ProfilingReport report = profilingService.stop(10);
+
+		assertThat(frames(report.getAllocationSites())).contains(ProfilingServiceTests.class.getName() + ".allocate");
+		assertThat(report.getHotMethods()).isEmpty();
+	}
+
+	@Test
+	void locksProfileFindsTheContendedMonitor() throws Exception {
+		profilingService.start("locks", 60);
+		Thread holder = Thread.ofPlatform().start(() -> contend(200));
+		Thread.sleep(50);
+		contend(0);
+		holder.join();
+
+		ProfilingReport report = profilingService.stop(10);
+
+		assertThat(frames(report.getLockSites())).contains(ProfilingServiceTests.class.getName() + ".contend");
+	}
+
+	@Test
+	void onlyOneRecordingAtATimeAndOldOnesArePruned() throws Exception {
+		String first = profilingService.start("cpu", 60).getRecordingId();
+		assertThatThrownBy(() -> profilingService.start("locks", 60)).isInstanceOf(ResourceAlreadyExistsException.class);
+		profilingService.stop(1);
+		Thread.sleep(5);
+		profilingService.start("cpu", 60);
+		profilingService.stop(1);
+		Thread.sleep(5);
+		String last = profilingService.start("cpu", 60).getRecordingId();
+		profilingService.stop(1);
+
+		// Se conservan las dos últimas
+		assertThatThrownBy(() -> profilingService.recordingFile(first)).isInstanceOf(ResourceNotFoundException.class);
+		assertThat(profilingService.recordingFile(last)).exists();
+	}
+
+	@Test
+	void invalidRequestsAreRejected() {
+		assertThatThrownBy(() -> profilingService.stop(10)).isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> profilingService.start("heap", 60)).isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> profilingService.start("cpu", 61)).isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> profilingService.recordingFile("../../etc/passwd"))
+				.isInstanceOf(ResourceNotFoundException.class);
+		assertThatThrownBy(() -> profilingService.status()).isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	private static List<String> frames(List<ProfilingReport.Entry> entries) {
+		return entries.stream().map(ProfilingReport.Entry::getFrame).toList();
+	}
+
+	private static void spin(long millis) {
+		long end = System.nanoTime() + millis * 1_000_000;
+		long value = 0;
+		while (System.nanoTime() < end) {
+			for (int i = 0; i < 10_000; i++) {
+				value += i * 31L ^ value;
+			}
+		}
+		sink = value;
+	}
+
+	private static void allocate(long millis) {
+		long end = System.nanoTime() + millis * 1_000_000;
+		long total = 0;
+		while (System.nanoTime() < end) {
+			byte[] buffer = new byte[64 * 1024];
+			total += buffer.length;
+		}
+		sink = total;
+	}
+
+	private static void contend(long holdMillis) {
+		synchronized (LOCK) {
+			try {
+				Thread.sleep(holdMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
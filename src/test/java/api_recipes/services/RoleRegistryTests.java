@@ -0,0 +1,134 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.mapper.UserMapperImpl;
+import api_recipes.models.Role;
+import api_recipes.models.User;
+import api_recipes.payload.dto.UserDto;
+import api_recipes.payload.request.SignupRequest;
+import api_recipes.payload.request.UserRequest;
+import api_recipes.repository.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Registro de roles: carga al arrancar de los roles sembrados por las migraciones, fallo si falta
+ * alguno, y alta y actualización de usuarios sin consultas a la tabla de roles.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({UserService.class, RoleRegistry.class, UserMapperImpl.class})
+class RoleRegistryTests {
+
+	@MockBean
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$hash");
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void rolesSeededByTheMigrationsAreLoaded() {
+		assertThat(roleRepository.count()).isEqualTo(Role.RoleName.values().length);
+		for (Role.RoleName name : Role.RoleName.values()) {
+			assertThat(roleRegistry.get(name).getId()).isNotNull();
+			assertThat(roleRegistry.get(name).getName()).isEqualTo(name);
+		}
+	}
+
+	@Test
+	void loadFailsIfARoleIsMissing() {
+		jdbcTemplate.update("DELETE FROM user_roles WHERE role_id = ?", roleRegistry.get(Role.RoleName.ROLE_MODERATOR).getId());
+		jdbcTemplate.update("DELETE FROM roles WHERE name = 'ROLE_MODERATOR'");
+
+		// El registro no crea roles: sin la fila no se puede arrancar
+		assertThatThrownBy(new RoleRegistry(roleRepository)::load)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("ROLE_MODERATOR");
+		assertThat(roleRepository.count()).isEqualTo(Role.RoleName.values().length - 1);
+	}
+
+	@Test
+	void signupResolvesRolesWithoutQueries() {
+		UserDto user = userService.registerUser(signup("ana", Set.of()));
+		entityManager.flush();
+		UserDto admin = userService.registerUser(signup("bea", Set.of("role_admin", "ROLE_MODERATOR")));
+		entityManager.flush();
+
+		// Por alta: existsByUsername, existsByEmail, usuario y una fila por rol en user_roles
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4 + 5);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(user.getRoles()).containsExactly("ROLE_USER");
+		assertThat(admin.getRoles()).containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_MODERATOR");
+	}
+
+	@Test
+	void updatedRolesArePersisted() {
+		Long id = userService.registerUser(signup("carla", Set.of())).getId();
+		entityManager.flush();
+		entityManager.clear();
+
+		UserRequest request = new UserRequest();
+		request.setUsername("carla");
+		request.setEmail("carla@example.com");
+		request.setRoles(Set.of("ROLE_ADMIN"));
+		userService.updateUser(id, request);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(entityManager.find(User.class, id).getRoles()).extracting(Role::getName)
+				.containsExactly(Role.RoleName.ROLE_ADMIN);
+		assertThatThrownBy(() -> userService.registerUser(signup("dani", Set.of("ROLE_CHEF"))))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	private static SignupRequest signup(String username, Set<String> roles) {
+		SignupRequest request = new SignupRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secreto123");
+		request.setRoles(roles);
+		return request;
+	}
+}
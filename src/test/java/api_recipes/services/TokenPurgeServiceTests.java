@@ -0,0 +1,97 @@
+package api_recipes.services;
+
+import api_recipes.models.TokenUser;
+import api_recipes.models.User;
+import api_recipes.repository.TokenUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Purga de tokens de restablecimiento caducados: solo borra los caducados, por tramos de tamaño
+ * fijo y con un máximo de tramos por ejecución, y publica lo borrado en sus métricas.
+ */
+@DataJpaTest
+class TokenPurgeServiceTests {
+
+	private static final int EXPIRED = 7;
+	private static final int VALID = 3;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TokenUserRepository tokenUserRepository;
+
+	@Autowired
+	private TransactionOperations transactionOperations;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < EXPIRED + VALID; i++) {
+			User user = entityManager.persist(new User("token" + i, "token" + i + "@example.com", "secreto"));
+			long offset = i < EXPIRED ? -(i + 1) * 60_000L : (i + 1) * 60_000L;
+			entityManager.persist(TokenUser.builder()
+					.token("token-" + i).user(user).expiryDate(new Date(now + offset)).build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void onlyExpiredTokensAreDeletedInChunks() {
+		TokenPurgeService purgeService = new TokenPurgeService(tokenUserRepository, transactionOperations, registry, 3, 10);
+
+		assertThat(purgeService.purgeExpired()).isEqualTo(EXPIRED);
+
+		assertThat(remainingTokens()).containsExactlyInAnyOrder("token-7", "token-8", "token-9");
+		assertThat(registry.get("tokens.purge.deleted").counter().count()).isEqualTo(EXPIRED);
+		assertThat(registry.get("tokens.purge.duration").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void eachRunStopsAfterItsMaximumNumberOfChunks() {
+		TokenPurgeService purgeService = new TokenPurgeService(tokenUserRepository, transactionOperations, registry, 3, 2);
+
+		// Dos tramos de 3: el caducado restante queda para la siguiente ejecución
+		assertThat(purgeService.purgeExpired()).isEqualTo(6);
+		assertThat(remainingTokens()).hasSize(VALID + 1);
+
+		assertThat(purgeService.purgeExpired()).isEqualTo(1);
+		assertThat(purgeService.purgeExpired()).isZero();
+		assertThat(remainingTokens()).hasSize(VALID);
+		assertThat(registry.get("tokens.purge.deleted").counter().count()).isEqualTo(EXPIRED);
+	}
+
+	@Test
+	void chunksFollowTheExpiryOrder() {
+		// El tramo empieza por los que caducaron antes
+		List<Long> ids = tokenUserRepository.findExpiredIds(new Date(), 3);
+
+		List<String> tokens = ids.stream()
+				.map(id -> jdbcTemplate.queryForObject("SELECT token FROM tokens WHERE id = ?", String.class, id))
+				.toList();
+		assertThat(tokens).containsExactly("token-6", "token-5", "token-4");
+	}
+
+	private List<String> remainingTokens() {
+		return jdbcTemplate.queryForList("SELECT token FROM tokens", String.class);
+	}
+}
@@ -0,0 +1,146 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.ResourceNotFoundException;
+import api_recipes.models.User;
+import api_recipes.models.UserDeletionJob;
+import api_recipes.repository.*;
+import api_recipes.repository.RecipeRepository.RecipeImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Borrado de usuarios en segundo plano: tramos, progreso, reintentos y reclamo del trabajo.
+ * Las recetas del usuario se simulan con una lista que los borrados en bloque van vaciando.
+ */
+class UserDeletionServiceTests {
+
+	private static final long USER_ID = 5L;
+	private static final long JOB_ID = 1L;
+
+	private final List<Long> recipeIds = new ArrayList<>(List.of(10L, 11L, 12L, 13L, 14L));
+	private UserDeletionJob job;
+	private UserDeletionJobRepository jobRepository;
+	private UserRepository userRepository;
+	private RecipeRepository recipeRepository;
+	private FavoriteRepository favoriteRepository;
+	private ImageUploadService imageUploadService;
+	private UserDeletionService service;
+
+	@BeforeEach
+	void setUp() {
+		job = UserDeletionJob.builder().id(JOB_ID).userId(USER_ID).status(UserDeletionJob.Status.PENDING)
+				.totalRecipes(recipeIds.size()).createdAt(new Date()).updatedAt(new Date()).build();
+		jobRepository = mock(UserDeletionJobRepository.class);
+		when(jobRepository.findById(JOB_ID)).thenAnswer(invocation -> Optional.of(job));
+		when(jobRepository.claim(eq(JOB_ID), any(), any())).thenReturn(1);
+
+		userRepository = mock(UserRepository.class);
+		when(userRepository.findById(USER_ID)).thenReturn(Optional.of(new User()));
+
+		recipeRepository = mock(RecipeRepository.class);
+		when(recipeRepository.findByUserIdOrderById(eq(USER_ID), any())).thenAnswer(invocation -> {
+			int size = invocation.<Pageable>getArgument(1).getPageSize();
+			return recipeIds.stream().limit(size).map(id -> recipe(id, id % 2 == 0 ? "/images/blobs/" + id : null)).toList();
+		});
+		when(recipeRepository.deleteByIds(anyCollection())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			recipeIds.removeAll(ids);
+			return ids.size();
+		});
+
+		favoriteRepository = mock(FavoriteRepository.class);
+		when(favoriteRepository.deleteChunkByUserId(eq(USER_ID), anyInt())).thenReturn(2, 1);
+		when(favoriteRepository.deleteByRecipeIds(anyCollection())).thenReturn(3);
+
+		imageUploadService = mock(ImageUploadService.class);
+		service = new UserDeletionService(jobRepository, userRepository, recipeRepository, favoriteRepository,
+				mock(TokenUserRepository.class), imageUploadService,
+				TransactionOperations.withoutTransaction(), 2, 300_000L, 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void userIsDeletedInChunksWithProgress() throws Exception {
+		service.run(JOB_ID);
+
+		assertThat(recipeIds).isEmpty();
+		verify(recipeRepository, times(3)).deleteByIds(anyCollection());
+		verify(favoriteRepository, times(3)).deleteByRecipeIds(anyCollection());
+		verify(userRepository).delete(any(User.class));
+		assertThat(job.getStatus()).isEqualTo(UserDeletionJob.Status.COMPLETED);
+		assertThat(job.getDeletedRecipes()).isEqualTo(5);
+		// 3 propios (2 + 1) y 3 por cada tramo de recetas
+		assertThat(job.getDeletedFavorites()).isEqualTo(3 + 3 * 3);
+		assertThat(job.getFinishedAt()).isNotNull();
+
+		verify(imageUploadService).deleteImage("/images/blobs/10", "recipes", 10L);
+		verify(imageUploadService).deleteImage("/images/blobs/12", "recipes", 12L);
+		verify(imageUploadService).deleteImage("/images/blobs/14", "recipes", 14L);
+		verify(imageUploadService, times(3)).deleteImage(anyString(), anyString(), anyLong());
+	}
+
+	@Test
+	void failedJobIsRetriedThenMarkedFailed() {
+		when(recipeRepository.deleteByIds(anyCollection())).thenThrow(new QueryTimeoutException("timeout"));
+
+		service.run(JOB_ID);
+		assertThat(job.getStatus()).isEqualTo(UserDeletionJob.Status.PENDING);
+		assertThat(job.getAttempts()).isEqualTo(1);
+		assertThat(job.getLastError()).isEqualTo("timeout");
+
+		service.run(JOB_ID);
+		assertThat(job.getStatus()).isEqualTo(UserDeletionJob.Status.FAILED);
+		verify(userRepository, never()).delete(any(User.class));
+	}
+
+	@Test
+	void jobClaimedByAnotherNodeIsNotRun() {
+		when(jobRepository.claim(eq(JOB_ID), any(), any())).thenReturn(0);
+
+		service.run(JOB_ID);
+
+		verifyNoInteractions(favoriteRepository);
+		verify(recipeRepository, never()).deleteByIds(anyCollection());
+	}
+
+	@Test
+	void existingJobIsReusedAndMissingUserRejected() {
+		job.setStatus(UserDeletionJob.Status.RUNNING);
+		when(userRepository.existsById(USER_ID)).thenReturn(true);
+		when(jobRepository.findFirstByUserIdAndStatusIn(eq(USER_ID), anyCollection())).thenReturn(Optional.of(job));
+		when(jobRepository.claim(eq(JOB_ID), any(), any())).thenReturn(0);
+
+		assertThat(service.requestDeletion(USER_ID)).isSameAs(job);
+		verify(jobRepository, never()).save(any());
+		assertThatThrownBy(() -> service.requestDeletion(99L)).isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	private static RecipeImage recipe(Long id, String imageUrl) {
+		return new RecipeImage() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getImageUrl() {
+				return imageUrl;
+			}
+		};
+	}
+}
@@ -0,0 +1,155 @@
+package api_recipes.services;
+
+import api_recipes.exceptions.InvalidRequestException;
+import api_recipes.mapper.UserMapperImpl;
+import api_recipes.models.Role;
+import api_recipes.models.User;
+import api_recipes.payload.dto.UserDto;
+import api_recipes.payload.response.KeysetPage;
+import api_recipes.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Listado y búsqueda de usuarios: paginación por cursor, búsqueda por prefijo sobre columnas
+ * indexadas y carga de roles en lote, con un número de consultas que no depende de cuántos
+ * usuarios haya.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({UserService.class, RoleRegistry.class, UserMapperImpl.class})
+class UserListingTests {
+
+	private static final int USERS = 250;
+
+	@MockBean
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		// Esquema y roles de las migraciones, sin los usuarios de ejemplo
+		jdbcTemplate.update("DELETE FROM user_roles");
+		jdbcTemplate.update("DELETE FROM users");
+		Role user = roleRegistry.get(Role.RoleName.ROLE_USER);
+		Role admin = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
+		for (int i = 0; i < USERS; i++) {
+			User account = new User("usuario" + i, "usuario" + i + "@example.com", "secreto");
+			account.setRoles(i % 10 == 0 ? Set.of(user, admin) : Set.of(user));
+			entityManager.persist(account);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void allUsersAreWalkedWithTwoQueriesPerPage() {
+		List<UserDto> seen = new ArrayList<>();
+		Long cursor = null;
+		int pages = 0;
+		do {
+			statistics.clear();
+			KeysetPage<UserDto> page = userService.getUsersAfter(cursor, 100);
+			entityManager.clear();
+
+			assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+			seen.addAll(page.getContent());
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).hasSize(USERS);
+		assertThat(seen).extracting(UserDto::getUsername).doesNotHaveDuplicates();
+		assertThat(seen.get(0).getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+		assertThat(seen.get(1).getRoles()).containsExactly("ROLE_USER");
+	}
+
+	@Test
+	void pagedListingLoadsRolesInOneBatch() {
+		Page<UserDto> page = userService.getAllPageableUser(1, 100);
+
+		// Usuarios, total y roles
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+		assertThat(page.getContent()).hasSize(100);
+		assertThat(page.getTotalElements()).isEqualTo(USERS);
+		assertThat(page.getContent()).allSatisfy(user -> assertThat(user.getRoles()).contains("ROLE_USER"));
+	}
+
+	@Test
+	void usersAreFoundByUsernameOrEmailPrefix() {
+		User renamed = entityManager.find(User.class, entityManager.getId(
+				userRepository.findByUsernameNormalizedStartingWithOrderByUsernameNormalized("usuario7", Limit.of(1)).get(0)));
+		renamed.setUsername("  Marta_G ");
+		renamed.setEmail("Contacto@Recetas.es");
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		assertThat(userService.searchUsers("MARTA", 20)).extracting(UserDto::getId).containsExactly(renamed.getId());
+		assertThat(userService.searchUsers("contacto@", 20)).extracting(UserDto::getId).containsExactly(renamed.getId());
+		// El guion bajo es literal, no el comodín de LIKE
+		assertThat(userService.searchUsers("marta_", 20)).hasSize(1);
+		assertThat(userService.searchUsers("martaxg", 20)).isEmpty();
+
+		List<UserDto> found = userService.searchUsers("usuario1", 20);
+		assertThat(found).hasSize(20).extracting(UserDto::getUsername).isSorted().allMatch(name -> name.startsWith("usuario1"));
+	}
+
+	@Test
+	void searchUsesTheNormalizedIndex() {
+		String plan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT id FROM users WHERE username_normalized LIKE 'usu%' ORDER BY username_normalized", String.class);
+
+		assertThat(plan).containsIgnoringCase("IDX_USERS_USERNAME_NORMALIZED");
+		assertThatThrownBy(() -> userService.searchUsers("   ", 20)).isInstanceOf(InvalidRequestException.class);
+	}
+
+	@Test
+	void pageSizeIsCappedAndValidated() {
+		assertThat(userService.getUsersAfter(null, 10_000).getContent()).hasSize(User.ROLES_BATCH_SIZE);
+		assertThatThrownBy(() -> userService.getUsersAfter(null, 0)).isInstanceOf(InvalidRequestException.class);
+	}
+}
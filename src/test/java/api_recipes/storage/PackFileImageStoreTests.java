@@ -0,0 +1,156 @@
+package api_recipes.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Almacén empaquetado: lectura desde memoria mapeada, borrado, reconstrucción del índice y compactación.
+ */
+class PackFileImageStoreTests {
+
+	private static final String FIRST = "aa/" + "a".repeat(64) + ".jpg";
+	private static final String SECOND = "bb/" + "b".repeat(64) + ".png";
+	private static final String THIRD = "cc/" + "c".repeat(64) + "_thumb.jpg";
+
+	@TempDir
+	Path dir;
+
+	private PackFileImageStore store;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		store = new PackFileImageStore(dir, 1024, 0.5);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		store.close();
+	}
+
+	@Test
+	void storedImagesAreReadBack() throws Exception {
+		put(FIRST, content(300, 1));
+		put(SECOND, content(10, 2));
+
+		assertThat(read(FIRST)).isEqualTo(content(300, 1));
+		assertThat(read(SECOND)).isEqualTo(content(10, 2));
+		Resource resource = store.get(FIRST).orElseThrow();
+		assertThat(resource.contentLength()).isEqualTo(300L);
+		assertThat(resource.isFile()).isFalse();
+		try (InputStream in = resource.getInputStream()) {
+			assertThat(in.skip(298)).isEqualTo(298);
+			assertThat(in.readAllBytes()).containsExactly(content(300, 1)[298], content(300, 1)[299]);
+		}
+	}
+
+	@Test
+	void existingKeysAreNotOverwritten() throws Exception {
+		put(FIRST, content(50, 1));
+		Path staging = store.newStagingFile();
+		Files.write(staging, content(50, 9));
+
+		store.put(FIRST, staging);
+
+		assertThat(read(FIRST)).isEqualTo(content(50, 1));
+		assertThat(staging).doesNotExist();
+	}
+
+	@Test
+	void deletedImagesStayDeletedAfterRestart() throws Exception {
+		put(FIRST, content(100, 1));
+		put(SECOND, content(100, 2));
+
+		assertThat(store.delete(FIRST)).isTrue();
+		assertThat(store.delete(FIRST)).isFalse();
+		reopen();
+
+		assertThat(store.exists(FIRST)).isFalse();
+		assertThat(read(SECOND)).isEqualTo(content(100, 2));
+		assertThat(store.list()).extracting(ImageStore.StoredImage::key).containsExactly(SECOND);
+	}
+
+	@Test
+	void tornRecordIsTruncatedOnRestart() throws Exception {
+		put(FIRST, content(100, 1));
+		Path segment = dir.resolve("segment-000001.pack");
+		long complete = Files.size(segment);
+		// Simula una caída a mitad de escribir el siguiente registro
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[]{0x49, 0x4D, 0x47, 0x31, 1, 0, 0}));
+		}
+
+		reopen();
+		put(SECOND, content(20, 2));
+
+		assertThat(read(FIRST)).isEqualTo(content(100, 1));
+		assertThat(read(SECOND)).isEqualTo(content(20, 2));
+		assertThat(Files.size(segment)).isGreaterThan(complete);
+	}
+
+	@Test
+	void compactionDropsDeadRecordsAndKeepsLiveOnes() throws Exception {
+		put(FIRST, content(600, 1));
+		put(SECOND, content(600, 2));
+		put(THIRD, content(600, 3));
+		assertThat(store.getSegmentCount()).isEqualTo(3);
+		store.delete(FIRST);
+		store.delete(SECOND);
+
+		store.compact();
+
+		assertThat(dir.resolve("segment-000001.pack")).doesNotExist();
+		assertThat(dir.resolve("segment-000002.pack")).doesNotExist();
+		assertThat(read(THIRD)).isEqualTo(content(600, 3));
+		reopen();
+		assertThat(store.exists(FIRST)).isFalse();
+		assertThat(store.exists(SECOND)).isFalse();
+		assertThat(read(THIRD)).isEqualTo(content(600, 3));
+	}
+
+	@Test
+	void stagingFilesAreListedForTheCollector() throws Exception {
+		Path staging = store.newStagingFile();
+		String key = ".incoming/" + staging.getFileName();
+
+		assertThat(store.list()).extracting(ImageStore.StoredImage::key).containsExactly(key);
+		assertThat(store.delete(key)).isTrue();
+		assertThat(staging).doesNotExist();
+	}
+
+	private void put(String key, byte[] content) throws Exception {
+		Path staging = store.newStagingFile();
+		Files.write(staging, content);
+		store.put(key, staging);
+	}
+
+	private byte[] read(String key) throws Exception {
+		try (InputStream in = store.get(key).orElseThrow().getInputStream()) {
+			return in.readAllBytes();
+		}
+	}
+
+	private void reopen() throws Exception {
+		store.close();
+		store = new PackFileImageStore(dir, 1024, 0.5);
+	}
+
+	private static byte[] content(int size, int seed) {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) (i * 31 + seed);
+		}
+		return content;
+	}
+}
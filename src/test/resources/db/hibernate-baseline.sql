@@ -0,0 +1,31 @@
+-- Esquema que generaba Hibernate (ddl-auto=update) antes de pasar a Flyway, con sus nombres de
+-- restricciones, tal y como está en las bases de datos de esa época. Lo usa MigrationUpgradeTests.
+
+create table categories (id bigint not null auto_increment, name varchar(50) not null, primary key (id));
+create table favorites (id bigint not null auto_increment, recipe_id bigint not null, user_id bigint not null, primary key (id));
+create table ingredients (active bit not null, id bigint not null auto_increment, name varchar(50) not null, image_url varchar(255), unit_measure enum ('GRAMOS','MILILITROS','TAZAS','UNIDADES','LITROS','CUCHARADAS','CUCHARADITAS'), primary key (id));
+create table recipe_categories (category_id bigint not null, recipe_id bigint not null, primary key (category_id, recipe_id));
+create table recipe_ingredients (quantity float(53) not null, id bigint not null auto_increment, ingredient_id bigint not null, recipe_id bigint not null, primary key (id));
+create table recipes (popularity integer not null, id bigint not null auto_increment, user_id bigint not null, title varchar(100) not null, description TEXT not null, preparation varchar(1000), image_url varchar(255), status enum ('PENDING','APPROVED','REJECTED'), primary key (id));
+create table roles (id bigint not null auto_increment, name enum ('ROLE_USER','ROLE_MODERATOR','ROLE_ADMIN'), primary key (id));
+create table tokens (expiry_date datetime(6), id bigint not null auto_increment, user_id bigint not null, token varchar(255) not null, primary key (id));
+create table user_roles (role_id bigint not null, user_id bigint not null, primary key (role_id, user_id));
+create table users (id bigint not null auto_increment, username varchar(20) not null, email varchar(50) not null, password varchar(120) not null, primary key (id));
+alter table categories add constraint UK_t8o6pivur7nn124jehx7cygw5 unique (name);
+alter table favorites add constraint UKcwb8yolekj8qt3e75u8v6clu8 unique (user_id, recipe_id);
+alter table ingredients add constraint UK_j6tsl15xx76y4kv41yxr4uxab unique (name);
+alter table recipe_ingredients add constraint UK6nd8fu2g3lhvs078dtod2o7hf unique (recipe_id, ingredient_id);
+alter table tokens add constraint UK_lgokc3vw1rct83pdwryntacb9 unique (user_id);
+alter table tokens add constraint UK_na3v9f8s7ucnj16tylrs822qj unique (token);
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table favorites add constraint FKf7myexo8ccfw0faigicluhrrh foreign key (recipe_id) references recipes (id);
+alter table favorites add constraint FKk7du8b8ewipawnnpg76d55fus foreign key (user_id) references users (id);
+alter table recipe_categories add constraint FKl4gklbf4tpxuk41fp77pgd28l foreign key (category_id) references categories (id);
+alter table recipe_categories add constraint FK3w4m6a9qnpwjgknvss7amxhjd foreign key (recipe_id) references recipes (id);
+alter table recipe_ingredients add constraint FKgukrw6na9f61kb8djkkuvyxy8 foreign key (ingredient_id) references ingredients (id);
+alter table recipe_ingredients add constraint FKcqlw8sor5ut10xsuj3jnttkc foreign key (recipe_id) references recipes (id);
+alter table recipes add constraint FKlc3x6yty3xsupx80hqbj9ayos foreign key (user_id) references users (id);
+alter table tokens add constraint FK2dylsfo39lgjyqml2tbe0b0ss foreign key (user_id) references users (id);
+alter table user_roles add constraint FKh8ciramu9cc9q3qcqiv4ue8a6 foreign key (role_id) references roles (id);
+alter table user_roles add constraint FKhfh9dx7w3ubf1co1vdev94g3f foreign key (user_id) references users (id);